@@ -0,0 +1,96 @@
+#!/usr/bin/env bash
+# Startup benchmark for the "prod" profile.
+#
+# Measures, for each launch mode, the "Started LankiApplication in" time and the time
+# from launching the JVM to the first successful GET /api/problems, as the median of
+# RUNS launches:
+#   jar      java -jar (fat jar)
+#   aot      java -jar with -Dspring.aot.enabled=true
+#   cds      unpacked jar with an AppCDS archive
+#   cds-aot  both
+#
+# Runs against a file-based H2 database created once by this script, so "prod" can
+# validate the schema as it would against PostgreSQL.
+#
+# Usage (from backend/): mvn -Paot package -DskipTests && scripts/startup-bench.sh [RUNS]
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+JAR=target/lanki-0.0.1-SNAPSHOT.jar
+WORK=target/startup-bench
+MAIN=com.lanki.LankiApplication
+
+if [[ ! -f $JAR ]]; then
+  echo "Missing $JAR; run: mvn -Paot package -DskipTests" >&2
+  exit 1
+fi
+
+rm -rf "$WORK"
+mkdir -p "$WORK"
+WORK=$(cd "$WORK" && pwd)
+
+export LANKI_DB_URL="jdbc:h2:file:$WORK/db/lankidb"
+export LANKI_DB_USERNAME=sa
+export LANKI_DB_PASSWORD=
+export LANKI_DB_DRIVER=org.h2.Driver
+export LANKI_DB_DIALECT=org.hibernate.dialect.H2Dialect
+APP_ARGS=(--spring.profiles.active=prod --server.port="$PORT")
+
+# Create the schema once; every measured start validates it. The JPA bootstrap is
+# made synchronous so the tables exist before the context exits on refresh.
+java -Dspring.context.exit=onRefresh -jar "$JAR" "${APP_ARGS[@]}" \
+  --spring.main.lazy-initialization=false --spring.data.jpa.repositories.bootstrap-mode=default \
+  --spring.jpa.hibernate.ddl-auto=create > "$WORK/schema.log" 2>&1
+
+# AppCDS only archives classes loaded from jars on the class path, so unpack the fat
+# jar into application.jar plus lib/*.jar, in a fixed order
+mkdir -p "$WORK/unpacked" "$WORK/app"
+(cd "$WORK/unpacked" && jar xf "$OLDPWD/$JAR")
+jar cf "$WORK/app/application.jar" -C "$WORK/unpacked/BOOT-INF/classes" .
+cp -r "$WORK/unpacked/BOOT-INF/lib" "$WORK/app/lib"
+CLASSPATH_APP="$WORK/app/application.jar:$(ls "$WORK"/app/lib/*.jar | sort | paste -sd: -)"
+
+# Training runs exit once the context is refreshed; the JVM then dumps every loaded class
+java -XX:ArchiveClassesAtExit="$WORK/app/lanki.jsa" -Dspring.context.exit=onRefresh \
+  -cp "$CLASSPATH_APP" "$MAIN" "${APP_ARGS[@]}" > "$WORK/cds-training.log" 2>&1
+java -XX:ArchiveClassesAtExit="$WORK/app/lanki-aot.jsa" -Dspring.context.exit=onRefresh -Dspring.aot.enabled=true \
+  -cp "$CLASSPATH_APP" "$MAIN" "${APP_ARGS[@]}" > "$WORK/cds-aot-training.log" 2>&1
+
+command_for() {
+  case $1 in
+    jar)     echo "java -jar $JAR" ;;
+    aot)     echo "java -Dspring.aot.enabled=true -jar $JAR" ;;
+    cds)     echo "java -XX:SharedArchiveFile=$WORK/app/lanki.jsa -cp $CLASSPATH_APP $MAIN" ;;
+    cds-aot) echo "java -XX:SharedArchiveFile=$WORK/app/lanki-aot.jsa -Dspring.aot.enabled=true -cp $CLASSPATH_APP $MAIN" ;;
+  esac
+}
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+printf "%-8s %12s %18s\n" mode "started (s)" "first request (ms)"
+for mode in jar aot cds cds-aot; do
+  started=()
+  first=()
+  for run in $(seq "$RUNS"); do
+    log="$WORK/$mode-$run.log"
+    launched=$(date +%s%N)
+    $(command_for "$mode") "${APP_ARGS[@]}" > "$log" 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "http://localhost:$PORT/api/problems"; do
+      if ! kill -0 "$pid" 2> /dev/null; then
+        echo "$mode run $run exited early, see $log" >&2
+        exit 1
+      fi
+      sleep 0.02
+    done
+    first+=($(( ($(date +%s%N) - launched) / 1000000 )))
+    started+=("$(grep -o 'Started LankiApplication in [0-9.]*' "$log" | awk '{ print $4 }')")
+    kill "$pid"
+    wait "$pid" 2> /dev/null || true
+  done
+  printf "%-8s %12s %18s\n" "$mode" \
+    "$(printf '%s\n' "${started[@]}" | median)" "$(printf '%s\n' "${first[@]}" | median)"
+done
@@ -0,0 +1,35 @@
+package com.lanki.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Two schedulers for @Scheduled methods:
+ * - taskScheduler (spring.task.scheduling.pool.size threads) runs the frequent jobs:
+ *   SubmissionPoller, SSE heartbeats, submission enrichment
+ * - batchJobScheduler runs the nightly and weekly jobs over all users (FSRS fitting,
+ *   daily queue rebuild, forecast, review_log compaction, due index check), which take
+ *   minutes at scale. Methods pick it with @Scheduled(scheduler = BATCH_JOB_SCHEDULER).
+ * A long batch job therefore never delays a poll or a heartbeat.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    public static final String BATCH_JOB_SCHEDULER = "batchJobScheduler";
+
+    // Also the name @Scheduled methods without a scheduler resolve to
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(BATCH_JOB_SCHEDULER)
+    public ThreadPoolTaskScheduler batchJobScheduler(
+            ThreadPoolTaskSchedulerBuilder builder,
+            @Value("${lanki.scheduling.batch-pool-size:1}") int poolSize) {
+        return builder.poolSize(poolSize).threadNamePrefix("batch-job-").build();
+    }
+}
@@ -1,11 +1,18 @@
 package com.lanki.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -15,7 +22,8 @@ import java.util.Arrays;
 
 /**
  * Security configuration.
- * For MVP: Allows all requests (no authentication).
+ * For MVP: Allows all requests (no authentication), except /api/admin/**, which
+ * needs HTTP Basic as the admin user (lanki.admin.password; unset denies every call).
  * TODO: Add JWT authentication in production.
  */
 @Configuration
@@ -23,6 +31,34 @@ import java.util.Arrays;
 public class SecurityConfig {
 
     @Bean
+    @Order(1)
+    public SecurityFilterChain adminFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher("/api/admin/**")
+            .csrf(csrf -> csrf.disable()) // Basic auth only, no cookies
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .authorizeHttpRequests(auth -> auth.anyRequest().hasRole("ADMIN"))
+            .httpBasic(Customizer.withDefaults());
+
+        return http.build();
+    }
+
+    @Bean
+    public UserDetailsService adminUsers(
+            PasswordEncoder passwordEncoder,
+            @Value("${lanki.admin.username:admin}") String username,
+            @Value("${lanki.admin.password:}") String password) {
+        if (password.isBlank()) {
+            return new InMemoryUserDetailsManager();
+        }
+        return new InMemoryUserDetailsManager(User.withUsername(username)
+            .password(passwordEncoder.encode(password))
+            .roles("ADMIN")
+            .build());
+    }
+
+    @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
             .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -0,0 +1,40 @@
+package com.lanki.controller;
+
+import com.lanki.dto.ProblemImportDTO;
+import com.lanki.service.ProblemCatalog;
+import com.lanki.service.ProblemCatalogImporter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final ProblemCatalog problemCatalog;
+    private final ProblemCatalogImporter problemCatalogImporter;
+
+    /**
+     * POST /api/admin/catalog/reload
+     * Reloads the in-memory problem catalog after the problems table was edited.
+     */
+    @PostMapping("/catalog/reload")
+    public ResponseEntity<Map<String, Object>> reloadCatalog() {
+        return ResponseEntity.ok(Map.of("problems", problemCatalog.reload()));
+    }
+
+    /**
+     * POST /api/admin/catalog/import
+     * Inserts or updates problems by slug and replaces the entries of the lists named,
+     * then reloads the catalog.
+     */
+    @PostMapping("/catalog/import")
+    public ResponseEntity<ProblemCatalogImporter.ImportResult> importCatalog(@RequestBody ProblemImportDTO request) {
+        ProblemCatalogImporter.ImportResult result = problemCatalogImporter.importCatalog(request);
+        problemCatalog.reload();
+        return ResponseEntity.ok(result);
+    }
+}
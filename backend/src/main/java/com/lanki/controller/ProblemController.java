@@ -2,36 +2,119 @@ package com.lanki.controller;
 
 import com.lanki.dto.DailyProblemDTO;
 import com.lanki.dto.ProblemDTO;
+import com.lanki.dto.ProblemPageDTO;
+import com.lanki.model.Problem;
 import com.lanki.model.User;
+import com.lanki.service.ProblemCatalog;
 import com.lanki.service.ProblemService;
 import com.lanki.service.SpacedRepetitionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/problems")
-@RequiredArgsConstructor
 @CrossOrigin(origins = "http://localhost:5173") // Allow React dev server
 public class ProblemController {
 
     private final ProblemService problemService;
+    private final ProblemCatalog problemCatalog;
     private final SpacedRepetitionService spacedRepetitionService;
+    private final int maxPageSize;
+
+    public ProblemController(
+            ProblemService problemService,
+            ProblemCatalog problemCatalog,
+            SpacedRepetitionService spacedRepetitionService,
+            @Value("${lanki.catalog.max-page-size:200}") int maxPageSize) {
+        this.problemService = problemService;
+        this.problemCatalog = problemCatalog;
+        this.spacedRepetitionService = spacedRepetitionService;
+        this.maxPageSize = maxPageSize;
+    }
 
     /**
      * GET /api/problems
-     * Returns all 150 NeetCode problems grouped by category.
-     * For the "All Problems" page.
+     * Returns every problem grouped by category, without progress.
+     * For the "All Problems" page, together with /api/problems/progress.
+     * The body is serialized once per catalog load; clients revalidate with If-None-Match.
      */
     @GetMapping
-    public ResponseEntity<Map<String, List<ProblemDTO>>> getAllProblems(
+    public ResponseEntity<byte[]> getAllProblems(ServletWebRequest request) {
+        return serialized(problemCatalog.groupedJson(), request);
+    }
+
+    /**
+     * GET /api/problems/page?category=&difficulty=&premium=&list=&after=&limit=
+     * One page of problems matching every given filter, in id order or, with list, in
+     * list order. Pass nextCursor from the response as after to get the next page.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<ProblemPageDTO> getProblemPage(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Problem.Difficulty difficulty,
+            @RequestParam(required = false) Boolean premium,
+            @RequestParam(required = false) String list,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+        ProblemCatalog.Filter filter = new ProblemCatalog.Filter(category, difficulty, premium, list);
+        return ResponseEntity.ok(problemCatalog.page(filter, after, limit));
+    }
+
+    /**
+     * GET /api/problems/search?q=&limit=
+     * Problems whose title or slug best matches the query, allowing partial words and typos.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<ProblemDTO>> searchProblems(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+        return ResponseEntity.ok(problemCatalog.search(q, limit));
+    }
+
+    /**
+     * GET /api/problems/lists
+     * Curated problem lists (e.g. Blind 75, NeetCode 150) with their sizes.
+     */
+    @GetMapping("/lists")
+    public ResponseEntity<List<Map<String, Object>>> getLists() {
+        return ResponseEntity.ok(problemCatalog.lists());
+    }
+
+    /**
+     * GET /api/problems/progress
+     * Returns the current user's progress status by problem id, for started problems only.
+     */
+    @GetMapping("/progress")
+    public ResponseEntity<Map<Long, String>> getProgress(
+            @AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(problemService.getProgressOverlay(user));
+    }
+
+    /**
+     * GET /api/problems/progress/summary
+     * Returns the current user's completed and in-progress counts, overall and per category.
+     */
+    @GetMapping("/progress/summary")
+    public ResponseEntity<Map<String, Object>> getProgressSummary(
             @AuthenticationPrincipal User user) {
-        Map<String, List<ProblemDTO>> problems = problemService.getProblemsGroupedByCategory(user);
-        return ResponseEntity.ok(problems);
+        return ResponseEntity.ok(problemService.getProgressSummary(user));
     }
 
     /**
@@ -52,7 +135,7 @@ public class ProblemController {
      */
     @GetMapping("/{id}")
     public ResponseEntity<ProblemDTO> getProblem(@PathVariable Long id) {
-        ProblemDTO problem = ProblemDTO.fromEntity(problemService.getProblemById(id));
+        ProblemDTO problem = problemService.getProblemById(id);
         return ResponseEntity.ok(problem);
     }
 
@@ -61,8 +144,31 @@ public class ProblemController {
      * Get list of all problem categories.
      */
     @GetMapping("/categories")
-    public ResponseEntity<List<String>> getCategories() {
-        List<String> categories = problemService.getAllCategories();
-        return ResponseEntity.ok(categories);
+    public ResponseEntity<byte[]> getCategories(ServletWebRequest request) {
+        return serialized(problemCatalog.categoriesJson(), request);
+    }
+
+    /**
+     * Answers 304 when If-None-Match has the current ETag, otherwise the stored bytes,
+     * gzipped if the client accepts it.
+     */
+    private static ResponseEntity<byte[]> serialized(ProblemCatalog.SerializedResponse response,
+                                                     ServletWebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? response.gzipEtag() : response.etag();
+
+        boolean notModified = request.checkNotModified(etag);
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(notModified ? HttpStatus.NOT_MODIFIED : HttpStatus.OK)
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache())
+            .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (notModified) {
+            return builder.build();
+        }
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(gzip ? response.gzip() : response.json());
     }
 }
@@ -0,0 +1,58 @@
+package com.lanki.controller;
+
+import com.lanki.dto.ForecastDTO;
+import com.lanki.dto.ReviewDTO;
+import com.lanki.model.User;
+import com.lanki.service.ReviewBatchService;
+import com.lanki.service.ReviewForecastService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Spaced repetition reviews.
+ */
+@RestController
+@RequestMapping("/api/reviews")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:5173")
+public class ReviewController {
+
+    private final ReviewBatchService reviewBatchService;
+    private final ReviewForecastService reviewForecastService;
+
+    /**
+     * POST /api/reviews/batch
+     * Applies many reviews in one transaction, in reviewedAt order.
+     * Body: [{"problemId": 1, "quality": 4, "reviewedAt": "2024-01-01T10:00:00"}, ...]
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ReviewBatchService.BatchResult> applyReviews(
+            @AuthenticationPrincipal User user,
+            @RequestBody List<ReviewDTO> reviews) {
+        return ResponseEntity.ok(reviewBatchService.applyReviews(user, reviews));
+    }
+
+    /**
+     * GET /api/reviews/forecast?days=90
+     * Simulated number of reviews due per day for the user's cards.
+     */
+    @GetMapping("/forecast")
+    public ResponseEntity<ForecastDTO> getForecast(
+            @AuthenticationPrincipal User user,
+            @RequestParam(defaultValue = "90") int days) {
+        return ResponseEntity.ok(reviewForecastService.forecastForUser(user.getId(), days));
+    }
+
+    /**
+     * GET /api/reviews/forecast/global
+     * Latest nightly forecast across all users, for capacity planning.
+     */
+    @GetMapping("/forecast/global")
+    public ResponseEntity<ForecastDTO> getGlobalForecast() {
+        return ResponseEntity.ok(reviewForecastService.getGlobalForecast());
+    }
+}
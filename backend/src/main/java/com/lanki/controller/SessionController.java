@@ -2,12 +2,16 @@ package com.lanki.controller;
 
 import com.lanki.dto.SessionDTO;
 import com.lanki.model.User;
+import com.lanki.service.SessionEventService;
 import com.lanki.service.SessionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -17,8 +21,10 @@ import java.util.Map;
  *
  * Flow:
  * 1. Frontend calls POST /api/sessions/start when user clicks "Start Problem"
- * 2. Frontend polls GET /api/sessions/{id}/check every 5 seconds
- * 3. When submission detected, returns session with completion data
+ * 2. SubmissionPoller checks LeetCode for all active sessions in the background
+ * 3. Frontend polls GET /api/sessions/{id}/check, which returns the stored state
+ *    including completion data once a submission was detected
+ *    (or subscribes to GET /api/sessions/{id}/events to be pushed the change)
  */
 @Slf4j
 @RestController
@@ -28,6 +34,7 @@ import java.util.Map;
 public class SessionController {
 
     private final SessionService sessionService;
+    private final SessionEventService sessionEventService;
 
     /**
      * POST /api/sessions/start
@@ -53,9 +60,10 @@ public class SessionController {
      * GET /api/sessions/{id}/check
      * Checks if a submission has been detected for this session.
      * Frontend polls this every 5 seconds while session is active.
+     * Only reads the session state; LeetCode is queried by SubmissionPoller.
      *
      * Returns session with updated status:
-     * - If ACTIVE: no submission yet, keep polling
+     * - If ACTIVE: no submission yet, poll again after nextPollAfterMs (also sent as Retry-After)
      * - If COMPLETED: submission detected! Return submission data + elapsed time
      */
     @GetMapping("/{id}/check")
@@ -64,9 +72,41 @@ public class SessionController {
             @PathVariable Long id) {
 
         SessionDTO session = sessionService.checkForSubmission(user, id);
+        if (session.getNextPollAfterMs() != null) {
+            long retryAfterSeconds = (session.getNextPollAfterMs() + 999) / 1000;
+            return ResponseEntity.ok()
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(session);
+        }
         return ResponseEntity.ok(session);
     }
 
+    /**
+     * GET /api/sessions/{id}/events
+     * Server-Sent Events stream for a single session.
+     * Sends the current state on connect, then one "session" event when the
+     * session is completed or abandoned, after which the stream closes.
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSession(
+            @AuthenticationPrincipal User user,
+            @PathVariable Long id) {
+
+        SessionDTO session = sessionService.getSession(user, id);
+        return sessionEventService.subscribe(user.getId(), id, List.of(session));
+    }
+
+    /**
+     * GET /api/sessions/events
+     * Server-Sent Events stream of all the current user's sessions.
+     * Sends the active sessions on connect, then every completion or abandonment.
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamSessions(@AuthenticationPrincipal User user) {
+        List<SessionDTO> activeSessions = sessionService.getActiveSessions(user);
+        return sessionEventService.subscribe(user.getId(), null, activeSessions);
+    }
+
     /**
      * GET /api/sessions/{id}
      * Get session details.
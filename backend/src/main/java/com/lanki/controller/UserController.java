@@ -1,6 +1,7 @@
 package com.lanki.controller;
 
 import com.lanki.model.User;
+import com.lanki.repository.UserRepository;
 import com.lanki.service.LeetCodeService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -8,6 +9,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/user")
@@ -16,6 +18,7 @@ import java.util.Map;
 public class UserController {
 
     private final LeetCodeService leetCodeService;
+    private final UserRepository userRepository;
 
     /**
      * GET /api/user/profile
@@ -30,16 +33,59 @@ public class UserController {
             "username", user.getUsername(),
             "email", user.getEmail(),
             "leetcodeUsername", user.getLeetcodeUsername() != null ? user.getLeetcodeUsername() : "",
-            "hasLeetcodeCredentials", user.getLeetcodeSession() != null
+            "hasLeetcodeCredentials", user.getLeetcodeSession() != null,
+            "balanceReviewLoad", Boolean.TRUE.equals(user.getBalanceReviewLoad()),
+            "scheduler", user.getScheduler() != null ? user.getScheduler() : User.Scheduler.SM2
+        ));
+    }
+
+    /**
+     * PUT /api/user/review-settings
+     * Updates review scheduling settings, e.g. {"balanceReviewLoad": true, "scheduler": "FSRS"}.
+     * Settings missing from the body are left as they are.
+     */
+    @PutMapping("/review-settings")
+    public ResponseEntity<Map<String, Object>> updateReviewSettings(
+            @AuthenticationPrincipal User user,
+            @RequestBody Map<String, Object> request) {
+
+        Object balanceReviewLoad = request.get("balanceReviewLoad");
+        Object scheduler = request.get("scheduler");
+        if (balanceReviewLoad == null && scheduler == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "balanceReviewLoad or scheduler is required"));
+        }
+        if (balanceReviewLoad != null && !(balanceReviewLoad instanceof Boolean)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "balanceReviewLoad must be true or false"));
+        }
+        User.Scheduler schedulerType = null;
+        if (scheduler != null) {
+            try {
+                schedulerType = User.Scheduler.valueOf(scheduler.toString().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "scheduler must be SM2 or FSRS"));
+            }
+        }
+
+        if (balanceReviewLoad != null) {
+            user.setBalanceReviewLoad((Boolean) balanceReviewLoad);
+        }
+        if (schedulerType != null) {
+            user.setScheduler(schedulerType);
+        }
+        userRepository.save(user);
+        return ResponseEntity.ok(Map.of(
+            "balanceReviewLoad", Boolean.TRUE.equals(user.getBalanceReviewLoad()),
+            "scheduler", user.getScheduler()
         ));
     }
 
     /**
      * POST /api/user/leetcode-credentials
      * Saves user's LeetCode credentials for submission tracking.
+     * Validation runs asynchronously, so no request thread waits on LeetCode.
      */
     @PostMapping("/leetcode-credentials")
-    public ResponseEntity<Map<String, Object>> saveLeetCodeCredentials(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> saveLeetCodeCredentials(
             @AuthenticationPrincipal User user,
             @RequestBody Map<String, String> request) {
 
@@ -48,19 +94,20 @@ public class UserController {
         String leetcodeUsername = request.get("username");
 
         // Validate credentials
-        boolean valid = leetCodeService.validateCredentials(sessionToken, csrfToken);
-
-        if (!valid) {
-            return ResponseEntity.badRequest()
-                .body(Map.of("error", "Invalid LeetCode credentials"));
-        }
+        return leetCodeService.validateCredentials(sessionToken, csrfToken)
+            .thenApply(valid -> {
+                if (!valid) {
+                    return ResponseEntity.badRequest()
+                        .body(Map.<String, Object>of("error", "Invalid LeetCode credentials"));
+                }
 
-        // Update user (in real implementation, encrypt the session token)
-        user.setLeetcodeSession(sessionToken);
-        user.setCsrfToken(csrfToken);
-        user.setLeetcodeUsername(leetcodeUsername);
-        // Save user to repository...
+                // Update user (in real implementation, encrypt the session token)
+                user.setLeetcodeSession(sessionToken);
+                user.setCsrfToken(csrfToken);
+                user.setLeetcodeUsername(leetcodeUsername);
+                // Save user to repository...
 
-        return ResponseEntity.ok(Map.of("success", true));
+                return ResponseEntity.ok(Map.<String, Object>of("success", true));
+            });
     }
 }
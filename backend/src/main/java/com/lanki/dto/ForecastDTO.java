@@ -0,0 +1,16 @@
+package com.lanki.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForecastDTO {
+    private LocalDate startDate;
+    private int[] dueCounts; // Reviews due on startDate + i; overdue cards count on startDate
+    private long cards;
+    private long simulatedReviews;
+}
@@ -0,0 +1,39 @@
+package com.lanki.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Body of POST /api/admin/catalog/import.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProblemImportDTO {
+    private List<ListInfo> lists;       // Lists to create or rename; optional
+    private List<Problem> problems;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ListInfo {
+        private String slug;  // e.g. "blind-75"
+        private String name;  // e.g. "Blind 75"
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Problem {
+        private String title;
+        private String titleSlug;   // Key: existing problems with this slug are updated
+        private String category;
+        private String difficulty;  // EASY, MEDIUM or HARD
+        private String leetcodeUrl; // Defaults to https://leetcode.com/problems/<slug>/
+        private Boolean isPremium;
+        private List<String> lists; // Slugs of the lists this problem belongs to
+    }
+}
@@ -0,0 +1,15 @@
+package com.lanki.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProblemPageDTO {
+    private List<ProblemDTO> items;
+    private Long nextCursor; // Pass as "after" for the next page; null on the last page
+}
@@ -0,0 +1,15 @@
+package com.lanki.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewDTO {
+    private Long problemId;
+    private Integer quality; // SM-2 quality (0-5)
+    private LocalDateTime reviewedAt; // Defaults to the time the batch is received
+}
@@ -17,4 +17,6 @@ public class SessionDTO {
     private String status;
     private Long elapsedTimeSeconds;
     private SubmissionDTO submission;
+    private Long nextPollAfterMs; // Suggested wait before checking again, only while ACTIVE
+    private String upstreamStatus; // "OK" or "DEGRADED" (LeetCode unreachable), only while ACTIVE
 }
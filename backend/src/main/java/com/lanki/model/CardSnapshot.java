@@ -0,0 +1,65 @@
+package com.lanki.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Card state after replaying review_log up to lastLogId, so a replay starts here
+ * instead of at the card's first review. lastLogId 0 holds state from before the
+ * log existed.
+ */
+@Entity
+@Table(name = "card_snapshots", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"user_id", "problem_id"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "problem_id", nullable = false)
+    private Problem problem;
+
+    @Column(nullable = false)
+    private Long lastLogId;
+
+    @Column(nullable = false, length = 500)
+    private String rulesVersion; // ReviewSchedulers.rulesVersion() when taken
+
+    @Column(nullable = false)
+    private Double easeFactor;
+
+    @Column(name = "interval_days", nullable = false)
+    private Integer interval;
+
+    @Column(nullable = false)
+    private Integer repetitions;
+
+    @Column(nullable = false)
+    private LocalDate nextReviewDate;
+
+    @Column
+    private LocalDateTime lastReviewDate;
+
+    @Column
+    private Integer lastQuality;
+
+    @Column
+    private Double stability;
+
+    @Column
+    private Double difficulty;
+}
@@ -60,6 +60,10 @@ public class Interview {
      * Used for spaced repetition updates.
      */
     public int toSM2Quality() {
+        return toSM2Quality(overallScore);
+    }
+
+    public static int toSM2Quality(Integer overallScore) {
         if (overallScore == null) return 0;
         if (overallScore >= 90) return 5; // Perfect
         if (overallScore >= 80) return 4; // Good
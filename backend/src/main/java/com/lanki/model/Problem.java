@@ -6,7 +6,11 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "problems")
+@Table(name = "problems", indexes = {
+    @Index(name = "idx_problems_category", columnList = "category, id"),
+    @Index(name = "idx_problems_difficulty", columnList = "difficulty, id"),
+    @Index(name = "idx_problems_premium", columnList = "is_premium, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
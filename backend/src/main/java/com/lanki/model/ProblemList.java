@@ -0,0 +1,27 @@
+package com.lanki.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A curated problem list such as Blind 75 or NeetCode 150. Members are ProblemListEntry rows.
+ */
+@Entity
+@Table(name = "problem_lists")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProblemList {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String slug; // e.g. "neetcode-150"
+
+    @Column(nullable = false)
+    private String name;
+}
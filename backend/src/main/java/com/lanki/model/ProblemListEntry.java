@@ -0,0 +1,36 @@
+package com.lanki.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Membership of a problem in a ProblemList, at a position in the list's order.
+ */
+@Entity
+@Table(name = "problem_list_entries", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"list_id", "problem_id"})
+}, indexes = {
+    @Index(name = "idx_problem_list_entries_position", columnList = "list_id, position")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProblemListEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "list_id", nullable = false)
+    private ProblemList list;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "problem_id", nullable = false)
+    private Problem problem;
+
+    @Column(nullable = false)
+    private Integer position;
+}
@@ -0,0 +1,52 @@
+package com.lanki.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * One review of a card. Rows are only ever inserted; spaced_repetition_cards holds
+ * the state they replay to (see CardReplayService).
+ */
+@Entity
+@Table(name = "review_log", indexes = {
+    @Index(name = "idx_review_log_card", columnList = "user_id, problem_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewLog {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "problem_id", nullable = false)
+    private Problem problem;
+
+    @Column(nullable = false)
+    private Integer quality; // 0-5
+
+    @Column(nullable = false)
+    private LocalDateTime reviewedAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private User.Scheduler scheduler;
+
+    @Column(nullable = false)
+    private Integer schedulerVersion; // ReviewScheduler.version() when reviewed
+
+    @Column(nullable = false, length = 500)
+    private String parameters; // ReviewScheduler.parameters() when reviewed, e.g. the user's FSRS weights
+
+    @Column(name = "interval_days", nullable = false)
+    private Integer interval; // Interval given, after load balancing
+}
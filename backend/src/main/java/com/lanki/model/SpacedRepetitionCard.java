@@ -8,7 +8,8 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
- * Implements SuperMemo 2 (SM-2) algorithm for spaced repetition.
+ * Spaced repetition state of one problem for one user.
+ * Reviews are scheduled by a ReviewScheduler (SM-2 or FSRS, chosen per user).
  */
 @Entity
 @Table(name = "spaced_repetition_cards", uniqueConstraints = {
@@ -35,7 +36,7 @@ public class SpacedRepetitionCard {
     @Column(nullable = false)
     private Double easeFactor = 2.5; // Default ease factor
 
-    @Column(nullable = false)
+    @Column(name = "interval_days", nullable = false) // INTERVAL is a reserved word in H2 and PostgreSQL
     private Integer interval = 1; // Days until next review
 
     @Column(nullable = false)
@@ -50,41 +51,12 @@ public class SpacedRepetitionCard {
     @Column
     private Integer lastQuality; // Quality of last review (0-5)
 
-    /**
-     * Updates the card based on SM-2 algorithm.
-     * @param quality Quality rating (0-5): 0=total blackout, 5=perfect response
-     */
-    public void review(int quality) {
-        this.lastReviewDate = LocalDateTime.now();
-        this.lastQuality = quality;
-
-        if (quality >= 3) {
-            // Correct response
-            if (repetitions == 0) {
-                interval = 1;
-            } else if (repetitions == 1) {
-                interval = 6;
-            } else {
-                interval = (int) Math.round(interval * easeFactor);
-            }
-            repetitions++;
-        } else {
-            // Incorrect response - reset
-            repetitions = 0;
-            interval = 1;
-        }
-
-        // Update ease factor
-        easeFactor = easeFactor + (0.1 - (5 - quality) * (0.08 + (5 - quality) * 0.02));
-
-        // Ensure ease factor doesn't go below 1.3
-        if (easeFactor < 1.3) {
-            easeFactor = 1.3;
-        }
+    // FSRS memory state, set once the card is reviewed with FSRS
+    @Column
+    private Double stability; // Days until recall probability drops to 90%
 
-        // Set next review date
-        this.nextReviewDate = LocalDate.now().plusDays(interval);
-    }
+    @Column
+    private Double difficulty; // 1 (easy) to 10 (hard)
 
     public boolean isDueForReview() {
         return LocalDate.now().isAfter(nextReviewDate) || LocalDate.now().isEqual(nextReviewDate);
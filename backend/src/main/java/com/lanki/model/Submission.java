@@ -47,7 +47,7 @@ public class Submission {
     @Column
     private String status; // "Accepted", "Wrong Answer", etc.
 
-    @Column
+    @Column(unique = true)
     private String leetcodeSubmissionId; // LeetCode's submission ID
 
     @OneToOne(mappedBy = "submission", cascade = CascadeType.ALL)
@@ -35,6 +35,21 @@ public class User {
     @Column
     private String csrfToken;
 
+    @Column(nullable = false)
+    private Boolean balanceReviewLoad = false; // Spread review due dates to flatten daily queues
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Scheduler scheduler = Scheduler.SM2;
+
+    @Column(length = 500)
+    private String fsrsWeights; // Fitted FSRS parameters, comma-separated; defaults until fitted
+
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
+
+    public enum Scheduler {
+        SM2,
+        FSRS
+    }
 }
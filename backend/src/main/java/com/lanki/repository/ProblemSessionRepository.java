@@ -16,11 +16,24 @@ public interface ProblemSessionRepository extends JpaRepository<ProblemSession,
 
     List<ProblemSession> findByUserAndStatus(User user, ProblemSession.SessionStatus status);
 
-    @Query("SELECT ps FROM ProblemSession ps WHERE ps.user.id = :userId AND ps.status = 'ACTIVE'")
+    // With the problem loaded, since every caller reads it. The submission is the inverse side of
+    // a one-to-one, which Hibernate would otherwise load with one query per session
+    @Query("SELECT ps FROM ProblemSession ps JOIN FETCH ps.problem LEFT JOIN FETCH ps.submission " +
+           "WHERE ps.user.id = :userId AND ps.status = 'ACTIVE'")
     List<ProblemSession> findActiveSessionsByUserId(@Param("userId") Long userId);
 
     Optional<ProblemSession> findByIdAndUser(Long id, User user);
 
+    // All active sessions with the user and problem loaded, for the submission poller
+    @Query("SELECT ps FROM ProblemSession ps JOIN FETCH ps.user JOIN FETCH ps.problem WHERE ps.status = 'ACTIVE'")
+    List<ProblemSession> findAllActiveSessionsWithUserAndProblem();
+
+    // Per difficulty: [difficulty, average seconds, fastest seconds, completed count]
+    @Query("SELECT ps.problem.difficulty, AVG(ps.elapsedTimeSeconds), MIN(ps.elapsedTimeSeconds), COUNT(ps) " +
+           "FROM ProblemSession ps WHERE ps.user.id = :userId AND ps.status = 'COMPLETED' " +
+           "GROUP BY ps.problem.difficulty")
+    List<Object[]> findSolveTimeStatsByUserId(@Param("userId") Long userId);
+
     @Query("SELECT ps FROM ProblemSession ps WHERE ps.user.id = :userId ORDER BY ps.startedAt DESC")
     List<ProblemSession> findRecentSessionsByUserId(@Param("userId") Long userId);
 
@@ -3,7 +3,9 @@ package com.lanki.repository;
 import com.lanki.model.Problem;
 import com.lanki.model.SpacedRepetitionCard;
 import com.lanki.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -17,14 +19,22 @@ public interface SpacedRepetitionCardRepository extends JpaRepository<SpacedRepe
 
     Optional<SpacedRepetitionCard> findByUserAndProblem(User user, Problem problem);
 
+    // Row-locked until commit, like the cards ReviewBatchService loads, so concurrent reviews of a card queue up
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT src FROM SpacedRepetitionCard src WHERE src.user = :user AND src.problem = :problem")
+    Optional<SpacedRepetitionCard> findByUserAndProblemForUpdate(@Param("user") User user, @Param("problem") Problem problem);
+
     List<SpacedRepetitionCard> findByUser(User user);
 
-    @Query("SELECT src FROM SpacedRepetitionCard src WHERE src.user.id = :userId AND src.nextReviewDate <= :date ORDER BY src.nextReviewDate ASC")
+    @Query("SELECT src FROM SpacedRepetitionCard src JOIN FETCH src.problem WHERE src.user.id = :userId AND src.nextReviewDate <= :date ORDER BY src.nextReviewDate ASC")
     List<SpacedRepetitionCard> findDueCardsByUserId(@Param("userId") Long userId, @Param("date") LocalDate date);
 
-    @Query("SELECT src FROM SpacedRepetitionCard src WHERE src.user.id = :userId ORDER BY src.nextReviewDate ASC")
+    @Query("SELECT src FROM SpacedRepetitionCard src JOIN FETCH src.problem WHERE src.user.id = :userId ORDER BY src.nextReviewDate ASC")
     List<SpacedRepetitionCard> findAllCardsByUserIdOrderedByReviewDate(@Param("userId") Long userId);
 
     @Query("SELECT COUNT(src) FROM SpacedRepetitionCard src WHERE src.user.id = :userId AND src.nextReviewDate <= :today")
     long countDueCardsByUserId(@Param("userId") Long userId, @Param("today") LocalDate today);
+
+    @Query("SELECT src.nextReviewDate, COUNT(src) FROM SpacedRepetitionCard src WHERE src.user.id = :userId AND src.nextReviewDate BETWEEN :from AND :to GROUP BY src.nextReviewDate")
+    List<Object[]> countDueCardsByDay(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
 }
@@ -21,6 +21,8 @@ public interface SubmissionRepository extends JpaRepository<Submission, Long> {
 
     Optional<Submission> findByLeetcodeSubmissionId(String leetcodeSubmissionId);
 
+    boolean existsByLeetcodeSubmissionId(String leetcodeSubmissionId);
+
     @Query("SELECT s FROM Submission s WHERE s.user = :user AND s.status = 'Accepted' ORDER BY s.submittedAt DESC")
     List<Submission> findAcceptedSubmissionsByUser(@Param("user") User user);
 
@@ -23,9 +23,10 @@ public interface UserProgressRepository extends JpaRepository<UserProgress, Long
     @Query("SELECT up FROM UserProgress up WHERE up.user.id = :userId AND up.status = 'COMPLETED'")
     List<UserProgress> findCompletedProblemsByUserId(@Param("userId") Long userId);
 
-    @Query("SELECT COUNT(up) FROM UserProgress up WHERE up.user.id = :userId AND up.status = 'COMPLETED'")
-    long countCompletedProblemsByUserId(@Param("userId") Long userId);
-
     @Query("SELECT up FROM UserProgress up WHERE up.user.id = :userId AND up.problem.category = :category")
     List<UserProgress> findByUserIdAndCategory(@Param("userId") Long userId, @Param("category") String category);
+
+    // [problem id, status] of every problem the user has progress on
+    @Query("SELECT up.problem.id, up.status FROM UserProgress up WHERE up.user.id = :userId")
+    List<Object[]> findStatusesByUserId(@Param("userId") Long userId);
 }
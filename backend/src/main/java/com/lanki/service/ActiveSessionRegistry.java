@@ -0,0 +1,218 @@
+package com.lanki.service;
+
+import com.lanki.model.Problem;
+import com.lanki.model.ProblemSession;
+import com.lanki.repository.ProblemSessionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory index of every ACTIVE problem session, by session id and by user and problem.
+ *
+ * SessionService answers duplicate starts and checks of active sessions from here
+ * without a query, and changes session state in the table and here together:
+ * - every start, abandon and completion runs under the lock of each user it touches,
+ *   one of a fixed number of stripes chosen by user id
+ * - a start registers its session after the insert commits; an abandon or completion
+ *   unregisters first and registers again if its transaction fails
+ * Reads take no lock. A check that misses (completed, abandoned or unknown session)
+ * falls back to the table.
+ *
+ * Until warmUp() has loaded the active sessions from the table, isReady() is false:
+ * starts look for duplicates in the table, and changes whose users are not known
+ * lock every stripe. warmUp() itself holds every stripe, so no change interleaves
+ * with loading.
+ */
+@Slf4j
+@Service
+public class ActiveSessionRegistry {
+
+    private final ProblemSessionRepository sessionRepository;
+    private final ReentrantLock[] stripes;
+    private final Map<Long, ActiveSession> byId = new ConcurrentHashMap<>();
+    // Inner maps (problem id -> session) are only changed under the user's stripe
+    private final Map<Long, Map<Long, ActiveSession>> byUser = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    /**
+     * What checks and duplicate starts need of an active session.
+     */
+    public record ActiveSession(Long id, Long userId, Long problemId, String problemTitle,
+                                Problem.Difficulty difficulty, LocalDateTime startedAt) {
+
+        static ActiveSession of(ProblemSession session) {
+            return new ActiveSession(session.getId(), session.getUser().getId(), session.getProblem().getId(),
+                session.getProblem().getTitle(), session.getProblem().getDifficulty(), session.getStartedAt());
+        }
+    }
+
+    public ActiveSessionRegistry(
+            ProblemSessionRepository sessionRepository,
+            @Value("${lanki.sessions.registry.stripes:64}") int stripes) {
+        this.sessionRepository = sessionRepository;
+        this.stripes = new ReentrantLock[Integer.highestOneBit(Math.max(1, stripes - 1)) << 1];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        lockAll();
+        try {
+            List<ProblemSession> sessions = sessionRepository.findAllActiveSessionsWithUserAndProblem();
+            for (ProblemSession session : sessions) {
+                put(ActiveSession.of(session));
+            }
+            ready = true;
+            log.info("Loaded {} active sessions for {} users in {} ms",
+                byId.size(), byUser.size(), System.currentTimeMillis() - start);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * Whether every active session in the table is also here.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * The session if it is active, else null.
+     */
+    public ActiveSession get(Long sessionId) {
+        return byId.get(sessionId);
+    }
+
+    /**
+     * The user's active session on the problem, or null.
+     */
+    public ActiveSession find(Long userId, Long problemId) {
+        Map<Long, ActiveSession> sessions = byUser.get(userId);
+        return sessions != null ? sessions.get(problemId) : null;
+    }
+
+    /**
+     * The user's active sessions, in no particular order.
+     */
+    public List<ActiveSession> forUser(Long userId) {
+        Map<Long, ActiveSession> sessions = byUser.get(userId);
+        return sessions != null ? List.copyOf(sessions.values()) : List.of();
+    }
+
+    /**
+     * Runs the action holding the user's stripe.
+     */
+    public <T> T withUserLock(Long userId, Supplier<T> action) {
+        ReentrantLock lock = stripe(userId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the action holding the stripes of all the users, taken in index order so
+     * concurrent callers cannot deadlock. A null user id, or any call before warmUp(),
+     * takes every stripe.
+     */
+    public <T> T withUserLocks(Collection<Long> userIds, Supplier<T> action) {
+        boolean[] held = new boolean[stripes.length];
+        if (!ready || userIds.contains(null)) {
+            held = null;
+        } else {
+            for (Long userId : userIds) {
+                held[index(userId)] = true;
+            }
+        }
+        for (int i = 0; i < stripes.length; i++) {
+            if (held == null || held[i]) {
+                stripes[i].lock();
+            }
+        }
+        try {
+            return action.get();
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                if (held == null || held[i]) {
+                    stripes[i].unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a session whose insert has committed. The caller holds the user's stripe.
+     */
+    public void register(ActiveSession session) {
+        requireLock(session.userId());
+        put(session);
+    }
+
+    /**
+     * Removes the session if it is here and returns it. The caller holds the stripe of
+     * the session's user.
+     */
+    public ActiveSession unregister(Long sessionId) {
+        ActiveSession session = byId.get(sessionId);
+        if (session == null) {
+            return null;
+        }
+        requireLock(session.userId());
+        byId.remove(sessionId);
+        byUser.computeIfPresent(session.userId(), (userId, sessions) -> {
+            sessions.remove(session.problemId(), session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+        return session;
+    }
+
+    private void put(ActiveSession session) {
+        byId.put(session.id(), session);
+        byUser.computeIfAbsent(session.userId(), userId -> new ConcurrentHashMap<>())
+            .put(session.problemId(), session);
+    }
+
+    private void requireLock(Long userId) {
+        if (!stripe(userId).isHeldByCurrentThread()) {
+            throw new IllegalStateException("Changing active sessions of user " + userId + " without its lock");
+        }
+    }
+
+    private ReentrantLock stripe(Long userId) {
+        return stripes[index(userId)];
+    }
+
+    private int index(Long userId) {
+        int hash = Long.hashCode(userId);
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : stripes) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+}
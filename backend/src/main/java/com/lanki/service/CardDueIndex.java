@@ -0,0 +1,332 @@
+package com.lanki.service;
+
+import com.lanki.config.SchedulingConfig;
+import com.lanki.repository.SpacedRepetitionCardRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory index of every card's due date, keyed by user.
+ *
+ * Each user's cards are one sorted long[] of (due epoch day << 32 | problem id), so
+ * "how many cards are due by day D" is a binary search and the due cards are the
+ * prefix before it, with no query on spaced_repetition_cards. Loaded at startup, updated
+ * after each card change commits (CardChangedEvent) and checked against the table
+ * on a schedule.
+ *
+ * Users with more than max-cards-per-user cards are not indexed and fall back to
+ * the repository, which bounds memory per user. Until the startup load finishes,
+ * every lookup falls back as well.
+ *
+ * Metrics: lanki.due-index.cards, lanki.due-index.mismatches
+ */
+@Slf4j
+@Component
+public class CardDueIndex {
+
+    private static final String ALL_CARDS_SQL =
+        "SELECT user_id, problem_id, next_review_date FROM spaced_repetition_cards";
+
+    private static final String USER_CARDS_SQL =
+        "SELECT user_id, problem_id, next_review_date FROM spaced_repetition_cards WHERE user_id = ?";
+
+    private static final long[] NO_CARDS = new long[0];
+
+    private final SpacedRepetitionCardRepository cardRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxCardsPerUser;
+
+    private final Map<Long, long[]> cardsByUser = new ConcurrentHashMap<>();
+    private final Set<Long> overflowUsers = ConcurrentHashMap.newKeySet();
+    // Users changed while the startup load was running; reloaded once it finishes
+    private final Set<Long> changedDuringLoad = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger indexedCards = new AtomicInteger();
+    private volatile boolean ready;
+
+    private final Counter mismatches;
+
+    public CardDueIndex(
+            SpacedRepetitionCardRepository cardRepository,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${lanki.due-index.max-cards-per-user:5000}") int maxCardsPerUser) {
+        this.cardRepository = cardRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxCardsPerUser = maxCardsPerUser;
+
+        this.mismatches = Counter.builder("lanki.due-index.mismatches")
+                .description("Users whose indexed due dates differed from spaced_repetition_cards")
+                .register(meterRegistry);
+        meterRegistry.gauge("lanki.due-index.cards", indexedCards);
+    }
+
+    /**
+     * Number of the user's cards due on or before the given day.
+     */
+    public long countDue(Long userId, LocalDate day) {
+        long[] cards = indexedCards(userId);
+        if (cards == null) {
+            return cardRepository.countDueCardsByUserId(userId, day);
+        }
+        return dueCount(cards, day.toEpochDay());
+    }
+
+    /**
+     * Number of the user's cards due on each of the given days, starting at from.
+     */
+    public int[] countDueByDay(Long userId, LocalDate from, int days) {
+        int[] counts = new int[days];
+        long fromDay = from.toEpochDay();
+        long[] cards = indexedCards(userId);
+        if (cards == null) {
+            for (Object[] row : cardRepository.countDueCardsByDay(userId, from, from.plusDays(days - 1))) {
+                counts[(int) (((LocalDate) row[0]).toEpochDay() - fromDay)] = ((Long) row[1]).intValue();
+            }
+            return counts;
+        }
+
+        for (int i = dueCount(cards, fromDay - 1); i < cards.length && dueDay(cards[i]) < fromDay + days; i++) {
+            counts[(int) (dueDay(cards[i]) - fromDay)]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Users with at least one card due on or before the given day.
+     */
+    public List<Long> usersWithDueCards(LocalDate day) {
+        if (!ready) {
+            return jdbcTemplate.queryForList(
+                "SELECT DISTINCT user_id FROM spaced_repetition_cards WHERE next_review_date <= ?", Long.class, day);
+        }
+
+        long epochDay = day.toEpochDay();
+        List<Long> userIds = new ArrayList<>();
+        cardsByUser.forEach((userId, cards) -> {
+            if (cards.length > 0 && dueDay(cards[0]) <= epochDay) {
+                userIds.add(userId);
+            }
+        });
+        userIds.addAll(overflowUsers);
+        return userIds;
+    }
+
+    // Runs before DailyQueueService so a reload there sees the new due date
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardChanged(DailyQueueService.CardChangedEvent event) {
+        if (!ready) {
+            changedDuringLoad.add(event.userId());
+        }
+        if (overflowUsers.contains(event.userId())) {
+            return;
+        }
+
+        long card = pack(event.nextReviewDate().toEpochDay(), event.problemId());
+        cardsByUser.compute(event.userId(), (userId, cards) -> {
+            long[] updated = withCard(cards != null ? cards : NO_CARDS, card);
+            if (updated.length > maxCardsPerUser) {
+                overflowUsers.add(userId);
+                indexedCards.addAndGet(-(cards != null ? cards.length : 0));
+                return null;
+            }
+            indexedCards.addAndGet(updated.length - (cards != null ? cards.length : 0));
+            return updated;
+        });
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        Map<Long, long[]> loaded = loadCards(ALL_CARDS_SQL);
+        loaded.forEach(this::replace);
+        ready = true;
+
+        // Changes that committed during the bulk read may be missing from it
+        changedDuringLoad.forEach(this::reload);
+        changedDuringLoad.clear();
+
+        log.info("Card due index loaded {} cards for {} users ({} over the per-user limit) in {} ms",
+            indexedCards.get(), cardsByUser.size(), overflowUsers.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Compares every indexed user with the table and repairs any difference.
+     * Cards changing during the scan show up as mismatches and are simply reloaded.
+     *
+     * @return number of users that had to be reloaded
+     */
+    @Scheduled(cron = "${lanki.due-index.verify-cron:0 30 3 * * *}", scheduler = SchedulingConfig.BATCH_JOB_SCHEDULER)
+    public int verify() {
+        if (!ready) {
+            return 0;
+        }
+
+        Map<Long, long[]> expected = loadCards(ALL_CARDS_SQL);
+        List<Long> drifted = new ArrayList<>();
+        expected.forEach((userId, cards) -> {
+            if (!overflowUsers.contains(userId) && cards.length <= maxCardsPerUser
+                    && !Arrays.equals(cards, cardsByUser.get(userId))) {
+                drifted.add(userId);
+            }
+        });
+        cardsByUser.forEach((userId, cards) -> {
+            if (!expected.containsKey(userId) && cards.length > 0) {
+                drifted.add(userId);
+            }
+        });
+
+        drifted.forEach(this::reload);
+        if (!drifted.isEmpty()) {
+            mismatches.increment(drifted.size());
+            log.warn("Card due index differed from the table for {} users; reloaded them", drifted.size());
+        }
+        return drifted.size();
+    }
+
+    private long[] indexedCards(Long userId) {
+        if (!ready || overflowUsers.contains(userId)) {
+            return null;
+        }
+        return cardsByUser.getOrDefault(userId, NO_CARDS);
+    }
+
+    /**
+     * Re-reads one user inside compute, so a change committing meanwhile waits and applies on top.
+     */
+    private void reload(Long userId) {
+        cardsByUser.compute(userId, (id, cards) -> {
+            long[] fresh = jdbcTemplate.query(USER_CARDS_SQL, rs -> {
+                CardsBuilder builder = new CardsBuilder();
+                while (rs.next()) {
+                    builder.add(rs);
+                }
+                return builder.build();
+            }, userId);
+
+            int previous = cards != null ? cards.length : 0;
+            if (fresh.length > maxCardsPerUser) {
+                overflowUsers.add(id);
+                indexedCards.addAndGet(-previous);
+                return null;
+            }
+            overflowUsers.remove(id);
+            indexedCards.addAndGet(fresh.length - previous);
+            return fresh;
+        });
+    }
+
+    private void replace(Long userId, long[] cards) {
+        if (cards.length > maxCardsPerUser) {
+            overflowUsers.add(userId);
+            return;
+        }
+        long[] previous = cardsByUser.put(userId, cards);
+        indexedCards.addAndGet(cards.length - (previous != null ? previous.length : 0));
+    }
+
+    private Map<Long, long[]> loadCards(String sql) {
+        Map<Long, long[]> loaded = new HashMap<>();
+        Map<Long, CardsBuilder> builders = new HashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs ->
+            builders.computeIfAbsent(rs.getLong("user_id"), id -> new CardsBuilder()).add(rs));
+        builders.forEach((userId, builder) -> loaded.put(userId, builder.build()));
+        return loaded;
+    }
+
+    /**
+     * Copy of a sorted card array with the card's problem moved to its new due day.
+     */
+    private static long[] withCard(long[] cards, long card) {
+        long problemId = problemId(card);
+        int existing = -1;
+        for (int i = 0; i < cards.length; i++) {
+            if (problemId(cards[i]) == problemId) {
+                existing = i;
+                break;
+            }
+        }
+
+        long[] updated = cards;
+        if (existing >= 0) {
+            updated = new long[cards.length - 1];
+            System.arraycopy(cards, 0, updated, 0, existing);
+            System.arraycopy(cards, existing + 1, updated, existing, cards.length - existing - 1);
+        }
+
+        int insertAt = Arrays.binarySearch(updated, card);
+        if (insertAt >= 0) {
+            return updated;
+        }
+        insertAt = -insertAt - 1;
+        long[] inserted = new long[updated.length + 1];
+        System.arraycopy(updated, 0, inserted, 0, insertAt);
+        inserted[insertAt] = card;
+        System.arraycopy(updated, insertAt, inserted, insertAt + 1, updated.length - insertAt);
+        return inserted;
+    }
+
+    private static int dueCount(long[] cards, long epochDay) {
+        // First card due after epochDay
+        int index = Arrays.binarySearch(cards, pack(epochDay + 1, 0));
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static long pack(long epochDay, long problemId) {
+        return epochDay << 32 | problemId;
+    }
+
+    private static long dueDay(long card) {
+        return card >>> 32;
+    }
+
+    private static long problemId(long card) {
+        return card & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Collects one user's rows into a sorted packed array.
+     */
+    private static class CardsBuilder {
+
+        private long[] cards = new long[16];
+        private int size;
+
+        void add(ResultSet rs) throws SQLException {
+            if (size == cards.length) {
+                cards = Arrays.copyOf(cards, size * 2);
+            }
+            cards[size++] = pack(rs.getObject("next_review_date", LocalDate.class).toEpochDay(), rs.getLong("problem_id"));
+        }
+
+        long[] build() {
+            long[] built = Arrays.copyOf(cards, size);
+            Arrays.sort(built);
+            return built;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.lanki.service;
+
+import com.lanki.config.SchedulingConfig;
+import com.lanki.model.SpacedRepetitionCard;
+import com.lanki.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * Derives card state from review_log.
+ *
+ * A card's state is its snapshot (or a new card) followed by every later log row
+ * of the card, in reviewed_at order, through the scheduler and parameters named on
+ * the row. When the row's scheduler version is still current and the row was
+ * logged in time order, the logged interval is kept, so load balancing is
+ * reproduced exactly. Rows logged under older rules, and every row from the first
+ * one that arrived after a later review (an offline batch), get a freshly computed
+ * interval instead. A snapshot followed by such a late row is not used.
+ *
+ * - rebuildAll recomputes spaced_repetition_cards for every user with log rows,
+ *   rebuild-parallelism users at a time
+ * - compact snapshots each card up to the log rows older than snapshot-after-days,
+ *   so replay reads only recent rows. Snapshots from other scheduler versions are
+ *   ignored, and the log itself is never deleted
+ * - on startup, cards reviewed before the log existed get a snapshot of their
+ *   current state (lastLogId 0) as their starting point
+ */
+@Slf4j
+@Service
+public class CardReplayService {
+
+    private static final String STATE_COLUMNS = """
+        ease_factor, interval_days, repetitions, next_review_date, last_review_date, last_quality, stability, difficulty""";
+
+    private static final String SEED_SNAPSHOTS_SQL = "INSERT INTO card_snapshots (user_id, problem_id, last_log_id, rules_version, "
+        + STATE_COLUMNS + ") SELECT c.user_id, c.problem_id, 0, ?, " + STATE_COLUMNS.replaceAll("(\\w+)", "c.$1") + """
+         FROM spaced_repetition_cards c
+        WHERE c.last_review_date IS NOT NULL
+          AND NOT EXISTS (SELECT 1 FROM review_log l WHERE l.user_id = c.user_id AND l.problem_id = c.problem_id)
+          AND NOT EXISTS (SELECT 1 FROM card_snapshots s WHERE s.user_id = c.user_id AND s.problem_id = c.problem_id)
+        """;
+
+    // Log rows after the snapshot that were reviewed before it
+    private static final String LATE_ROWS = """
+        EXISTS (SELECT 1 FROM review_log late
+                WHERE late.user_id = s.user_id AND late.problem_id = s.problem_id
+                  AND late.id > s.last_log_id AND late.id <= :lastLogId
+                  AND late.reviewed_at < s.last_review_date)""";
+
+    // %s is an optional problem filter
+    private static final String SNAPSHOTS_SQL = "SELECT s.problem_id, s.last_log_id, s.rules_version, "
+        + STATE_COLUMNS.replaceAll("(\\w+)", "s.$1") + ", " + LATE_ROWS + " AS late_rows"
+        + " FROM card_snapshots s WHERE s.user_id = :userId %s";
+
+    // Leaves out rows already covered by a usable snapshot; %s is an optional problem filter
+    private static final String LOG_SQL = """
+        SELECT l.id, l.problem_id, l.quality, l.reviewed_at, l.scheduler, l.scheduler_version,
+               l.parameters, l.interval_days
+        FROM review_log l
+        LEFT JOIN card_snapshots s ON s.user_id = l.user_id AND s.problem_id = l.problem_id
+        WHERE l.user_id = :userId AND l.id <= :lastLogId %s
+          AND (s.id IS NULL OR l.id > s.last_log_id
+               OR (s.last_log_id > 0 AND (s.rules_version <> :rulesVersion OR\s"""
+        + LATE_ROWS + """
+        )))
+        ORDER BY l.problem_id, l.reviewed_at, l.id
+        """;
+
+    private static final String INSERT_SNAPSHOT_SQL = """
+        INSERT INTO card_snapshots (last_log_id, rules_version, ease_factor, interval_days, repetitions,
+                                    next_review_date, last_review_date, last_quality, stability, difficulty,
+                                    user_id, problem_id)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String UPDATE_SNAPSHOT_SQL = """
+        UPDATE card_snapshots
+        SET last_log_id = ?, rules_version = ?, ease_factor = ?, interval_days = ?, repetitions = ?,
+            next_review_date = ?, last_review_date = ?, last_quality = ?, stability = ?, difficulty = ?
+        WHERE user_id = ? AND problem_id = ?
+        """;
+
+    private static final String INSERT_CARD_SQL = """
+        INSERT INTO spaced_repetition_cards (ease_factor, interval_days, repetitions, next_review_date,
+                                             last_review_date, last_quality, stability, difficulty,
+                                             user_id, problem_id)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    // Skips cards with log rows newer than the replay, so a rebuild cannot undo a live review
+    private static final String UPDATE_CARD_SQL = """
+        UPDATE spaced_repetition_cards
+        SET ease_factor = ?, interval_days = ?, repetitions = ?, next_review_date = ?,
+            last_review_date = ?, last_quality = ?, stability = ?, difficulty = ?
+        WHERE user_id = ? AND problem_id = ?
+          AND NOT EXISTS (SELECT 1 FROM review_log l WHERE l.user_id = ? AND l.problem_id = ? AND l.id > ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ReviewSchedulers reviewSchedulers;
+    private final Sm2Scheduler sm2Scheduler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int parallelism;
+    private final int jdbcBatchSize;
+    private final int snapshotAfterDays;
+    private final boolean rebuildOnStartup;
+
+    private record LogRow(long id, int quality, LocalDateTime reviewedAt, User.Scheduler scheduler,
+                          int schedulerVersion, String parameters, int interval) {
+    }
+
+    /**
+     * Replayed state of one card and the last log row applied to it.
+     */
+    private static class Replayed {
+
+        final SpacedRepetitionCard card;
+        final long startLogId;
+        long lastLogId;
+        boolean hasSnapshot;
+
+        Replayed(SpacedRepetitionCard card, long lastLogId) {
+            this.card = card;
+            this.startLogId = lastLogId;
+            this.lastLogId = lastLogId;
+        }
+    }
+
+    public CardReplayService(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            ReviewSchedulers reviewSchedulers,
+            Sm2Scheduler sm2Scheduler,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${lanki.review-log.rebuild-parallelism:4}") int parallelism,
+            @Value("${lanki.reviews.jdbc-batch-size:500}") int jdbcBatchSize,
+            @Value("${lanki.review-log.snapshot-after-days:30}") int snapshotAfterDays,
+            @Value("${lanki.review-log.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.reviewSchedulers = reviewSchedulers;
+        this.sm2Scheduler = sm2Scheduler;
+        this.eventPublisher = eventPublisher;
+        this.parallelism = parallelism;
+        this.jdbcBatchSize = jdbcBatchSize;
+        this.snapshotAfterDays = snapshotAfterDays;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    // Before the in-memory indexes load, so a startup rebuild is what they see
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        int seeded = jdbcTemplate.update(SEED_SNAPSHOTS_SQL, reviewSchedulers.rulesVersion());
+        if (seeded > 0) {
+            log.info("Seeded {} card snapshots from cards reviewed before the review log", seeded);
+        }
+        if (rebuildOnStartup) {
+            rebuildAll();
+        }
+    }
+
+    /**
+     * Recomputes every card that has log rows from its snapshot and the log. Returns the cards written.
+     */
+    public int rebuildAll() {
+        long start = System.currentTimeMillis();
+        long lastLogId = maxLogId();
+        AtomicInteger cards = new AtomicInteger();
+        int users = forEachUser(userId -> cards.addAndGet(rebuildUser(userId, lastLogId)));
+        log.info("Rebuilt {} cards of {} users from the review log in {} ms",
+            cards.get(), users, System.currentTimeMillis() - start);
+        return cards.get();
+    }
+
+    /**
+     * Moves every card's snapshot forward over log rows older than snapshot-after-days.
+     * Returns the snapshots written.
+     */
+    @Scheduled(cron = "${lanki.review-log.compact-cron:0 0 5 * * *}", scheduler = SchedulingConfig.BATCH_JOB_SCHEDULER)
+    public int compact() {
+        long start = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(snapshotAfterDays);
+        AtomicInteger snapshots = new AtomicInteger();
+        int users = forEachUser(userId -> snapshots.addAndGet(snapshotUser(userId, cutoff)));
+        log.info("Compacted review log before {}: {} snapshots for {} users in {} ms",
+            cutoff.toLocalDate(), snapshots.get(), users, System.currentTimeMillis() - start);
+        return snapshots.get();
+    }
+
+    /**
+     * Current state of the given cards replayed from their snapshots and the whole log,
+     * including rows not yet committed in the caller's transaction. Cards without
+     * snapshot or log rows are left out.
+     */
+    public Map<Long, SpacedRepetitionCard> replayCards(long userId, Collection<Long> problemIds) {
+        Map<Long, SpacedRepetitionCard> cards = new HashMap<>();
+        replay(userId, Long.MAX_VALUE, problemIds).forEach((problemId, replayed) -> {
+            if (replayed.lastLogId > 0 || replayed.hasSnapshot) {
+                cards.put(problemId, replayed.card);
+            }
+        });
+        return cards;
+    }
+
+    private int rebuildUser(long userId, long lastLogId) {
+        Map<Long, Replayed> replayed = replay(userId, lastLogId, null);
+        List<Map.Entry<Long, Replayed>> changed = replayed.entrySet().stream()
+            .filter(entry -> entry.getValue().lastLogId > 0)
+            .toList();
+
+        Map<Long, LocalDateTime> existing = new HashMap<>();
+        jdbcTemplate.query("SELECT problem_id, last_review_date FROM spaced_repetition_cards WHERE user_id = ?",
+            (RowCallbackHandler) rs -> existing.put(rs.getLong("problem_id"),
+                rs.getObject("last_review_date", LocalDateTime.class)), userId);
+
+        List<Map.Entry<Long, Replayed>> inserts = new ArrayList<>();
+        List<Map.Entry<Long, Replayed>> updates = new ArrayList<>();
+        for (Map.Entry<Long, Replayed> entry : changed) {
+            (existing.containsKey(entry.getKey()) ? updates : inserts).add(entry);
+        }
+        jdbcTemplate.batchUpdate(INSERT_CARD_SQL, inserts, jdbcBatchSize, (ps, entry) -> {
+            int next = setState(ps, 1, entry.getValue().card);
+            ps.setLong(next, userId);
+            ps.setLong(next + 1, entry.getKey());
+        });
+        jdbcTemplate.batchUpdate(UPDATE_CARD_SQL, updates, jdbcBatchSize, (ps, entry) -> {
+            int next = setState(ps, 1, entry.getValue().card);
+            ps.setLong(next, userId);
+            ps.setLong(next + 1, entry.getKey());
+            ps.setLong(next + 2, userId);
+            ps.setLong(next + 3, entry.getKey());
+            ps.setLong(next + 4, entry.getValue().lastLogId);
+        });
+
+        for (Map.Entry<Long, Replayed> entry : changed) {
+            SpacedRepetitionCard card = entry.getValue().card;
+            eventPublisher.publishEvent(new DailyQueueService.CardChangedEvent(
+                userId, entry.getKey(), card.getNextReviewDate(), card.getLastReviewDate(), card.getRepetitions()));
+        }
+        return changed.size();
+    }
+
+    private int snapshotUser(long userId, LocalDateTime cutoff) {
+        // An id bound rather than a time bound, so no row is skipped when rows arrive out of time order
+        Long firstRecent = jdbcTemplate.queryForObject(
+            "SELECT MIN(id) FROM review_log WHERE user_id = ? AND reviewed_at >= ?",
+            Long.class, userId, Timestamp.valueOf(cutoff));
+        Map<Long, Replayed> replayed = replay(userId, firstRecent != null ? firstRecent - 1 : Long.MAX_VALUE, null);
+        String rulesVersion = reviewSchedulers.rulesVersion();
+
+        List<Map.Entry<Long, Replayed>> inserts = new ArrayList<>();
+        List<Map.Entry<Long, Replayed>> updates = new ArrayList<>();
+        for (Map.Entry<Long, Replayed> entry : replayed.entrySet()) {
+            Replayed card = entry.getValue();
+            if (card.lastLogId == card.startLogId) {
+                continue;
+            }
+            (card.hasSnapshot ? updates : inserts).add(entry);
+        }
+        ParameterizedPreparedStatementSetter<Map.Entry<Long, Replayed>> setter = (ps, entry) -> {
+            ps.setLong(1, entry.getValue().lastLogId);
+            ps.setString(2, rulesVersion);
+            int next = setState(ps, 3, entry.getValue().card);
+            ps.setLong(next, userId);
+            ps.setLong(next + 1, entry.getKey());
+        };
+        jdbcTemplate.batchUpdate(INSERT_SNAPSHOT_SQL, inserts, jdbcBatchSize, setter);
+        jdbcTemplate.batchUpdate(UPDATE_SNAPSHOT_SQL, updates, jdbcBatchSize, setter);
+        return inserts.size() + updates.size();
+    }
+
+    /**
+     * Card states of one user after replaying log rows up to lastLogId onto their
+     * snapshots, for the given problems or all of them when problemIds is null.
+     */
+    private Map<Long, Replayed> replay(long userId, long lastLogId, Collection<Long> problemIds) {
+        String rulesVersion = reviewSchedulers.rulesVersion();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("userId", userId)
+            .addValue("lastLogId", lastLogId)
+            .addValue("rulesVersion", rulesVersion)
+            .addValue("problemIds", problemIds);
+
+        Map<Long, Replayed> cards = new HashMap<>();
+        namedJdbcTemplate.query(SNAPSHOTS_SQL.formatted(problemIds != null ? "AND s.problem_id IN (:problemIds)" : ""),
+            params, (RowCallbackHandler) rs -> {
+                long snapshotLogId = rs.getLong("last_log_id");
+                Replayed replayed;
+                // Seed snapshots predate the log, so they stay valid under any rules
+                if (snapshotLogId == 0
+                        || (rulesVersion.equals(rs.getString("rules_version")) && !rs.getBoolean("late_rows"))) {
+                    replayed = new Replayed(readState(rs), snapshotLogId);
+                } else {
+                    replayed = new Replayed(newCard(), 0);
+                }
+                replayed.hasSnapshot = true;
+                cards.put(rs.getLong("problem_id"), replayed);
+            });
+
+        Map<Long, List<LogRow>> rowsByCard = new HashMap<>();
+        namedJdbcTemplate.query(LOG_SQL.formatted(problemIds != null ? "AND l.problem_id IN (:problemIds)" : ""),
+            params, (RowCallbackHandler) rs -> rowsByCard
+                .computeIfAbsent(rs.getLong("problem_id"), id -> new ArrayList<>())
+                .add(new LogRow(rs.getLong("id"), rs.getInt("quality"), rs.getObject("reviewed_at", LocalDateTime.class),
+                    User.Scheduler.valueOf(rs.getString("scheduler")), rs.getInt("scheduler_version"),
+                    rs.getString("parameters"), rs.getInt("interval_days"))));
+
+        rowsByCard.forEach((problemId, rows) ->
+            apply(cards.computeIfAbsent(problemId, id -> new Replayed(newCard(), 0)), rows));
+        return cards;
+    }
+
+    /**
+     * Replays one card's rows, given in reviewed_at order. A logged interval is only
+     * kept while the rows so far are also the card's first rows by id, i.e. it was
+     * computed from the same earlier reviews the replay has applied.
+     */
+    private void apply(Replayed replayed, List<LogRow> rows) {
+        long[] idOrder = rows.stream().mapToLong(LogRow::id).sorted().toArray();
+        boolean inLogOrder = true;
+        for (int i = 0; i < rows.size(); i++) {
+            LogRow row = rows.get(i);
+            inLogOrder &= row.id() == idOrder[i];
+
+            ReviewScheduler scheduler = reviewSchedulers.get(row.scheduler());
+            SpacedRepetitionCard card = replayed.card;
+            scheduler.review(row.parameters(), card, row.quality(), row.reviewedAt());
+            if (inLogOrder && row.schedulerVersion() == scheduler.version()) {
+                card.setInterval(row.interval());
+                card.setNextReviewDate(row.reviewedAt().toLocalDate().plusDays(card.getInterval()));
+            }
+        }
+        replayed.lastLogId = Math.max(replayed.lastLogId, idOrder[idOrder.length - 1]);
+    }
+
+    /**
+     * Runs the work for every user with log rows, parallelism users at a time. Returns the user count.
+     */
+    private int forEachUser(LongConsumer work) {
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT DISTINCT user_id FROM review_log", Long.class);
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        try {
+            CompletableFuture.allOf(userIds.stream()
+                .map(userId -> CompletableFuture.runAsync(() -> work.accept(userId), pool))
+                .toArray(CompletableFuture[]::new)).join();
+        } finally {
+            pool.shutdown();
+        }
+        return userIds.size();
+    }
+
+    private long maxLogId() {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM review_log", Long.class);
+        return max != null ? max : 0;
+    }
+
+    private SpacedRepetitionCard newCard() {
+        SpacedRepetitionCard card = new SpacedRepetitionCard();
+        card.setEaseFactor(sm2Scheduler.getInitialEase());
+        return card;
+    }
+
+    private static SpacedRepetitionCard readState(ResultSet rs) throws SQLException {
+        SpacedRepetitionCard card = new SpacedRepetitionCard();
+        card.setEaseFactor(rs.getDouble("ease_factor"));
+        card.setInterval(rs.getInt("interval_days"));
+        card.setRepetitions(rs.getInt("repetitions"));
+        card.setNextReviewDate(rs.getObject("next_review_date", LocalDate.class));
+        card.setLastReviewDate(rs.getObject("last_review_date", LocalDateTime.class));
+        card.setLastQuality(rs.getObject("last_quality", Integer.class));
+        card.setStability(rs.getObject("stability", Double.class));
+        card.setDifficulty(rs.getObject("difficulty", Double.class));
+        return card;
+    }
+
+    /**
+     * Binds the STATE_COLUMNS values from index first on and returns the next free index.
+     */
+    private static int setState(PreparedStatement ps, int first, SpacedRepetitionCard card) throws SQLException {
+        ps.setDouble(first, card.getEaseFactor());
+        ps.setInt(first + 1, card.getInterval());
+        ps.setInt(first + 2, card.getRepetitions());
+        ps.setDate(first + 3, Date.valueOf(card.getNextReviewDate()));
+        ps.setTimestamp(first + 4, card.getLastReviewDate() != null ? Timestamp.valueOf(card.getLastReviewDate()) : null);
+        ps.setObject(first + 5, card.getLastQuality(), Types.INTEGER);
+        ps.setObject(first + 6, card.getStability(), Types.DOUBLE);
+        ps.setObject(first + 7, card.getDifficulty(), Types.DOUBLE);
+        return first + 8;
+    }
+}
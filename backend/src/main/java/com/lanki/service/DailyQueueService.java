@@ -0,0 +1,337 @@
+package com.lanki.service;
+
+import com.lanki.dto.DailyProblemDTO;
+import lombok.extern.slf4j.Slf4j;
+import com.lanki.config.SchedulingConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Materialized "due today" queues behind GET /api/problems/daily.
+ *
+ * Each user's queue is a few primitive arrays (problem id, due day, last review day,
+ * repetitions) built for one calendar day, so serving the homepage is an array walk
+ * with no card query. Queues are:
+ * - rebuilt for every user with due cards at midnight, in parallel chunks of users;
+ *   queues of users with nothing due are dropped then
+ * - patched in place after a card change commits (CardChangedEvent)
+ * - loaded on demand for a user whose queue is missing or from an earlier day,
+ *   skipping the query when CardDueIndex shows nothing due
+ * - evicted least recently used beyond max-users
+ *
+ * Every write carries a version from one counter, and a write never replaces a newer
+ * queue, so a load that read the table before a review committed cannot undo it.
+ */
+@Slf4j
+@Service
+public class DailyQueueService {
+
+    private static final int NEVER_REVIEWED = Integer.MIN_VALUE;
+
+    private static final String DUE_CARDS_SQL = """
+        SELECT user_id, problem_id, next_review_date, last_review_date, repetitions
+        FROM spaced_repetition_cards
+        WHERE next_review_date <= :today AND user_id IN (:userIds)
+        ORDER BY user_id, next_review_date, problem_id
+        """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ProblemCatalog problemCatalog;
+    private final CardDueIndex cardDueIndex;
+    private final int chunkSize;
+    private final int parallelism;
+
+    private final Map<Long, DailyQueue> queues;
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * Published whenever a card's schedule changes; applied after the transaction commits.
+     */
+    public record CardChangedEvent(Long userId, Long problemId, LocalDate nextReviewDate,
+                                   LocalDateTime lastReviewDate, Integer repetitions) {
+    }
+
+    /**
+     * Due cards of one user for one day, ordered by due day then problem id.
+     * A queue with day STALE only marks that newer data exists and must be reloaded.
+     */
+    private record DailyQueue(long day, long version, long[] problemIds, int[] dueDays,
+                              int[] lastReviewDays, int[] repetitions) {
+
+        static final long STALE = Long.MIN_VALUE;
+
+        static DailyQueue empty(long day, long version) {
+            return new DailyQueue(day, version, new long[0], new int[0], new int[0], new int[0]);
+        }
+
+        int size() {
+            return problemIds.length;
+        }
+
+        /**
+         * Copy with the problem's entry replaced, or removed if it is no longer due.
+         */
+        DailyQueue withCard(long problemId, int dueDay, int lastReviewDay, int reps, long version) {
+            int existing = -1;
+            for (int i = 0; i < problemIds.length; i++) {
+                if (problemIds[i] == problemId) {
+                    existing = i;
+                    break;
+                }
+            }
+            boolean due = dueDay <= day;
+            int size = problemIds.length - (existing >= 0 ? 1 : 0) + (due ? 1 : 0);
+
+            long[] ids = new long[size];
+            int[] dues = new int[size];
+            int[] lasts = new int[size];
+            int[] repsCopy = new int[size];
+            int out = 0;
+            boolean inserted = !due;
+            for (int i = 0; i < problemIds.length; i++) {
+                if (i == existing) {
+                    continue;
+                }
+                if (!inserted && (dueDays[i] > dueDay || (dueDays[i] == dueDay && problemIds[i] > problemId))) {
+                    ids[out] = problemId;
+                    dues[out] = dueDay;
+                    lasts[out] = lastReviewDay;
+                    repsCopy[out++] = reps;
+                    inserted = true;
+                }
+                ids[out] = problemIds[i];
+                dues[out] = dueDays[i];
+                lasts[out] = lastReviewDays[i];
+                repsCopy[out++] = repetitions[i];
+            }
+            if (!inserted) {
+                ids[out] = problemId;
+                dues[out] = dueDay;
+                lasts[out] = lastReviewDay;
+                repsCopy[out] = reps;
+            }
+            return new DailyQueue(day, version, ids, dues, lasts, repsCopy);
+        }
+    }
+
+    public DailyQueueService(
+            NamedParameterJdbcTemplate jdbcTemplate,
+            ProblemCatalog problemCatalog,
+            CardDueIndex cardDueIndex,
+            @Value("${lanki.daily.chunk-size:500}") int chunkSize,
+            @Value("${lanki.daily.parallelism:4}") int parallelism,
+            @Value("${lanki.daily.max-users:100000}") int maxUsers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.problemCatalog = problemCatalog;
+        this.cardDueIndex = cardDueIndex;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.queues = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, DailyQueue> eldest) {
+                return size() > maxUsers;
+            }
+        });
+    }
+
+    /**
+     * Problems due for review today or overdue, oldest due date first.
+     */
+    public List<DailyProblemDTO> getDailyProblems(Long userId) {
+        LocalDate today = LocalDate.now();
+        DailyQueue queue = currentQueue(userId, today.toEpochDay());
+
+        List<DailyProblemDTO> daily = new ArrayList<>(queue.size());
+        for (int i = 0; i < queue.size(); i++) {
+            DailyProblemDTO dto = new DailyProblemDTO();
+            dto.setProblem(problemCatalog.find(queue.problemIds()[i]));
+            dto.setNextReviewDate(LocalDate.ofEpochDay(queue.dueDays()[i]));
+            dto.setRepetitions(queue.repetitions()[i]);
+            if (queue.lastReviewDays()[i] != NEVER_REVIEWED) {
+                dto.setDaysSinceLastReview((int) (queue.day() - queue.lastReviewDays()[i]));
+            }
+            dto.setIsOverdue(queue.dueDays()[i] < queue.day());
+            daily.add(dto);
+        }
+        return daily;
+    }
+
+    // After CardDueIndex, so a reload triggered by the stale marker sees the new due date
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCardChanged(CardChangedEvent event) {
+        long version = versions.incrementAndGet();
+        long today = LocalDate.now().toEpochDay();
+        int lastReviewDay = event.lastReviewDate() != null
+            ? (int) event.lastReviewDate().toLocalDate().toEpochDay()
+            : NEVER_REVIEWED;
+
+        queues.compute(event.userId(), (userId, queue) -> {
+            if (queue != null && queue.version() > version) {
+                return queue;
+            }
+            if (queue == null || queue.day() != today) {
+                // Nothing current to patch; mark it stale so an in-flight load of older rows loses
+                return DailyQueue.empty(DailyQueue.STALE, version);
+            }
+            return queue.withCard(event.problemId(), (int) event.nextReviewDate().toEpochDay(),
+                lastReviewDay, event.repetitions(), version);
+        });
+    }
+
+    // After CardDueIndex has loaded
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuildAll();
+    }
+
+    /**
+     * Materializes today's queue for every user with due cards, chunk-size users per
+     * query and parallelism chunks at a time. Cached users with nothing due are
+     * dropped; their next request finds nothing due in CardDueIndex without a query.
+     */
+    @Scheduled(cron = "${lanki.daily.rebuild-cron:0 0 0 * * *}", scheduler = SchedulingConfig.BATCH_JOB_SCHEDULER)
+    public void rebuildAll() {
+        long start = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        long version = versions.incrementAndGet();
+
+        List<Long> userIds = cardDueIndex.usersWithDueCards(today);
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            for (int from = 0; from < userIds.size(); from += chunkSize) {
+                List<Long> chunk = userIds.subList(from, Math.min(userIds.size(), from + chunkSize));
+                chunks.add(CompletableFuture.runAsync(() -> rebuildChunk(chunk, today), pool));
+            }
+            CompletableFuture.allOf(chunks.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            pool.shutdown();
+        }
+
+        Set<Long> due = new HashSet<>(userIds);
+        synchronized (queues) {
+            queues.entrySet().removeIf(entry ->
+                !due.contains(entry.getKey()) && entry.getValue().version() <= version);
+        }
+
+        log.info("Built daily queues for {} users in {} ms", userIds.size(), System.currentTimeMillis() - start);
+    }
+
+    private void rebuildChunk(List<Long> userIds, LocalDate today) {
+        long version = versions.incrementAndGet();
+        Map<Long, DailyQueue> loaded = load(userIds, today, version);
+        for (Long userId : userIds) {
+            store(userId, loaded.getOrDefault(userId, DailyQueue.empty(today.toEpochDay(), version)));
+        }
+    }
+
+    private DailyQueue currentQueue(Long userId, long today) {
+        DailyQueue queue = queues.get(userId);
+        if (queue != null && queue.day() == today) {
+            return queue;
+        }
+
+        long version = versions.incrementAndGet();
+        LocalDate day = LocalDate.ofEpochDay(today);
+        DailyQueue loaded = cardDueIndex.countDue(userId, day) == 0
+            ? DailyQueue.empty(today, version)
+            : load(List.of(userId), day, version).getOrDefault(userId, DailyQueue.empty(today, version));
+        DailyQueue stored = store(userId, loaded);
+        return stored.day() == today ? stored : loaded;
+    }
+
+    private DailyQueue store(Long userId, DailyQueue queue) {
+        return queues.merge(userId, queue, (existing, fresh) -> existing.version() > fresh.version() ? existing : fresh);
+    }
+
+    private Map<Long, DailyQueue> load(List<Long> userIds, LocalDate today, long version) {
+        Map<Long, DailyQueue> loaded = new HashMap<>();
+        QueueBuilder builder = new QueueBuilder(today.toEpochDay(), version);
+
+        jdbcTemplate.query(DUE_CARDS_SQL, Map.of("today", today, "userIds", userIds), (RowCallbackHandler) rs -> {
+            long userId = rs.getLong("user_id");
+            if (builder.userId != userId && builder.size > 0) {
+                loaded.put(builder.userId, builder.build());
+            }
+            builder.add(userId, rs);
+        });
+        if (builder.size > 0) {
+            loaded.put(builder.userId, builder.build());
+        }
+        return loaded;
+    }
+
+    /**
+     * Accumulates the rows of one user at a time into growable primitive arrays.
+     */
+    private static class QueueBuilder {
+
+        private final long day;
+        private final long version;
+        private long userId = -1;
+        private int size;
+        private long[] problemIds = new long[16];
+        private int[] dueDays = new int[16];
+        private int[] lastReviewDays = new int[16];
+        private int[] repetitions = new int[16];
+
+        QueueBuilder(long day, long version) {
+            this.day = day;
+            this.version = version;
+        }
+
+        void add(long userId, ResultSet rs) throws SQLException {
+            if (this.userId != userId) {
+                this.userId = userId;
+                size = 0;
+            }
+            if (size == problemIds.length) {
+                problemIds = Arrays.copyOf(problemIds, size * 2);
+                dueDays = Arrays.copyOf(dueDays, size * 2);
+                lastReviewDays = Arrays.copyOf(lastReviewDays, size * 2);
+                repetitions = Arrays.copyOf(repetitions, size * 2);
+            }
+
+            LocalDateTime lastReview = rs.getObject("last_review_date", LocalDateTime.class);
+            problemIds[size] = rs.getLong("problem_id");
+            dueDays[size] = (int) rs.getObject("next_review_date", LocalDate.class).toEpochDay();
+            lastReviewDays[size] = lastReview != null ? (int) lastReview.toLocalDate().toEpochDay() : NEVER_REVIEWED;
+            repetitions[size] = rs.getInt("repetitions");
+            size++;
+        }
+
+        DailyQueue build() {
+            return new DailyQueue(day, version,
+                Arrays.copyOf(problemIds, size), Arrays.copyOf(dueDays, size),
+                Arrays.copyOf(lastReviewDays, size), Arrays.copyOf(repetitions, size));
+        }
+    }
+}
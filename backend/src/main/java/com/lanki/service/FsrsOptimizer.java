@@ -0,0 +1,313 @@
+package com.lanki.service;
+
+import com.lanki.config.SchedulingConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fits per-user FSRS weights to review history.
+ *
+ * Flow:
+ * 1. Stream review_log, ordered by user, problem and time, into one
+ *    compact History per user (elapsed days and grade per review, card offsets)
+ * 2. Fit each user with at least min-reviews reviews in parallel with fork/join:
+ *    Adam on central finite-difference gradients of the log loss of predicted
+ *    recall, plus an L2 pull towards the default weights
+ * 3. Write the fitted weights to users.fsrs_weights with one JDBC batch
+ *
+ * Weights are fitted for every user with enough history, so they are ready when
+ * the user switches to FSRS. The weekly run is triggered on the batch job scheduler
+ * and blocks only its thread while the pool fits. Fit time is recorded in
+ * lanki.fsrs.optimizer.duration and logged with the memory held by the histories;
+ * FsrsOptimizerBenchmark measures both on a synthetic review_log.
+ */
+@Slf4j
+@Service
+public class FsrsOptimizer {
+
+    private static final String HISTORY_SQL = """
+        SELECT user_id, problem_id, reviewed_at, quality
+        FROM review_log
+        ORDER BY user_id, problem_id, reviewed_at, id
+        """;
+
+    private static final String UPDATE_WEIGHTS_SQL = "UPDATE users SET fsrs_weights = ? WHERE id = ?";
+
+    // Lower and upper bound of each weight while fitting
+    private static final double[] MIN_WEIGHTS = {
+        0.1, 0.1, 0.1, 0.1, 1, 0.1, 0.1, 0, 0, 0, 0.01, 0.5, 0.01, 0.01, 0.01, 0, 1
+    };
+    private static final double[] MAX_WEIGHTS = {
+        100, 100, 100, 100, 10, 5, 5, 0.5, 3, 0.8, 2.5, 5, 0.2, 0.9, 2, 1, 6
+    };
+    private static final double EPSILON = 1e-4;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ForkJoinPool pool;
+    private final Timer fitTimer;
+    private final int minReviews;
+    private final int iterations;
+    private final double learningRate;
+    private final double regularization;
+
+    public FsrsOptimizer(
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${lanki.scheduler.fsrs.optimizer.parallelism:4}") int parallelism,
+            @Value("${lanki.scheduler.fsrs.optimizer.min-reviews:50}") int minReviews,
+            @Value("${lanki.scheduler.fsrs.optimizer.iterations:200}") int iterations,
+            @Value("${lanki.scheduler.fsrs.optimizer.learning-rate:0.02}") double learningRate,
+            @Value("${lanki.scheduler.fsrs.optimizer.regularization:0.01}") double regularization) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.pool = new ForkJoinPool(parallelism);
+        this.minReviews = minReviews;
+        this.iterations = iterations;
+        this.learningRate = learningRate;
+        this.regularization = regularization;
+        this.fitTimer = Timer.builder("lanki.fsrs.optimizer.duration")
+                .description("Time to fit FSRS weights for all users")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Refits every user with enough history. Returns the number of users fitted.
+     */
+    @Scheduled(cron = "${lanki.scheduler.fsrs.optimize-cron:0 0 4 * * SUN}",
+        scheduler = SchedulingConfig.BATCH_JOB_SCHEDULER)
+    public int optimizeAll() {
+        long start = System.currentTimeMillis();
+        HistoryLoader loader = new HistoryLoader(minReviews);
+        jdbcTemplate.query(HISTORY_SQL, loader);
+        List<History> histories = loader.finish();
+        long loaded = System.currentTimeMillis();
+
+        double[][] fitted = new double[histories.size()][];
+        fitTimer.record(() -> pool.invoke(new FitTask(histories, fitted, 0, histories.size())));
+
+        List<Object[]> updates = new ArrayList<>(histories.size());
+        for (int i = 0; i < histories.size(); i++) {
+            updates.add(new Object[] {FsrsScheduler.formatWeights(fitted[i]), histories.get(i).userId});
+        }
+        jdbcTemplate.batchUpdate(UPDATE_WEIGHTS_SQL, updates);
+
+        long bytes = histories.stream().mapToLong(History::bytes).sum();
+        log.info("Fitted FSRS weights for {} users ({} reviews, {} KB of history): loaded in {} ms, fitted in {} ms",
+            histories.size(), histories.stream().mapToInt(h -> h.size).sum(), bytes / 1024,
+            loaded - start, System.currentTimeMillis() - loaded);
+        return histories.size();
+    }
+
+    /**
+     * Fits weights to one user's history, starting from the defaults.
+     */
+    double[] fit(History history) {
+        int n = FsrsScheduler.DEFAULT_WEIGHTS.length;
+        // Optimized in units of each default weight, so one learning rate suits all weights
+        double[] scale = new double[n];
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            scale[i] = Math.max(Math.abs(FsrsScheduler.DEFAULT_WEIGHTS[i]), 0.1);
+            x[i] = FsrsScheduler.DEFAULT_WEIGHTS[i] / scale[i];
+        }
+        double[] m = new double[n];
+        double[] v = new double[n];
+        double[] w = new double[n];
+        double[] gradient = new double[n];
+
+        for (int step = 1; step <= iterations; step++) {
+            for (int i = 0; i < n; i++) {
+                double original = x[i];
+                x[i] = original + EPSILON;
+                double up = objective(history, x, scale, w);
+                x[i] = original - EPSILON;
+                double down = objective(history, x, scale, w);
+                x[i] = original;
+                gradient[i] = (up - down) / (2 * EPSILON);
+            }
+            for (int i = 0; i < n; i++) {
+                m[i] = 0.9 * m[i] + 0.1 * gradient[i];
+                v[i] = 0.999 * v[i] + 0.001 * gradient[i] * gradient[i];
+                double mHat = m[i] / (1 - Math.pow(0.9, step));
+                double vHat = v[i] / (1 - Math.pow(0.999, step));
+                x[i] -= learningRate * mHat / (Math.sqrt(vHat) + 1e-8);
+                x[i] = Math.min(MAX_WEIGHTS[i] / scale[i], Math.max(MIN_WEIGHTS[i] / scale[i], x[i]));
+            }
+        }
+        toWeights(x, scale, w);
+        return w;
+    }
+
+    private double objective(History history, double[] x, double[] scale, double[] w) {
+        toWeights(x, scale, w);
+        double penalty = 0;
+        for (int i = 0; i < x.length; i++) {
+            double drift = x[i] - FsrsScheduler.DEFAULT_WEIGHTS[i] / scale[i];
+            penalty += drift * drift;
+        }
+        return logLoss(history, w) + regularization * penalty;
+    }
+
+    private static void toWeights(double[] x, double[] scale, double[] w) {
+        for (int i = 0; i < x.length; i++) {
+            w[i] = Math.min(MAX_WEIGHTS[i], Math.max(MIN_WEIGHTS[i], x[i] * scale[i]));
+        }
+    }
+
+    /**
+     * Mean log loss of predicted recall against whether each repeat review passed.
+     */
+    static double logLoss(History history, double[] w) {
+        double loss = 0;
+        int predictions = 0;
+        for (int c = 0; c < history.cards; c++) {
+            int first = history.cardStart[c];
+            int end = c + 1 < history.cards ? history.cardStart[c + 1] : history.size;
+            int grade = history.grade[first];
+            double stability = FsrsScheduler.initialStability(w, grade);
+            double difficulty = FsrsScheduler.initialDifficulty(w, grade);
+
+            for (int r = first + 1; r < end; r++) {
+                grade = history.grade[r];
+                double recall = FsrsScheduler.retrievability(history.elapsed[r], stability);
+                double p = Math.min(1 - 1e-6, Math.max(1e-6, recall));
+                loss -= grade > 1 ? Math.log(p) : Math.log(1 - p);
+                predictions++;
+                stability = FsrsScheduler.nextStability(w, difficulty, stability, recall, grade);
+                difficulty = FsrsScheduler.nextDifficulty(w, difficulty, grade);
+            }
+        }
+        return predictions > 0 ? loss / predictions : 0;
+    }
+
+    /**
+     * Fits users[from, to), splitting until each task has one user.
+     */
+    private class FitTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<History> histories;
+        private final double[][] fitted;
+        private final int from;
+        private final int to;
+
+        FitTask(List<History> histories, double[][] fitted, int from, int to) {
+            this.histories = histories;
+            this.fitted = fitted;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new FitTask(histories, fitted, from, mid), new FitTask(histories, fitted, mid, to));
+                return;
+            }
+            if (from < to) {
+                fitted[from] = fit(histories.get(from));
+            }
+        }
+    }
+
+    /**
+     * One user's reviews as parallel primitive arrays, grouped by card in time order.
+     * elapsed is 0 for each card's first review.
+     */
+    static class History {
+
+        final long userId;
+        float[] elapsed = new float[64];
+        byte[] grade = new byte[64];
+        int[] cardStart = new int[16];
+        int size;
+        int cards;
+
+        History(long userId) {
+            this.userId = userId;
+        }
+
+        void add(boolean newCard, float elapsedDays, int reviewGrade) {
+            if (size == elapsed.length) {
+                elapsed = Arrays.copyOf(elapsed, size * 2);
+                grade = Arrays.copyOf(grade, size * 2);
+            }
+            if (newCard) {
+                if (cards == cardStart.length) {
+                    cardStart = Arrays.copyOf(cardStart, cards * 2);
+                }
+                cardStart[cards++] = size;
+            }
+            elapsed[size] = elapsedDays;
+            grade[size] = (byte) reviewGrade;
+            size++;
+        }
+
+        long bytes() {
+            return elapsed.length * 4L + grade.length + cardStart.length * 4L;
+        }
+    }
+
+    /**
+     * Builds Histories from rows ordered by user, problem and time, keeping users with enough reviews.
+     */
+    private static class HistoryLoader implements RowCallbackHandler {
+
+        private final int minReviews;
+        private final List<History> histories = new ArrayList<>();
+        private History current;
+        private long problemId = -1;
+        private LocalDateTime previous;
+
+        HistoryLoader(int minReviews) {
+            this.minReviews = minReviews;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long userId = rs.getLong("user_id");
+            long rowProblemId = rs.getLong("problem_id");
+            LocalDateTime reviewedAt = rs.getObject("reviewed_at", LocalDateTime.class);
+            int grade = FsrsScheduler.grade(rs.getInt("quality"));
+
+            if (current == null || current.userId != userId) {
+                keepCurrent();
+                current = new History(userId);
+                problemId = -1;
+            }
+            boolean newCard = rowProblemId != problemId;
+            float elapsed = newCard ? 0 : ChronoUnit.DAYS.between(previous.toLocalDate(), reviewedAt.toLocalDate());
+            current.add(newCard, elapsed, grade);
+            problemId = rowProblemId;
+            previous = reviewedAt;
+        }
+
+        List<History> finish() {
+            keepCurrent();
+            return histories;
+        }
+
+        private void keepCurrent() {
+            if (current != null && current.size >= minReviews) {
+                histories.add(current);
+            }
+        }
+    }
+}
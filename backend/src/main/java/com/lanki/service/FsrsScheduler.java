@@ -0,0 +1,188 @@
+package com.lanki.service;
+
+import com.lanki.model.SpacedRepetitionCard;
+import com.lanki.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Free Spaced Repetition Scheduler (FSRS-4.5).
+ *
+ * Each card keeps a stability S (days until recall probability falls to 90%) and a
+ * difficulty D (1-10). A review updates both from the grade and the recall
+ * probability at review time, and the next interval is the one where predicted
+ * recall falls to desired-retention. The 17 weights come from User.fsrsWeights when
+ * FsrsOptimizer has fitted them, otherwise from DEFAULT_WEIGHTS.
+ *
+ * Cards switching over from SM-2 start from their SM-2 interval as stability and
+ * a difficulty derived from the ease factor.
+ */
+@Component
+public class FsrsScheduler implements ReviewScheduler {
+
+    public static final double[] DEFAULT_WEIGHTS = {
+        0.4872, 1.4003, 3.7145, 13.8206, 5.1618, 1.2298, 0.8975, 0.031, 1.6474,
+        0.1367, 1.0461, 2.1072, 0.0793, 0.3246, 1.587, 0.2272, 2.8755
+    };
+
+    static final double DECAY = -0.5;
+    // Makes recall exactly 90% after S days
+    static final double FACTOR = 19.0 / 81.0;
+
+    private final double desiredRetention;
+    private final int maximumInterval;
+
+    public FsrsScheduler(
+            @Value("${lanki.scheduler.fsrs.desired-retention:0.9}") double desiredRetention,
+            @Value("${lanki.scheduler.fsrs.maximum-interval:36500}") int maximumInterval) {
+        if (desiredRetention <= 0 || desiredRetention >= 1) {
+            throw new IllegalArgumentException("lanki.scheduler.fsrs.desired-retention must be between 0 and 1");
+        }
+        this.desiredRetention = desiredRetention;
+        this.maximumInterval = maximumInterval;
+    }
+
+    @Override
+    public User.Scheduler type() {
+        return User.Scheduler.FSRS;
+    }
+
+    @Override
+    public int version() {
+        return 2;
+    }
+
+    /**
+     * "desiredRetention;maximumInterval;w0,...,w16" with the user's weights.
+     */
+    @Override
+    public String parameters(User user) {
+        return desiredRetention + ";" + maximumInterval + ";" + formatWeights(weightsOf(user));
+    }
+
+    @Override
+    public void review(String parameters, SpacedRepetitionCard card, int quality, LocalDateTime reviewedAt) {
+        String[] values = parameters.split(";");
+        if (values.length != 3) {
+            throw new IllegalArgumentException("FSRS parameters must be retention;maximumInterval;weights: " + parameters);
+        }
+        review(Double.parseDouble(values[0]), Integer.parseInt(values[1]), parseWeights(values[2]),
+            card, quality, reviewedAt);
+    }
+
+    private void review(double retention, int maxInterval, double[] w,
+                        SpacedRepetitionCard card, int quality, LocalDateTime reviewedAt) {
+        if (quality < 0 || quality > 5) {
+            throw new IllegalArgumentException("Quality must be between 0 and 5");
+        }
+        int grade = grade(quality);
+        int repetitions = card.getRepetitions() != null ? card.getRepetitions() : 0;
+
+        double stability;
+        double difficulty;
+        if (card.getLastReviewDate() == null) {
+            stability = initialStability(w, grade);
+            difficulty = initialDifficulty(w, grade);
+        } else {
+            double previousStability = card.getStability() != null
+                ? card.getStability() : Math.max(card.getInterval(), 0.1);
+            double previousDifficulty = card.getDifficulty() != null
+                ? card.getDifficulty() : difficultyFromEase(card.getEaseFactor());
+            double elapsed = Math.max(0, ChronoUnit.DAYS.between(card.getLastReviewDate().toLocalDate(), reviewedAt.toLocalDate()));
+            double recall = retrievability(elapsed, previousStability);
+            stability = nextStability(w, previousDifficulty, previousStability, recall, grade);
+            difficulty = nextDifficulty(w, previousDifficulty, grade);
+        }
+
+        card.setStability(stability);
+        card.setDifficulty(difficulty);
+        card.setInterval(nextInterval(stability, retention, maxInterval));
+        card.setRepetitions(grade > 1 ? repetitions + 1 : 0);
+        card.setLastQuality(quality);
+        card.setLastReviewDate(reviewedAt);
+        card.setNextReviewDate(reviewedAt.toLocalDate().plusDays(card.getInterval()));
+    }
+
+    /**
+     * Days until predicted recall falls to desired-retention.
+     */
+    public int nextInterval(double stability) {
+        return nextInterval(stability, desiredRetention, maximumInterval);
+    }
+
+    static int nextInterval(double stability, double retention, int maxInterval) {
+        double interval = stability / FACTOR * (Math.pow(retention, 1 / DECAY) - 1);
+        return (int) Math.min(maxInterval, Math.max(1, Math.round(interval)));
+    }
+
+    /**
+     * Quality 0-5 to FSRS grade: 1 again, 2 hard, 3 good, 4 easy.
+     */
+    static int grade(int quality) {
+        return quality <= 2 ? 1 : quality - 1;
+    }
+
+    static double retrievability(double elapsedDays, double stability) {
+        return Math.pow(1 + FACTOR * elapsedDays / stability, DECAY);
+    }
+
+    static double initialStability(double[] w, int grade) {
+        return Math.max(w[grade - 1], 0.1);
+    }
+
+    static double initialDifficulty(double[] w, int grade) {
+        return clampDifficulty(w[4] - (grade - 3) * w[5]);
+    }
+
+    static double nextDifficulty(double[] w, double difficulty, int grade) {
+        double next = difficulty - w[6] * (grade - 3);
+        // Mean reversion towards the difficulty of a first "good", D0(3) = w[4]
+        return clampDifficulty(w[7] * w[4] + (1 - w[7]) * next);
+    }
+
+    static double nextStability(double[] w, double difficulty, double stability, double recall, int grade) {
+        if (grade == 1) {
+            double forget = w[11] * Math.pow(difficulty, -w[12]) * (Math.pow(stability + 1, w[13]) - 1)
+                * Math.exp(w[14] * (1 - recall));
+            return Math.max(0.1, Math.min(forget, stability));
+        }
+        double hardPenalty = grade == 2 ? w[15] : 1;
+        double easyBonus = grade == 4 ? w[16] : 1;
+        return stability * (Math.exp(w[8]) * (11 - difficulty) * Math.pow(stability, -w[9])
+            * (Math.exp(w[10] * (1 - recall)) - 1) * hardPenalty * easyBonus + 1);
+    }
+
+    static double clampDifficulty(double difficulty) {
+        return Math.min(10, Math.max(1, difficulty));
+    }
+
+    /**
+     * Maps SM-2 ease (1.3 hardest, 2.5 default) onto FSRS difficulty (10 hardest, 5 default).
+     */
+    static double difficultyFromEase(Double ease) {
+        double value = ease != null ? ease : 2.5;
+        return clampDifficulty(5 + (2.5 - value) / 1.2 * 5);
+    }
+
+    static double[] weightsOf(User user) {
+        return user != null && user.getFsrsWeights() != null ? parseWeights(user.getFsrsWeights()) : DEFAULT_WEIGHTS;
+    }
+
+    static double[] parseWeights(String weights) {
+        double[] parsed = Arrays.stream(weights.split(",")).mapToDouble(w -> Double.parseDouble(w.trim())).toArray();
+        if (parsed.length != DEFAULT_WEIGHTS.length) {
+            throw new IllegalArgumentException("FSRS needs " + DEFAULT_WEIGHTS.length + " weights, got " + parsed.length);
+        }
+        return parsed;
+    }
+
+    static String formatWeights(double[] weights) {
+        return Arrays.stream(weights).mapToObj(w -> String.format(Locale.ROOT, "%.4f", w)).collect(Collectors.joining(","));
+    }
+}
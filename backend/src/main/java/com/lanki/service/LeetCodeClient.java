@@ -0,0 +1,248 @@
+package com.lanki.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking HTTP client for the LeetCode GraphQL API.
+ *
+ * Built on java.net.http.HttpClient, which keeps a pool of keep-alive connections
+ * and multiplexes requests over HTTP/2 when the server supports it. Every call has
+ * a connect timeout and an overall deadline, and the number of requests in flight
+ * is capped so a slow upstream cannot pile up unbounded work. A call over the cap
+ * fails at once; no method blocks the calling thread.
+ * LeetCodeThrottle rate-limits every call and short-circuits them while LeetCode is failing.
+ */
+@Slf4j
+@Component
+public class LeetCodeClient {
+
+    // GraphQL query to fetch recent submissions
+    private static final String LATEST_SUBMISSION_QUERY = """
+        query latestAcSubmission($username: String!, $limit: Int!) {
+          recentAcSubmissionList(username: $username, limit: $limit) {
+            id
+            titleSlug
+            timestamp
+            statusDisplay
+            lang
+          }
+        }
+        """;
+
+    // GraphQL query to fetch code, runtime and memory of one submission
+    private static final String SUBMISSION_DETAILS_QUERY = """
+        query submissionDetails($submissionId: Int!) {
+          submissionDetails(submissionId: $submissionId) {
+            runtime
+            memory
+            code
+            lang {
+              name
+            }
+          }
+        }
+        """;
+
+    private static final String USER_STATUS_QUERY = "query { userStatus { username isSignedIn } }";
+
+    private final URI graphqlUri;
+    private final Duration requestTimeout;
+    private final Semaphore inFlight;
+    private final HttpClient httpClient;
+    private final LeetCodeThrottle throttle;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public LeetCodeClient(
+            LeetCodeThrottle throttle,
+            @Value("${lanki.leetcode.graphql-url:https://leetcode.com/graphql}") String graphqlUrl,
+            @Value("${lanki.leetcode.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${lanki.leetcode.request-timeout-ms:5000}") long requestTimeoutMs,
+            @Value("${lanki.leetcode.max-concurrent-requests:64}") int maxConcurrentRequests,
+            @Value("${lanki.leetcode.worker-threads:4}") int workerThreads) {
+        this.throttle = throttle;
+        this.graphqlUri = URI.create(graphqlUrl);
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.inFlight = new Semaphore(maxConcurrentRequests);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .executor(newWorkerPool(workerThreads))
+                .build();
+    }
+
+    /**
+     * Fetches the user's most recent accepted submissions.
+     * Completes with the decoded recentAcSubmissionList, or null if the response has none.
+     * Completes exceptionally on HTTP errors and timeouts.
+     * This is the hot path, so the body is decoded by streaming instead of into a tree.
+     */
+    public CompletableFuture<List<RecentSubmission>> queryRecentSubmissions(String username, String sessionToken,
+                                                              String csrfToken, int limit) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("username", username);
+        variables.put("limit", limit);
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("query", LATEST_SUBMISSION_QUERY);
+        requestBody.put("variables", variables);
+        requestBody.put("operationName", "latestAcSubmission");
+
+        return post(username, requestBody, sessionToken, csrfToken, RecentSubmissionDecoder::decode);
+    }
+
+    /**
+     * Fetches the details of one submission.
+     * Completes with the submissionDetails object, or null if LeetCode returned none.
+     *
+     * @param username LeetCode account the submission belongs to, used for rate limiting
+     */
+    public CompletableFuture<JsonNode> querySubmissionDetails(String username, String submissionId,
+                                                              String sessionToken, String csrfToken) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("query", SUBMISSION_DETAILS_QUERY);
+        requestBody.put("variables", Map.of("submissionId", Long.parseLong(submissionId)));
+        requestBody.put("operationName", "submissionDetails");
+
+        return post(username, requestBody, sessionToken, csrfToken, objectMapper::readTree)
+                .thenApply(root -> {
+                    JsonNode details = root.path("data").path("submissionDetails");
+                    return details.isObject() ? details : null;
+                });
+    }
+
+    /**
+     * Checks whether the session cookie belongs to a signed-in LeetCode user.
+     */
+    public CompletableFuture<Boolean> validateCredentials(String sessionToken, String csrfToken) {
+        return post(null, Map.of("query", USER_STATUS_QUERY), sessionToken, csrfToken, objectMapper::readTree)
+                .thenApply(root -> root.path("data").path("userStatus").path("isSignedIn").asBoolean(false));
+    }
+
+    private <T> CompletableFuture<T> post(String account, Map<String, Object> requestBody,
+                                          String sessionToken, String csrfToken, ResponseDecoder<T> decoder) {
+        String rejection = throttle.tryAcquire(account);
+        if (rejection != null) {
+            return CompletableFuture.failedFuture(new UpstreamDegradedException(rejection));
+        }
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(graphqlUri)
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .header("Origin", "https://leetcode.com")
+                    .header("Referer", "https://leetcode.com/")
+                    .header("x-csrftoken", csrfToken != null ? csrfToken : "")
+                    .header("User-Agent",
+                        "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36")
+                    .header("Cookie",
+                        "LEETCODE_SESSION=" + sessionToken +
+                        (csrfToken != null ? "; csrftoken=" + csrfToken : ""))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(requestBody)))
+                    .build();
+
+        } catch (Exception e) {
+            throttle.releaseProbe();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        // Fail fast instead of parking the poller or request thread until a slot frees up
+        if (!inFlight.tryAcquire()) {
+            throttle.releaseProbe();
+            return CompletableFuture.failedFuture(
+                new UpstreamDegradedException("Too many LeetCode requests in flight"));
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((response, error) -> {
+                    inFlight.release();
+                    if (error != null || isUpstreamFailure(response.statusCode())) {
+                        throttle.recordFailure();
+                    } else {
+                        throttle.recordSuccess();
+                    }
+                })
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new LeetCodeApiException("LeetCode API returned error: " + response.statusCode());
+                    }
+                    try {
+                        return decoder.decode(response.body());
+                    } catch (Exception e) {
+                        throw new LeetCodeApiException("Unreadable LeetCode response: " + e.getMessage());
+                    }
+                });
+    }
+
+    // Throttling and server errors mean LeetCode is struggling; other 4xx are our request's fault
+    private static boolean isUpstreamFailure(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    private static ExecutorService newWorkerPool(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "leetcode-client-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Turns a successful response body into the caller's result.
+     */
+    @FunctionalInterface
+    private interface ResponseDecoder<T> {
+        T decode(byte[] body) throws IOException;
+    }
+
+    /**
+     * Raised when LeetCode answers with an error status or an unreadable body.
+     */
+    public static class LeetCodeApiException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public LeetCodeApiException(String message) {
+            super(message);
+        }
+
+        protected LeetCodeApiException(String message, boolean writableStackTrace) {
+            super(message, null, false, writableStackTrace);
+        }
+    }
+
+    /**
+     * Raised without calling LeetCode when the call was rate limited or the breaker is open.
+     * Carries no stack trace so rejecting a call stays cheap.
+     */
+    public static class UpstreamDegradedException extends LeetCodeApiException {
+
+        private static final long serialVersionUID = 1L;
+
+        public UpstreamDegradedException(String message) {
+            super(message, false);
+        }
+    }
+}
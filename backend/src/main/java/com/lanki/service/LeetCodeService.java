@@ -1,51 +1,37 @@
 package com.lanki.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lanki.model.Problem;
 import com.lanki.model.Submission;
 import com.lanki.model.User;
-import com.lanki.repository.SubmissionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpTimeoutException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Integrates with LeetCode GraphQL API to check for submissions.
  * Adapted from the Python script logic.
+ * HTTP calls go through LeetCodeClient; this class maps responses to entities.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LeetCodeService {
 
-    private static final String LEETCODE_GRAPHQL_URL = "https://leetcode.com/graphql";
-
-    private final SubmissionRepository submissionRepository;
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    // GraphQL query to fetch recent submissions
-    private static final String LATEST_SUBMISSION_QUERY = """
-        query latestAcSubmission($username: String!, $limit: Int!) {
-          recentAcSubmissionList(username: $username, limit: $limit) {
-            id
-            title
-            titleSlug
-            timestamp
-            statusDisplay
-            lang
-          }
-        }
-        """;
+    // Enough history to cover every open session of one account in a single fetch
+    private static final int RECENT_SUBMISSION_LIMIT = 20;
+
+    private final SeenSubmissionIndex seenSubmissionIndex;
+    private final LeetCodeClient leetCodeClient;
+    private final RecentSubmissionCache recentSubmissionCache;
 
     /**
      * Checks for a new submission on LeetCode for the given problem after the session started.
@@ -57,36 +43,51 @@ public class LeetCodeService {
             return null;
         }
 
-        try {
-            // Query LeetCode for recent submissions
-            JsonNode submissions = queryRecentSubmissions(
-                user.getLeetcodeUsername(),
-                user.getLeetcodeSession(),
-                user.getCsrfToken(),
-                5 // Check last 5 submissions
-            );
-
-            if (submissions == null || !submissions.isArray()) {
-                return null;
-            }
+        List<RecentSubmission> submissions = fetchRecentSubmissions(user).join();
+        if (submissions == null) {
+            return null;
+        }
+        return findMatchingSubmission(submissions, user, problem, sessionStartTime);
+    }
+
+    /**
+     * Fetches the most recent accepted submissions for the user's LeetCode account.
+     * One call answers every open session of that account, and concurrent
+     * callers for the same account share it through RecentSubmissionCache.
+     * Completes with null if the request failed.
+     */
+    public CompletableFuture<List<RecentSubmission>> fetchRecentSubmissions(User user) {
+        return recentSubmissionCache.get(
+                    user.getLeetcodeUsername(),
+                    user.getLeetcodeSession(),
+                    user.getCsrfToken(),
+                    RECENT_SUBMISSION_LIMIT
+                )
+                .exceptionally(e -> {
+                    logFailure("Error querying LeetCode API for user " + user.getId(), e);
+                    return null;
+                });
+    }
 
-            // Find submission matching the problem and after session start time
-            for (JsonNode subNode : submissions) {
-                String titleSlug = subNode.get("titleSlug").asText();
-                long timestamp = subNode.get("timestamp").asLong();
-                LocalDateTime submittedAt = LocalDateTime.ofInstant(
-                    Instant.ofEpochSecond(timestamp),
-                    ZoneId.systemDefault()
-                );
+    /**
+     * Finds a submission in an already fetched recentAcSubmissionList that matches
+     * the problem and was made after the session started.
+     * Returns null if no new matching submission is found.
+     */
+    public Submission findMatchingSubmission(List<RecentSubmission> submissions, User user, Problem problem,
+                                             LocalDateTime sessionStartTime) {
+        try {
+            // Compare in whole epoch seconds: a timestamp is after the start exactly when
+            // it is after the start truncated to the second
+            long startEpochSecond = sessionStartTime.atZone(ZoneId.systemDefault()).toEpochSecond();
 
+            for (RecentSubmission recent : submissions) {
                 // Check if this submission matches our problem and is after session start
-                if (titleSlug.equals(problem.getTitleSlug()) &&
-                    submittedAt.isAfter(sessionStartTime)) {
-
-                    String leetcodeId = subNode.get("id").asText();
+                if (recent.timestamp() > startEpochSecond &&
+                    recent.titleSlug().equals(problem.getTitleSlug())) {
 
                     // Check if we've already recorded this submission
-                    if (submissionRepository.findByLeetcodeSubmissionId(leetcodeId).isPresent()) {
+                    if (seenSubmissionIndex.isSeen(recent.id())) {
                         continue;
                     }
 
@@ -94,11 +95,14 @@ public class LeetCodeService {
                     Submission submission = new Submission();
                     submission.setUser(user);
                     submission.setProblem(problem);
-                    submission.setLeetcodeSubmissionId(leetcodeId);
-                    submission.setSubmittedAt(submittedAt);
-                    submission.setStatus(subNode.get("statusDisplay").asText());
-                    submission.setLanguage(subNode.get("lang").asText());
-                    // Note: code, runtime, memory would require additional API calls
+                    submission.setLeetcodeSubmissionId(recent.id());
+                    submission.setSubmittedAt(LocalDateTime.ofInstant(
+                        Instant.ofEpochSecond(recent.timestamp()),
+                        ZoneId.systemDefault()
+                    ));
+                    submission.setStatus(recent.statusDisplay());
+                    submission.setLanguage(recent.lang());
+                    // Code, runtime and memory are filled in later by SubmissionEnrichmentService
 
                     log.info("Detected new submission for problem {} by user {}",
                         problem.getTitle(), user.getUsername());
@@ -117,94 +121,29 @@ public class LeetCodeService {
     }
 
     /**
-     * Executes GraphQL query against LeetCode API.
+     * Validates LeetCode credentials by checking user status.
      */
-    private JsonNode queryRecentSubmissions(String username, String sessionToken,
-                                           String csrfToken, int limit) {
-        try {
-            // Build request headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Origin", "https://leetcode.com");
-            headers.set("Referer", "https://leetcode.com/");
-            headers.set("x-csrftoken", csrfToken != null ? csrfToken : "");
-            headers.set("User-Agent",
-                "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36");
-            headers.set("Cookie",
-                "LEETCODE_SESSION=" + sessionToken +
-                (csrfToken != null ? "; csrftoken=" + csrfToken : ""));
-
-            // Build GraphQL request body
-            Map<String, Object> variables = new HashMap<>();
-            variables.put("username", username);
-            variables.put("limit", limit);
-
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("query", LATEST_SUBMISSION_QUERY);
-            requestBody.put("variables", variables);
-            requestBody.put("operationName", "latestAcSubmission");
-
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-
-            // Execute request
-            ResponseEntity<String> response = restTemplate.postForEntity(
-                LEETCODE_GRAPHQL_URL,
-                request,
-                String.class
-            );
-
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                log.error("LeetCode API returned error: {}", response.getStatusCode());
-                return null;
-            }
-
-            // Parse response
-            JsonNode root = objectMapper.readTree(response.getBody());
-            JsonNode data = root.get("data");
-
-            if (data != null && data.has("recentAcSubmissionList")) {
-                return data.get("recentAcSubmissionList");
-            }
-
-            return null;
-
-        } catch (Exception e) {
-            log.error("Error querying LeetCode API: {}", e.getMessage(), e);
-            return null;
-        }
+    public CompletableFuture<Boolean> validateCredentials(String sessionToken, String csrfToken) {
+        return leetCodeClient.validateCredentials(sessionToken, csrfToken)
+                .exceptionally(e -> {
+                    logFailure("Error validating LeetCode credentials", e);
+                    return false;
+                });
     }
 
     /**
-     * Validates LeetCode credentials by checking user status.
+     * Rate-limited, short-circuited and timed out calls are expected while LeetCode is
+     * degraded, so they are logged as warnings naming the exception, without a stack
+     * trace. Anything else is an error with its stack trace.
      */
-    public boolean validateCredentials(String sessionToken, String csrfToken) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("x-csrftoken", csrfToken != null ? csrfToken : "");
-            headers.set("Cookie", "LEETCODE_SESSION=" + sessionToken +
-                (csrfToken != null ? "; csrftoken=" + csrfToken : ""));
-
-            String query = "query { userStatus { username isSignedIn } }";
-            Map<String, Object> requestBody = Map.of("query", query);
-
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-            ResponseEntity<String> response = restTemplate.postForEntity(
-                LEETCODE_GRAPHQL_URL,
-                request,
-                String.class
-            );
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                JsonNode root = objectMapper.readTree(response.getBody());
-                JsonNode userStatus = root.path("data").path("userStatus");
-                return userStatus.path("isSignedIn").asBoolean(false);
-            }
-
-            return false;
-        } catch (Exception e) {
-            log.error("Error validating LeetCode credentials: {}", e.getMessage());
-            return false;
+    private void logFailure(String message, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof LeetCodeClient.UpstreamDegradedException
+                || cause instanceof HttpTimeoutException
+                || cause instanceof TimeoutException) {
+            log.warn("{}: {}", message, cause.toString());
+        } else {
+            log.error(message, cause);
         }
     }
 }
@@ -0,0 +1,190 @@
+package com.lanki.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rate limiter and circuit breaker guarding every LeetCode GraphQL call.
+ *
+ * A call needs a permit from the global bucket and, when it is made for an
+ * account, from that account's bucket. The breaker opens after consecutive
+ * upstream failures (errors, 429s, 5xx, timeouts) and rejects calls until the
+ * open period ends; then a single probe call decides whether it closes again.
+ *
+ * Metrics:
+ * - lanki.leetcode.rate-limit{scope=global|account, result=permitted|rejected}
+ * - lanki.leetcode.circuit-breaker.state (0 closed, 1 half-open, 2 open)
+ * - lanki.leetcode.circuit-breaker.rejected
+ */
+@Slf4j
+@Component
+public class LeetCodeThrottle {
+
+    private static final int MAX_ACCOUNT_BUCKETS = 10_000;
+
+    public enum BreakerState {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final TokenBucket globalBucket;
+    private final double accountCapacity;
+    private final double accountPermitsPerSecond;
+    private final int failureThreshold;
+    private final long openMs;
+
+    // Per-account buckets keyed by LeetCode username, least recently used evicted
+    private final Map<String, TokenBucket> accountBuckets =
+        Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+                return size() > MAX_ACCOUNT_BUCKETS;
+            }
+        });
+
+    private final AtomicReference<BreakerState> state = new AtomicReference<>(BreakerState.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+
+    private final Counter globalPermitted;
+    private final Counter globalRejected;
+    private final Counter accountPermitted;
+    private final Counter accountRejected;
+    private final Counter breakerRejected;
+
+    public LeetCodeThrottle(
+            MeterRegistry meterRegistry,
+            @Value("${lanki.leetcode.rate-limit.global-per-second:50}") double globalPerSecond,
+            @Value("${lanki.leetcode.rate-limit.global-burst:100}") double globalBurst,
+            @Value("${lanki.leetcode.rate-limit.account-per-second:0.5}") double accountPerSecond,
+            @Value("${lanki.leetcode.rate-limit.account-burst:2}") double accountBurst,
+            @Value("${lanki.leetcode.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${lanki.leetcode.circuit-breaker.open-ms:30000}") long openMs) {
+        this.globalBucket = new TokenBucket(globalBurst, globalPerSecond);
+        this.accountCapacity = accountBurst;
+        this.accountPermitsPerSecond = accountPerSecond;
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+
+        this.globalPermitted = rateLimitCounter(meterRegistry, "global", "permitted");
+        this.globalRejected = rateLimitCounter(meterRegistry, "global", "rejected");
+        this.accountPermitted = rateLimitCounter(meterRegistry, "account", "permitted");
+        this.accountRejected = rateLimitCounter(meterRegistry, "account", "rejected");
+        this.breakerRejected = Counter.builder("lanki.leetcode.circuit-breaker.rejected")
+                .description("LeetCode calls short-circuited by the open breaker")
+                .register(meterRegistry);
+        Gauge.builder("lanki.leetcode.circuit-breaker.state", state, s -> s.get().ordinal())
+                .description("0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes the permits for one call.
+     *
+     * @param account LeetCode username the call is made for, or null for account-less calls
+     * @return null if the call may proceed, otherwise the reason it was rejected
+     */
+    public String tryAcquire(String account) {
+        if (!allowedByBreaker()) {
+            breakerRejected.increment();
+            return "LeetCode circuit breaker is open";
+        }
+
+        TokenBucket bucket = null;
+        if (account != null) {
+            bucket = accountBuckets.computeIfAbsent(account,
+                a -> new TokenBucket(accountCapacity, accountPermitsPerSecond));
+            if (!bucket.tryAcquire()) {
+                accountRejected.increment();
+                releaseProbe();
+                return "Rate limit reached for LeetCode account " + account;
+            }
+        }
+
+        if (!globalBucket.tryAcquire()) {
+            // The call is not made, so it must not use up the account's quota either
+            if (bucket != null) {
+                bucket.refund();
+            }
+            globalRejected.increment();
+            releaseProbe();
+            return "Global LeetCode rate limit reached";
+        }
+        if (account != null) {
+            accountPermitted.increment();
+        }
+        globalPermitted.increment();
+        return null;
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (state.getAndSet(BreakerState.CLOSED) != BreakerState.CLOSED) {
+            log.info("LeetCode circuit breaker closed");
+        }
+    }
+
+    public void recordFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+        BreakerState current = state.get();
+        if (current == BreakerState.HALF_OPEN
+                || (current == BreakerState.CLOSED && failures >= failureThreshold)) {
+            openedAt.set(System.currentTimeMillis());
+            state.set(BreakerState.OPEN);
+            log.warn("LeetCode circuit breaker opened after {} consecutive failures", failures);
+        }
+    }
+
+    public BreakerState getState() {
+        return state.get();
+    }
+
+    /**
+     * True while LeetCode calls are being short-circuited or probed.
+     */
+    public boolean isDegraded() {
+        return state.get() != BreakerState.CLOSED;
+    }
+
+    private boolean allowedByBreaker() {
+        BreakerState current = state.get();
+        if (current == BreakerState.CLOSED) {
+            return true;
+        }
+        // After the open period exactly one caller gets through as the probe
+        return current == BreakerState.OPEN
+            && System.currentTimeMillis() - openedAt.get() >= openMs
+            && state.compareAndSet(BreakerState.OPEN, BreakerState.HALF_OPEN);
+    }
+
+    /**
+     * Gives up a call permitted by tryAcquire that never reached LeetCode, e.g. one
+     * rate limited or failing before it was sent. If it was the half-open probe, the
+     * next caller probes instead; otherwise the breaker would wait for an outcome
+     * that never comes.
+     */
+    public void releaseProbe() {
+        if (state.get() == BreakerState.HALF_OPEN) {
+            openedAt.set(0);
+            state.compareAndSet(BreakerState.HALF_OPEN, BreakerState.OPEN);
+        }
+    }
+
+    private static Counter rateLimitCounter(MeterRegistry meterRegistry, String scope, String result) {
+        return Counter.builder("lanki.leetcode.rate-limit")
+                .description("LeetCode call permits by bucket and outcome")
+                .tag("scope", scope)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,128 @@
+package com.lanki.service;
+
+import com.lanki.model.Problem;
+import com.lanki.model.ProblemSession;
+import com.lanki.repository.ProblemSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recommends how long to wait before checking a session for a submission again.
+ *
+ * The delay depends on how long the session has been running compared with how
+ * long the user usually needs for a problem of that difficulty:
+ * - before the earliest plausible finish: wait until then (capped at max delay)
+ * - up to twice the expected time: poll at the minimum delay
+ * - after that: back off in proportion to the overrun, up to the max delay
+ *
+ * Expected and fastest times come from the user's completed sessions once there
+ * are enough of them, otherwise from per-difficulty defaults.
+ */
+@Service
+public class PollCadenceService {
+
+    private static final int MIN_HISTORY = 3;
+    private static final long STATS_TTL_MS = Duration.ofMinutes(10).toMillis();
+    private static final int MAX_CACHED_USERS = 10_000;
+
+    private final ProblemSessionRepository sessionRepository;
+    private final long minDelayMs;
+    private final long maxDelayMs;
+
+    // Solve-time stats keyed by user ID, least recently used evicted
+    private final Map<Long, UserSolveStats> statsByUser =
+        Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserSolveStats> eldest) {
+                return size() > MAX_CACHED_USERS;
+            }
+        });
+
+    private record SolveTime(long expectedSeconds, long earliestSeconds) {
+    }
+
+    private record UserSolveStats(Map<Problem.Difficulty, SolveTime> byDifficulty, long loadedAt) {
+    }
+
+    public PollCadenceService(
+            ProblemSessionRepository sessionRepository,
+            @Value("${lanki.poller.min-delay-ms:5000}") long minDelayMs,
+            @Value("${lanki.poller.max-delay-ms:60000}") long maxDelayMs) {
+        this.sessionRepository = sessionRepository;
+        this.minDelayMs = minDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * Milliseconds until the session is worth checking again.
+     */
+    public long nextPollDelayMs(ProblemSession session) {
+        return nextPollDelayMs(session.getUser().getId(), session.getProblem().getDifficulty(), session.getStartedAt());
+    }
+
+    /**
+     * Milliseconds until a session of the user on a problem of this difficulty, started
+     * at startedAt, is worth checking again.
+     */
+    public long nextPollDelayMs(Long userId, Problem.Difficulty difficulty, LocalDateTime startedAt) {
+        SolveTime solveTime = solveTime(userId, difficulty);
+        long elapsedMs = Duration.between(startedAt, LocalDateTime.now()).toMillis();
+        long earliestMs = solveTime.earliestSeconds() * 1000;
+        long lateMs = solveTime.expectedSeconds() * 2000;
+
+        if (elapsedMs < earliestMs) {
+            return Math.max(minDelayMs, Math.min(earliestMs - elapsedMs, maxDelayMs));
+        }
+        if (elapsedMs <= lateMs) {
+            return minDelayMs;
+        }
+        return Math.min(maxDelayMs, minDelayMs * elapsedMs / lateMs);
+    }
+
+    /**
+     * Drops cached stats so the user's next delay reflects a newly completed session.
+     */
+    public void invalidate(Long userId) {
+        statsByUser.remove(userId);
+    }
+
+    private SolveTime solveTime(Long userId, Problem.Difficulty difficulty) {
+        UserSolveStats stats = statsByUser.get(userId);
+        if (stats == null || System.currentTimeMillis() - stats.loadedAt() > STATS_TTL_MS) {
+            stats = loadStats(userId);
+            statsByUser.put(userId, stats);
+        }
+        return stats.byDifficulty().getOrDefault(difficulty, defaultSolveTime(difficulty));
+    }
+
+    private UserSolveStats loadStats(Long userId) {
+        Map<Problem.Difficulty, SolveTime> byDifficulty = new EnumMap<>(Problem.Difficulty.class);
+        for (Object[] row : sessionRepository.findSolveTimeStatsByUserId(userId)) {
+            Problem.Difficulty difficulty = (Problem.Difficulty) row[0];
+            long count = ((Number) row[3]).longValue();
+            if (count >= MIN_HISTORY && row[1] != null && row[2] != null) {
+                long average = ((Number) row[1]).longValue();
+                long fastest = ((Number) row[2]).longValue();
+                // Leave room for a personal best; sub-second averages would make lateMs zero
+                byDifficulty.put(difficulty, new SolveTime(Math.max(1, average), fastest / 2));
+            }
+        }
+        return new UserSolveStats(byDifficulty, System.currentTimeMillis());
+    }
+
+    private static SolveTime defaultSolveTime(Problem.Difficulty difficulty) {
+        long expectedSeconds = switch (difficulty) {
+            case EASY -> 15 * 60;
+            case MEDIUM -> 25 * 60;
+            case HARD -> 40 * 60;
+        };
+        return new SolveTime(expectedSeconds, expectedSeconds / 5);
+    }
+}
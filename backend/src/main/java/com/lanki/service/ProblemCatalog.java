@@ -0,0 +1,419 @@
+package com.lanki.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lanki.dto.ProblemDTO;
+import com.lanki.dto.ProblemPageDTO;
+import com.lanki.model.Problem;
+import com.lanki.repository.ProblemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * In-memory copy of the problem table, which only changes when the problem set is edited.
+ *
+ * A Snapshot holds the problem fields in arrays indexed by problem id, a slug to id
+ * map and the problem ids of each category, and is never modified once built. Reads
+ * go through the current snapshot with no query. reload() builds a new snapshot from
+ * the table and swaps it in, so readers see either the old catalog or the new one.
+ *
+ * The snapshot also keeps the JSON of the grouped catalog and of the category list,
+ * plain and gzipped, each with a strong ETag, so those responses are written once
+ * per reload instead of once per request.
+ *
+ * Each snapshot carries its own ProblemSearchIndex, so search() always sees the
+ * same problems as every other read.
+ *
+ * page() filters by category, difficulty, premium and curated list with keyset
+ * pagination. A list filter walks the list; otherwise it walks the shortest of the
+ * precomputed id arrays of the active filters (category, difficulty, premium, or
+ * every id) from the cursor, so a page costs about the same however large the
+ * catalog gets.
+ */
+@Slf4j
+@Service
+public class ProblemCatalog {
+
+    private static final String LIST_ENTRIES_SQL = """
+        SELECT l.slug, l.name, e.problem_id
+        FROM problem_lists l
+        LEFT JOIN problem_list_entries e ON e.list_id = l.id
+        ORDER BY l.slug, e.position
+        """;
+
+    private final ProblemRepository problemRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(Snapshot.EMPTY);
+
+    /**
+     * Problem fields by id; a null title marks an unused id. idsByDifficulty is indexed
+     * by Difficulty ordinal, idsByPremium by 0 for free and 1 for premium, and idsByList
+     * holds each list's problem ids in list order.
+     */
+    record Snapshot(String[] titles, String[] slugs, String[] categories, Problem.Difficulty[] difficulties,
+                    String[] urls, boolean[] premium, Map<String, Integer> idsBySlug,
+                    List<String> categoryNames, long[][] idsByCategory, long[][] idsByDifficulty,
+                    long[][] idsByPremium, Map<String, String> listNames, Map<String, long[]> idsByList, long[] ids,
+                    ProblemSearchIndex searchIndex, SerializedResponse groupedJson, SerializedResponse categoriesJson) {
+
+        static final Snapshot EMPTY = new Snapshot(new String[0], new String[0], new String[0],
+            new Problem.Difficulty[0], new String[0], new boolean[0], Map.of(), List.of(), new long[0][],
+            new long[Problem.Difficulty.values().length][0], new long[2][0], Map.of(), Map.of(), new long[0], ProblemSearchIndex.EMPTY,
+            SerializedResponse.of("{}".getBytes(StandardCharsets.UTF_8)),
+            SerializedResponse.of("[]".getBytes(StandardCharsets.UTF_8)));
+
+        Snapshot withResponses(SerializedResponse grouped, SerializedResponse categoryList) {
+            return new Snapshot(titles, slugs, categories, difficulties, urls, premium, idsBySlug,
+                categoryNames, idsByCategory, idsByDifficulty, idsByPremium, listNames, idsByList, ids, searchIndex,
+                grouped, categoryList);
+        }
+
+        boolean contains(long id) {
+            return id >= 0 && id < titles.length && titles[(int) id] != null;
+        }
+
+        /**
+         * Dense index of the problem in ids (0 to ids.length - 1), or -1 if unknown.
+         */
+        int position(long id) {
+            int position = Arrays.binarySearch(ids, id);
+            return position >= 0 ? position : -1;
+        }
+
+        ProblemDTO toDTO(long id) {
+            int i = (int) id;
+            return new ProblemDTO(id, titles[i], slugs[i], categories[i], difficulties[i].name(), urls[i], premium[i], null);
+        }
+    }
+
+    /**
+     * A JSON body serialized ahead of time, with the strong ETag of each encoding.
+     */
+    public record SerializedResponse(byte[] json, String etag, byte[] gzip, String gzipEtag) {
+
+        static SerializedResponse of(byte[] json) {
+            byte[] gzip = gzip(json);
+            return new SerializedResponse(json, etag(json, ""), gzip, etag(json, "-gz"));
+        }
+
+        private static byte[] gzip(byte[] json) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+
+        private static String etag(byte[] json, String suffix) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+                return "\"" + HexFormat.of().formatHex(digest, 0, 16) + suffix + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Filters of page(); null fields match every problem.
+     */
+    public record Filter(String category, Problem.Difficulty difficulty, Boolean premium, String list) {
+    }
+
+    public ProblemCatalog(ProblemRepository problemRepository, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.problemRepository = problemRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        reload();
+    }
+
+    /**
+     * Rebuilds the catalog from the problems and problem list tables and swaps it in.
+     * Returns the problem count.
+     */
+    public int reload() {
+        long start = System.currentTimeMillis();
+        List<Problem> problems = problemRepository.findAll(Sort.by("id"));
+        int size = problems.isEmpty() ? 0 : Math.toIntExact(problems.get(problems.size() - 1).getId()) + 1;
+
+        String[] titles = new String[size];
+        String[] slugs = new String[size];
+        String[] categories = new String[size];
+        Problem.Difficulty[] difficulties = new Problem.Difficulty[size];
+        String[] urls = new String[size];
+        boolean[] premium = new boolean[size];
+        long[] ids = new long[problems.size()];
+        Map<String, Integer> idsBySlug = new HashMap<>();
+        Map<String, List<Long>> byCategory = new TreeMap<>();
+        List<List<Long>> byDifficulty = new ArrayList<>();
+        for (int d = 0; d < Problem.Difficulty.values().length; d++) {
+            byDifficulty.add(new ArrayList<>());
+        }
+        List<Long> free = new ArrayList<>();
+        List<Long> premiumIds = new ArrayList<>();
+
+        for (int n = 0; n < problems.size(); n++) {
+            Problem problem = problems.get(n);
+            int id = Math.toIntExact(problem.getId());
+            titles[id] = problem.getTitle();
+            slugs[id] = problem.getTitleSlug();
+            categories[id] = problem.getCategory();
+            difficulties[id] = problem.getDifficulty();
+            urls[id] = problem.getLeetcodeUrl();
+            premium[id] = Boolean.TRUE.equals(problem.getIsPremium());
+            ids[n] = id;
+            idsBySlug.put(problem.getTitleSlug(), id);
+            byCategory.computeIfAbsent(problem.getCategory(), category -> new ArrayList<>()).add(problem.getId());
+            byDifficulty.get(problem.getDifficulty().ordinal()).add(problem.getId());
+            (premium[id] ? premiumIds : free).add(problem.getId());
+        }
+
+        Map<String, String> listNames = new TreeMap<>();
+        Map<String, List<Long>> byList = new HashMap<>();
+        jdbcTemplate.query(LIST_ENTRIES_SQL, rs -> {
+            String slug = rs.getString(1);
+            listNames.put(slug, rs.getString(2));
+            List<Long> listIds = byList.computeIfAbsent(slug, s -> new ArrayList<>());
+            long problemId = rs.getLong(3);
+            if (!rs.wasNull()) {
+                listIds.add(problemId);
+            }
+        });
+
+        List<String> categoryNames = List.copyOf(byCategory.keySet());
+        long[][] idsByCategory = byCategory.values().stream().map(ProblemCatalog::toArray).toArray(long[][]::new);
+        long[][] idsByDifficulty = byDifficulty.stream().map(ProblemCatalog::toArray).toArray(long[][]::new);
+        long[][] idsByPremium = {toArray(free), toArray(premiumIds)};
+        Map<String, long[]> idsByList = new HashMap<>();
+        byList.forEach((slug, listIds) -> idsByList.put(slug, toArray(listIds)));
+
+        Snapshot snapshot = new Snapshot(titles, slugs, categories, difficulties, urls, premium,
+            Map.copyOf(idsBySlug), categoryNames, idsByCategory, idsByDifficulty, idsByPremium,
+            Collections.unmodifiableMap(listNames), Map.copyOf(idsByList), ids,
+            ProblemSearchIndex.build(titles, slugs, ids), null, null);
+        current.set(snapshot.withResponses(serialize(groupedByCategory(snapshot)), serialize(categoryNames)));
+        log.info("Loaded problem catalog: {} problems in {} categories, {} lists, {} ms",
+            problems.size(), categoryNames.size(), listNames.size(), System.currentTimeMillis() - start);
+        return problems.size();
+    }
+
+    /**
+     * Current snapshot; a reload replaces it with a new instance.
+     */
+    Snapshot snapshot() {
+        return current.get();
+    }
+
+    /**
+     * A new DTO for the problem, or null if there is no such problem.
+     */
+    public ProblemDTO find(long id) {
+        Snapshot snapshot = current.get();
+        return snapshot.contains(id) ? snapshot.toDTO(id) : null;
+    }
+
+    public ProblemDTO findBySlug(String slug) {
+        Snapshot snapshot = current.get();
+        Integer id = snapshot.idsBySlug().get(slug);
+        return id != null ? snapshot.toDTO(id) : null;
+    }
+
+    /**
+     * Category names, sorted.
+     */
+    public List<String> categories() {
+        return current.get().categoryNames();
+    }
+
+    /**
+     * New DTOs for every problem by category, categories sorted and problems in id order.
+     */
+    public Map<String, List<ProblemDTO>> groupedByCategory() {
+        return groupedByCategory(current.get());
+    }
+
+    /**
+     * JSON of groupedByCategory() (progressStatus null), as served by GET /api/problems.
+     */
+    public SerializedResponse groupedJson() {
+        return current.get().groupedJson();
+    }
+
+    /**
+     * JSON of categories().
+     */
+    public SerializedResponse categoriesJson() {
+        return current.get().categoriesJson();
+    }
+
+    private Map<String, List<ProblemDTO>> groupedByCategory(Snapshot snapshot) {
+        Map<String, List<ProblemDTO>> grouped = new LinkedHashMap<>();
+        for (int c = 0; c < snapshot.categoryNames().size(); c++) {
+            long[] categoryIds = snapshot.idsByCategory()[c];
+            List<ProblemDTO> problems = new ArrayList<>(categoryIds.length);
+            for (long id : categoryIds) {
+                problems.add(snapshot.toDTO(id));
+            }
+            grouped.put(snapshot.categoryNames().get(c), problems);
+        }
+        return grouped;
+    }
+
+    /**
+     * New DTOs for every problem, in id order.
+     */
+    public List<ProblemDTO> all() {
+        Snapshot snapshot = current.get();
+        List<ProblemDTO> problems = new ArrayList<>(snapshot.ids().length);
+        for (long id : snapshot.ids()) {
+            problems.add(snapshot.toDTO(id));
+        }
+        return problems;
+    }
+
+    /**
+     * Curated lists, sorted by slug, with their names and problem counts.
+     */
+    public List<Map<String, Object>> lists() {
+        Snapshot snapshot = current.get();
+        List<Map<String, Object>> lists = new ArrayList<>(snapshot.listNames().size());
+        snapshot.listNames().forEach((slug, name) -> lists.add(Map.of(
+            "slug", slug,
+            "name", name,
+            "problems", snapshot.idsByList().get(slug).length)));
+        return lists;
+    }
+
+    /**
+     * Up to limit problems matching the filter after the cursor, as new DTOs.
+     *
+     * Pages are in list order when filtering by list, else in id order. The cursor is
+     * the last id returned, or for a list the last index into the list; null starts at
+     * the beginning. nextCursor is null on the last page. An unknown list or category
+     * gives an empty page.
+     */
+    public ProblemPageDTO page(Filter filter, Long after, int limit) {
+        Snapshot snapshot = current.get();
+        long[] source = source(snapshot, filter);
+        boolean byListIndex = filter.list() != null;
+
+        int from;
+        if (after == null) {
+            from = 0;
+        } else if (byListIndex) {
+            from = (int) Math.min(Math.max(after + 1, 0), source.length);
+        } else {
+            int found = Arrays.binarySearch(source, after);
+            from = found >= 0 ? found + 1 : -found - 1;
+        }
+
+        List<ProblemDTO> items = new ArrayList<>(Math.min(limit, source.length));
+        int lastIndex = -1;
+        Long nextCursor = null;
+        for (int i = from; i < source.length; i++) {
+            long id = source[i];
+            if (!matches(snapshot, filter, id)) {
+                continue;
+            }
+            if (items.size() == limit) {
+                // One more match exists, so the page is not the last
+                nextCursor = byListIndex ? lastIndex : source[lastIndex];
+                break;
+            }
+            items.add(snapshot.toDTO(id));
+            lastIndex = i;
+        }
+        return new ProblemPageDTO(items, nextCursor);
+    }
+
+    /**
+     * New DTOs for up to limit problems best matching the query by title or slug,
+     * tolerating typos (see ProblemSearchIndex).
+     */
+    public List<ProblemDTO> search(String query, int limit) {
+        Snapshot snapshot = current.get();
+        int[] positions = snapshot.searchIndex().search(query, limit);
+        List<ProblemDTO> problems = new ArrayList<>(positions.length);
+        for (int position : positions) {
+            problems.add(snapshot.toDTO(snapshot.ids()[position]));
+        }
+        return problems;
+    }
+
+    /**
+     * Ids page() walks for the filter: the list's, else the shortest array of an
+     * active filter, else every id. The others are checked per problem.
+     */
+    static long[] source(Snapshot snapshot, Filter filter) {
+        if (filter.list() != null) {
+            return snapshot.idsByList().getOrDefault(filter.list(), new long[0]);
+        }
+        long[] source = snapshot.ids();
+        if (filter.category() != null) {
+            int c = Collections.binarySearch(snapshot.categoryNames(), filter.category());
+            source = c >= 0 ? snapshot.idsByCategory()[c] : new long[0];
+        }
+        if (filter.difficulty() != null) {
+            source = shorter(source, snapshot.idsByDifficulty()[filter.difficulty().ordinal()]);
+        }
+        if (filter.premium() != null) {
+            source = shorter(source, snapshot.idsByPremium()[filter.premium() ? 1 : 0]);
+        }
+        return source;
+    }
+
+    private static long[] shorter(long[] a, long[] b) {
+        return b.length < a.length ? b : a;
+    }
+
+    private static boolean matches(Snapshot snapshot, Filter filter, long id) {
+        int i = (int) id;
+        return (filter.category() == null || filter.category().equals(snapshot.categories()[i]))
+            && (filter.difficulty() == null || filter.difficulty() == snapshot.difficulties()[i])
+            && (filter.premium() == null || filter.premium() == snapshot.premium()[i]);
+    }
+
+    private static long[] toArray(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private SerializedResponse serialize(Object body) {
+        try {
+            return SerializedResponse.of(objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the problem catalog", e);
+        }
+    }
+}
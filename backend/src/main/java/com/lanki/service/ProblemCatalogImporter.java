@@ -0,0 +1,211 @@
+package com.lanki.service;
+
+import com.lanki.dto.ProblemImportDTO;
+import com.lanki.model.Problem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads a whole problem set, e.g. every LeetCode problem plus curated lists, in one request.
+ *
+ * Flow:
+ * 1. Read the id of every existing problem and list by slug in one query each
+ * 2. Insert new problems and update existing ones (matched by titleSlug) with JDBC batches
+ * 3. Create lists that do not exist yet, then replace the entries of every list named
+ *    in the import, in the order its problems appear in the request
+ *
+ * The whole request is validated before anything is written; invalid input throws
+ * IllegalArgumentException. All in one transaction; problems missing from the import
+ * are left as they are.
+ * The caller reloads ProblemCatalog afterwards.
+ */
+@Slf4j
+@Service
+public class ProblemCatalogImporter {
+
+    private static final String INSERT_PROBLEM_SQL = """
+        INSERT INTO problems (title, title_slug, category, difficulty, leetcode_url, is_premium)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String UPDATE_PROBLEM_SQL = """
+        UPDATE problems
+        SET title = ?, category = ?, difficulty = ?, leetcode_url = ?, is_premium = ?
+        WHERE id = ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxProblems;
+    private final int jdbcBatchSize;
+
+    /**
+     * Outcome of one import: problems inserted and updated, lists created, list entries written.
+     */
+    public record ImportResult(int inserted, int updated, int listsCreated, int listEntries) {
+    }
+
+    public ProblemCatalogImporter(
+            JdbcTemplate jdbcTemplate,
+            @Value("${lanki.catalog.import.max-problems:20000}") int maxProblems,
+            @Value("${lanki.catalog.import.jdbc-batch-size:500}") int jdbcBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxProblems = maxProblems;
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    @Transactional
+    public ImportResult importCatalog(ProblemImportDTO request) {
+        List<ProblemImportDTO.Problem> problems = request.getProblems() != null ? request.getProblems() : List.of();
+        if (problems.size() > maxProblems) {
+            throw new IllegalArgumentException("At most " + maxProblems + " problems per import");
+        }
+        long start = System.currentTimeMillis();
+
+        Map<String, ProblemImportDTO.Problem> bySlug = new LinkedHashMap<>();
+        for (ProblemImportDTO.Problem problem : problems) {
+            validate(problem);
+            bySlug.put(problem.getTitleSlug(), problem);
+        }
+        if (request.getLists() != null) {
+            for (ProblemImportDTO.ListInfo list : request.getLists()) {
+                if (list == null || isBlank(list.getSlug())) {
+                    throw new IllegalArgumentException("Every list needs a slug");
+                }
+            }
+        }
+
+        Map<String, Long> existingIds = idsBySlug("SELECT title_slug, id FROM problems");
+        List<ProblemImportDTO.Problem> inserts = new ArrayList<>();
+        List<ProblemImportDTO.Problem> updates = new ArrayList<>();
+        for (ProblemImportDTO.Problem problem : bySlug.values()) {
+            (existingIds.containsKey(problem.getTitleSlug()) ? updates : inserts).add(problem);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_PROBLEM_SQL, inserts, jdbcBatchSize, (ps, problem) -> {
+            ps.setString(1, problem.getTitle());
+            ps.setString(2, problem.getTitleSlug());
+            ps.setString(3, problem.getCategory());
+            ps.setString(4, difficulty(problem).name());
+            ps.setString(5, leetcodeUrl(problem));
+            ps.setBoolean(6, Boolean.TRUE.equals(problem.getIsPremium()));
+        });
+        jdbcTemplate.batchUpdate(UPDATE_PROBLEM_SQL, updates, jdbcBatchSize, (ps, problem) -> {
+            ps.setString(1, problem.getTitle());
+            ps.setString(2, problem.getCategory());
+            ps.setString(3, difficulty(problem).name());
+            ps.setString(4, leetcodeUrl(problem));
+            ps.setBoolean(5, Boolean.TRUE.equals(problem.getIsPremium()));
+            ps.setLong(6, existingIds.get(problem.getTitleSlug()));
+        });
+        Map<String, Long> problemIds = inserts.isEmpty() ? existingIds : idsBySlug("SELECT title_slug, id FROM problems");
+
+        // List slug -> problem ids in request order; names default to the slug
+        Map<String, String> listNames = new LinkedHashMap<>();
+        Map<String, Set<Long>> members = new LinkedHashMap<>();
+        if (request.getLists() != null) {
+            for (ProblemImportDTO.ListInfo list : request.getLists()) {
+                listNames.put(list.getSlug(), list.getName() != null ? list.getName() : list.getSlug());
+            }
+        }
+        for (ProblemImportDTO.Problem problem : bySlug.values()) {
+            if (problem.getLists() == null) {
+                continue;
+            }
+            for (String list : problem.getLists()) {
+                listNames.putIfAbsent(list, list);
+                // A slug named twice by one problem keeps its first position
+                members.computeIfAbsent(list, l -> new LinkedHashSet<>()).add(problemIds.get(problem.getTitleSlug()));
+            }
+        }
+
+        Map<String, Long> listIds = idsBySlug("SELECT slug, id FROM problem_lists");
+        List<Map.Entry<String, String>> newLists = listNames.entrySet().stream()
+            .filter(list -> !listIds.containsKey(list.getKey()))
+            .toList();
+        List<Map.Entry<String, String>> renamedLists = listNames.entrySet().stream()
+            .filter(list -> listIds.containsKey(list.getKey()))
+            .toList();
+        jdbcTemplate.batchUpdate("INSERT INTO problem_lists (slug, name) VALUES (?, ?)", newLists, jdbcBatchSize,
+            (ps, list) -> {
+                ps.setString(1, list.getKey());
+                ps.setString(2, list.getValue());
+            });
+        jdbcTemplate.batchUpdate("UPDATE problem_lists SET name = ? WHERE slug = ?", renamedLists, jdbcBatchSize,
+            (ps, list) -> {
+                ps.setString(1, list.getValue());
+                ps.setString(2, list.getKey());
+            });
+        Map<String, Long> allListIds = newLists.isEmpty() ? listIds : idsBySlug("SELECT slug, id FROM problem_lists");
+
+        List<long[]> entries = new ArrayList<>();
+        for (Map.Entry<String, Set<Long>> list : members.entrySet()) {
+            long listId = allListIds.get(list.getKey());
+            jdbcTemplate.update("DELETE FROM problem_list_entries WHERE list_id = ?", listId);
+            int position = 0;
+            for (long problemId : list.getValue()) {
+                entries.add(new long[]{listId, problemId, position++});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO problem_list_entries (list_id, problem_id, position) VALUES (?, ?, ?)",
+            entries, jdbcBatchSize, (ps, entry) -> {
+                ps.setLong(1, entry[0]);
+                ps.setLong(2, entry[1]);
+                ps.setInt(3, (int) entry[2]);
+            });
+
+        ImportResult result = new ImportResult(inserts.size(), updates.size(), newLists.size(), entries.size());
+        log.info("Imported problem catalog: {} inserted, {} updated, {} lists created, {} list entries, {} ms",
+            result.inserted(), result.updated(), result.listsCreated(), result.listEntries(),
+            System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private Map<String, Long> idsBySlug(String sql) {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            ids.put(rs.getString(1), rs.getLong(2));
+        });
+        return ids;
+    }
+
+    private static void validate(ProblemImportDTO.Problem problem) {
+        if (problem == null || isBlank(problem.getTitleSlug()) || problem.getTitle() == null
+                || problem.getCategory() == null) {
+            throw new IllegalArgumentException("Every problem needs a title, titleSlug and category");
+        }
+        difficulty(problem);
+        if (problem.getLists() != null && problem.getLists().stream().anyMatch(ProblemCatalogImporter::isBlank)) {
+            throw new IllegalArgumentException("Blank list slug for " + problem.getTitleSlug());
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static Problem.Difficulty difficulty(ProblemImportDTO.Problem problem) {
+        try {
+            return Problem.Difficulty.valueOf(String.valueOf(problem.getDifficulty()).toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown difficulty for " + problem.getTitleSlug()
+                + ": " + problem.getDifficulty());
+        }
+    }
+
+    private static String leetcodeUrl(ProblemImportDTO.Problem problem) {
+        return problem.getLeetcodeUrl() != null
+            ? problem.getLeetcodeUrl()
+            : "https://leetcode.com/problems/" + problem.getTitleSlug() + "/";
+    }
+}
@@ -0,0 +1,61 @@
+package com.lanki.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs the catalog seed script only when the problems table is empty.
+ *
+ * The default profile recreates the schema and runs data.sql on every start
+ * (spring.sql.init.mode: always). The "prod" profile keeps its schema, turns that off
+ * and sets lanki.catalog.seed-if-empty instead, so a new database gets the catalog and
+ * later starts skip the script. Runs on ApplicationStartedEvent, before the
+ * ApplicationReadyEvent warm-ups load ProblemCatalog.
+ */
+@Slf4j
+@Service
+public class ProblemCatalogSeeder {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourceLoader resourceLoader;
+    private final boolean seedIfEmpty;
+    private final String seedScript;
+
+    public ProblemCatalogSeeder(
+            JdbcTemplate jdbcTemplate,
+            ResourceLoader resourceLoader,
+            @Value("${lanki.catalog.seed-if-empty:false}") boolean seedIfEmpty,
+            @Value("${lanki.catalog.seed-script:classpath:data.sql}") String seedScript) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.resourceLoader = resourceLoader;
+        this.seedIfEmpty = seedIfEmpty;
+        this.seedScript = seedScript;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void seedIfEmpty() {
+        if (!seedIfEmpty) {
+            return;
+        }
+        Integer problems = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM problems", Integer.class);
+        if (problems != null && problems > 0) {
+            log.debug("Problem catalog has {} problems, not seeding", problems);
+            return;
+        }
+        Resource script = resourceLoader.getResource(seedScript);
+        if (!script.exists()) {
+            log.warn("Problem catalog is empty and seed script {} does not exist", seedScript);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        new ResourceDatabasePopulator(script).execute(jdbcTemplate.getDataSource());
+        log.info("Seeded empty problem catalog from {} in {} ms", seedScript, System.currentTimeMillis() - start);
+    }
+}
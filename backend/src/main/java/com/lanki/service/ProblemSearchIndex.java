@@ -0,0 +1,273 @@
+package com.lanki.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Typo-tolerant search over problem titles and slugs, built once per catalog snapshot.
+ *
+ * Titles and slugs are lowercased and split into alphanumeric tokens; each pair of
+ * adjacent tokens is also indexed joined ("two sum" gives "twosum"), so "3sum" and
+ * "3 sum" both find "3Sum". The index keeps:
+ * - the distinct tokens sorted, so every token starting with a prefix is one
+ *   contiguous range found by binary search (a flattened prefix trie)
+ * - for each token, the sorted catalog positions (see ProblemCatalog.Snapshot.position)
+ *   of the problems containing it
+ * - for each trigram, the tokens containing it, in an array indexed by the trigram's
+ *   code; a query token's trigrams give the candidates for a typo match, which are
+ *   then checked with a bounded edit distance
+ *
+ * Each query token scores a problem by its best token: exact 1.0, prefix 0.6-1.0 by
+ * how much of the token it covers, one edit 0.5, two edits 0.3. Results rank by the
+ * number of query tokens matched, then total score, then shorter title.
+ */
+final class ProblemSearchIndex {
+
+    static final ProblemSearchIndex EMPTY = build(new String[0], new String[0], new long[0]);
+
+    private static final int ALPHABET = 37; // space, a-z, 0-9
+    private static final int MIN_FUZZY_LENGTH = 3;
+    private static final int[] NO_POSTINGS = new int[0];
+
+    private final String[] tokens;
+    private final int[][] postings;
+    private final int[][] tokensByTrigram;
+    private final int[] titleLengths;
+
+    private ProblemSearchIndex(String[] tokens, int[][] postings, int[][] tokensByTrigram, int[] titleLengths) {
+        this.tokens = tokens;
+        this.postings = postings;
+        this.tokensByTrigram = tokensByTrigram;
+        this.titleLengths = titleLengths;
+    }
+
+    /**
+     * Index over the problems at ids[0..n-1]; titles and slugs are indexed by problem id.
+     */
+    static ProblemSearchIndex build(String[] titles, String[] slugs, long[] ids) {
+        Map<String, List<Integer>> positionsByToken = new TreeMap<>();
+        int[] titleLengths = new int[ids.length];
+        for (int position = 0; position < ids.length; position++) {
+            int id = (int) ids[position];
+            titleLengths[position] = titles[id].length();
+            for (String source : new String[]{titles[id], slugs[id]}) {
+                List<String> words = tokenize(source);
+                for (int w = 0; w < words.size(); w++) {
+                    addPosting(positionsByToken, words.get(w), position);
+                    if (w + 1 < words.size()) {
+                        addPosting(positionsByToken, words.get(w) + words.get(w + 1), position);
+                    }
+                }
+            }
+        }
+
+        String[] tokens = positionsByToken.keySet().toArray(new String[0]);
+        int[][] postings = new int[tokens.length][];
+        Map<Integer, List<Integer>> byTrigram = new HashMap<>();
+        for (int t = 0; t < tokens.length; t++) {
+            postings[t] = positionsByToken.get(tokens[t]).stream().mapToInt(Integer::intValue).toArray();
+            for (int trigram : trigrams(tokens[t])) {
+                List<Integer> trigramTokens = byTrigram.computeIfAbsent(trigram, key -> new ArrayList<>());
+                if (trigramTokens.isEmpty() || trigramTokens.get(trigramTokens.size() - 1) != t) {
+                    trigramTokens.add(t);
+                }
+            }
+        }
+        int[][] tokensByTrigram = new int[ALPHABET * ALPHABET * ALPHABET][];
+        byTrigram.forEach((trigram, trigramTokens) ->
+            tokensByTrigram[trigram] = trigramTokens.stream().mapToInt(Integer::intValue).toArray());
+        return new ProblemSearchIndex(tokens, postings, tokensByTrigram, titleLengths);
+    }
+
+    /**
+     * Catalog positions of up to limit best matches for the query, best first.
+     */
+    int[] search(String query, int limit) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty() || titleLengths.length == 0) {
+            return NO_POSTINGS;
+        }
+
+        int problems = titleLengths.length;
+        float[] scores = new float[problems];
+        int[] matched = new int[problems];
+        float[] best = new float[problems];
+        int[] touched = new int[problems];
+        int touchedCount = 0;
+
+        for (String queryToken : queryTokens) {
+            Arrays.fill(best, 0f);
+            int from = lowerBound(queryToken);
+            int to = from;
+            while (to < tokens.length && tokens[to].startsWith(queryToken)) {
+                float score = tokens[to].length() == queryToken.length()
+                    ? 1.0f
+                    : 0.6f + 0.4f * queryToken.length() / tokens[to].length();
+                raise(best, postings[to], score);
+                to++;
+            }
+            if (queryToken.length() >= MIN_FUZZY_LENGTH) {
+                matchTypos(queryToken, from, to, best);
+            }
+            for (int position = 0; position < problems; position++) {
+                if (best[position] > 0f) {
+                    if (matched[position] == 0) {
+                        touched[touchedCount++] = position;
+                    }
+                    matched[position]++;
+                    scores[position] += best[position];
+                }
+            }
+        }
+
+        Integer[] ranked = new Integer[touchedCount];
+        for (int i = 0; i < touchedCount; i++) {
+            ranked[i] = touched[i];
+        }
+        Arrays.sort(ranked, (a, b) -> {
+            if (matched[a] != matched[b]) {
+                return Integer.compare(matched[b], matched[a]);
+            }
+            if (scores[a] != scores[b]) {
+                return Float.compare(scores[b], scores[a]);
+            }
+            if (titleLengths[a] != titleLengths[b]) {
+                return Integer.compare(titleLengths[a], titleLengths[b]);
+            }
+            return Integer.compare(a, b);
+        });
+
+        int[] result = new int[Math.min(limit, ranked.length)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ranked[i];
+        }
+        return result;
+    }
+
+    /**
+     * Scores tokens within one or two edits of the query token, other than the prefix
+     * matches in [prefixFrom, prefixTo). Candidates share at least one trigram with it.
+     */
+    private void matchTypos(String queryToken, int prefixFrom, int prefixTo, float[] best) {
+        int maxEdits = queryToken.length() <= 4 ? 1 : 2;
+        boolean[] checked = new boolean[tokens.length];
+        for (int trigram : trigrams(queryToken)) {
+            int[] candidates = tokensByTrigram[trigram];
+            if (candidates == null) {
+                continue;
+            }
+            for (int t : candidates) {
+                if (checked[t] || (t >= prefixFrom && t < prefixTo)) {
+                    continue;
+                }
+                checked[t] = true;
+                int distance = editDistance(queryToken, tokens[t], maxEdits);
+                if (distance <= maxEdits) {
+                    raise(best, postings[t], distance == 1 ? 0.5f : 0.3f);
+                }
+            }
+        }
+    }
+
+    private int lowerBound(String prefix) {
+        int found = Arrays.binarySearch(tokens, prefix);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    private static void raise(float[] best, int[] positions, float score) {
+        for (int position : positions) {
+            if (best[position] < score) {
+                best[position] = score;
+            }
+        }
+    }
+
+    /**
+     * Edit distance with adjacent transpositions, or maxEdits + 1 once it exceeds maxEdits.
+     */
+    static int editDistance(String a, String b, int maxEdits) {
+        if (Math.abs(a.length() - b.length()) > maxEdits) {
+            return maxEdits + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            row[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(row[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                row[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = row;
+            row = recycled;
+        }
+        return Math.min(previous[b.length()], maxEdits + 1);
+    }
+
+    /**
+     * Lowercase runs of ASCII letters and digits; everything else separates tokens.
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? Character.toLowerCase(text.charAt(i)) : ' ';
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                token.append(c);
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Distinct trigram codes of the token padded as "  token ", so short tokens and
+     * the first letters count.
+     */
+    private static int[] trigrams(String token) {
+        String padded = "  " + token + " ";
+        int[] codes = new int[padded.length() - 2];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = (code(padded.charAt(i)) * ALPHABET + code(padded.charAt(i + 1))) * ALPHABET
+                + code(padded.charAt(i + 2));
+        }
+        return Arrays.stream(codes).distinct().toArray();
+    }
+
+    private static int code(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 27;
+        }
+        return 0;
+    }
+
+    private static void addPosting(Map<String, List<Integer>> positionsByToken, String token, int position) {
+        List<Integer> positions = positionsByToken.computeIfAbsent(token, key -> new ArrayList<>());
+        if (positions.isEmpty() || positions.get(positions.size() - 1) != position) {
+            positions.add(position);
+        }
+    }
+}
@@ -1,72 +1,65 @@
 package com.lanki.service;
 
 import com.lanki.dto.ProblemDTO;
-import com.lanki.model.Problem;
 import com.lanki.model.User;
-import com.lanki.model.UserProgress;
-import com.lanki.repository.ProblemRepository;
-import com.lanki.repository.UserProgressRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProblemService {
 
-    private final ProblemRepository problemRepository;
-    private final UserProgressRepository userProgressRepository;
+    private final ProblemCatalog problemCatalog;
+    private final UserProgressCache userProgressCache;
 
-    @Transactional(readOnly = true)
     public List<ProblemDTO> getAllProblems() {
-        return problemRepository.findAll()
-                .stream()
-                .map(ProblemDTO::fromEntity)
-                .collect(Collectors.toList());
+        return problemCatalog.all();
     }
 
-    @Transactional(readOnly = true)
-    public Map<String, List<ProblemDTO>> getProblemsGroupedByCategory(User user) {
-        List<Problem> problems = problemRepository.findAll();
-        Map<Long, UserProgress> progressMap = userProgressRepository.findByUser(user)
-                .stream()
-                .collect(Collectors.toMap(
-                    up -> up.getProblem().getId(),
-                    up -> up
-                ));
+    /**
+     * Progress status of each problem the user has started, by problem id. Problems
+     * missing from the map are NOT_STARTED. Clients overlay this on the catalog.
+     */
+    public Map<Long, String> getProgressOverlay(User user) {
+        return user != null ? userProgressCache.statuses(user.getId()) : Map.of();
+    }
 
-        return problems.stream()
-                .map(problem -> {
-                    ProblemDTO dto = ProblemDTO.fromEntity(problem);
-                    UserProgress progress = progressMap.get(problem.getId());
-                    if (progress != null) {
-                        dto.setProgressStatus(progress.getStatus().name());
-                    } else {
-                        dto.setProgressStatus("NOT_STARTED");
-                    }
-                    return dto;
-                })
-                .collect(Collectors.groupingBy(ProblemDTO::getCategory));
+    /**
+     * Completed and in-progress counts overall and per category.
+     */
+    public Map<String, Object> getProgressSummary(User user) {
+        if (user == null) {
+            return Map.of();
+        }
+        UserProgressCache.Rollup total = userProgressCache.total(user.getId());
+        return Map.of(
+            "completed", total.completed(),
+            "inProgress", total.inProgress(),
+            "total", total.total(),
+            "categories", userProgressCache.byCategory(user.getId())
+        );
     }
 
-    @Transactional(readOnly = true)
-    public Problem getProblemById(Long id) {
-        return problemRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Problem not found with id: " + id));
+    public ProblemDTO getProblemById(Long id) {
+        ProblemDTO problem = problemCatalog.find(id);
+        if (problem == null) {
+            throw new RuntimeException("Problem not found with id: " + id);
+        }
+        return problem;
     }
 
-    @Transactional(readOnly = true)
-    public Problem getProblemBySlug(String slug) {
-        return problemRepository.findByTitleSlug(slug)
-                .orElseThrow(() -> new RuntimeException("Problem not found with slug: " + slug));
+    public ProblemDTO getProblemBySlug(String slug) {
+        ProblemDTO problem = problemCatalog.findBySlug(slug);
+        if (problem == null) {
+            throw new RuntimeException("Problem not found with slug: " + slug);
+        }
+        return problem;
     }
 
-    @Transactional(readOnly = true)
     public List<String> getAllCategories() {
-        return problemRepository.findAllCategories();
+        return problemCatalog.categories();
     }
 }
@@ -0,0 +1,8 @@
+package com.lanki.service;
+
+/**
+ * One entry of LeetCode's recentAcSubmissionList, as decoded by RecentSubmissionDecoder.
+ * The timestamp stays in epoch seconds; only a matched entry is converted to a LocalDateTime.
+ */
+public record RecentSubmission(String id, String titleSlug, long timestamp, String statusDisplay, String lang) {
+}
@@ -0,0 +1,106 @@
+package com.lanki.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalescing, short-lived cache in front of LeetCodeClient.queryRecentSubmissions.
+ *
+ * Concurrent callers for the same LeetCode username share one in-flight request,
+ * and a successful result is reused for a few seconds, so upstream traffic scales
+ * with distinct accounts rather than with open sessions or tabs. Failures and
+ * responses without a submission list are not cached. The cache is bounded and
+ * evicts the least recently used account.
+ *
+ * Metrics: lanki.leetcode.recent-submissions{result=hit|miss|coalesced}
+ */
+@Component
+public class RecentSubmissionCache {
+
+    private final LeetCodeClient leetCodeClient;
+    private final long ttlMs;
+
+    private final Map<String, CompletableFuture<List<RecentSubmission>>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedResult> results;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    private record CachedResult(List<RecentSubmission> submissions, long expiresAt) {
+    }
+
+    public RecentSubmissionCache(
+            LeetCodeClient leetCodeClient,
+            MeterRegistry meterRegistry,
+            @Value("${lanki.leetcode.cache.ttl-ms:3000}") long ttlMs,
+            @Value("${lanki.leetcode.cache.max-entries:10000}") int maxEntries) {
+        this.leetCodeClient = leetCodeClient;
+        this.ttlMs = ttlMs;
+        this.results = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > maxEntries;
+            }
+        });
+
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+        this.coalesced = counter(meterRegistry, "coalesced");
+        meterRegistry.gaugeMapSize("lanki.leetcode.recent-submissions.cached", List.of(), results);
+        meterRegistry.gaugeMapSize("lanki.leetcode.recent-submissions.in-flight", List.of(), inFlight);
+    }
+
+    /**
+     * Returns the account's recent accepted submissions, from cache when fresh.
+     * The result is keyed by username only; callers must always pass the same limit.
+     */
+    public CompletableFuture<List<RecentSubmission>> get(String username, String sessionToken,
+                                                         String csrfToken, int limit) {
+        CachedResult cached = results.get(username);
+        if (cached != null && cached.expiresAt() > System.currentTimeMillis()) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached.submissions());
+        }
+
+        CompletableFuture<List<RecentSubmission>> promise = new CompletableFuture<>();
+        CompletableFuture<List<RecentSubmission>> existing = inFlight.putIfAbsent(username, promise);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        misses.increment();
+        leetCodeClient.queryRecentSubmissions(username, sessionToken, csrfToken, limit)
+                .whenComplete((submissions, error) -> {
+                    // A null list means LeetCode answered with GraphQL errors; ask again next time
+                    if (error == null && submissions != null) {
+                        results.put(username, new CachedResult(submissions, System.currentTimeMillis() + ttlMs));
+                    }
+                    inFlight.remove(username, promise);
+
+                    if (error != null) {
+                        promise.completeExceptionally(error);
+                    } else {
+                        promise.complete(submissions);
+                    }
+                });
+        return promise;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("lanki.leetcode.recent-submissions")
+                .description("recentAcSubmissionList lookups by cache outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,90 @@
+package com.lanki.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streaming decoder for recentAcSubmissionList responses.
+ *
+ * Walks the body with a JsonParser, keeps only the fields of
+ * data.recentAcSubmissionList[*] and skips everything else, so a response costs
+ * one small record per submission instead of a full JsonNode tree.
+ */
+final class RecentSubmissionDecoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private RecentSubmissionDecoder() {
+    }
+
+    /**
+     * Returns the submissions in response order, or null if the response has no
+     * recentAcSubmissionList (e.g. a GraphQL error).
+     */
+    static List<RecentSubmission> decode(byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken token = parser.nextToken();
+                if (field.equals("data") && token == JsonToken.START_OBJECT) {
+                    return decodeData(parser);
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+
+    private static List<RecentSubmission> decodeData(JsonParser parser) throws IOException {
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            if (field.equals("recentAcSubmissionList") && token == JsonToken.START_ARRAY) {
+                return decodeSubmissions(parser);
+            }
+            parser.skipChildren();
+        }
+        return null;
+    }
+
+    private static List<RecentSubmission> decodeSubmissions(JsonParser parser) throws IOException {
+        List<RecentSubmission> submissions = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String id = null;
+            String titleSlug = null;
+            long timestamp = 0;
+            String statusDisplay = null;
+            String lang = null;
+
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                parser.nextToken();
+                switch (field) {
+                    case "id" -> id = parser.getValueAsString();
+                    case "titleSlug" -> titleSlug = parser.getValueAsString();
+                    // LeetCode sends the timestamp as a string of epoch seconds
+                    case "timestamp" -> timestamp = parser.getValueAsLong();
+                    case "statusDisplay" -> statusDisplay = parser.getValueAsString();
+                    case "lang" -> lang = parser.getValueAsString();
+                    default -> parser.skipChildren();
+                }
+            }
+
+            if (id != null && titleSlug != null) {
+                submissions.add(new RecentSubmission(id, titleSlug, timestamp, statusDisplay, lang));
+            }
+        }
+        // Shared between every session of the account through RecentSubmissionCache
+        return Collections.unmodifiableList(submissions);
+    }
+}
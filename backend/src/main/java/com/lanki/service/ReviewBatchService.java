@@ -0,0 +1,316 @@
+package com.lanki.service;
+
+import com.lanki.dto.ReviewDTO;
+import com.lanki.model.SpacedRepetitionCard;
+import com.lanki.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Applies many reviews of one user at once, e.g. from an offline client or an import.
+ *
+ * Flow:
+ * 1. Load and row-lock every affected card of the user, jdbc-batch-size problems per
+ *    query
+ * 2. Replay the reviews in memory in reviewedAt order (the user's ReviewScheduler,
+ *    then ReviewLoadBalancer)
+ * 3. Write new and changed cards and the review_log rows with JDBC batch inserts
+ *    and updates, in one transaction
+ *
+ * A review older than its card's last review (e.g. an offline client syncing late)
+ * cannot simply be applied on top. Its rows are logged and the card is replayed from
+ * the log in time order (CardReplayService.replayCards) before it is written.
+ *
+ * Cards are read and written through JDBC rather than as managed entities, so
+ * Hibernate neither tracks nor flushes them one by one. They are read FOR UPDATE, as
+ * single reviews read theirs (SpacedRepetitionService.getOrCreateCard), so a review of
+ * the same card during the batch waits for it to commit instead of being overwritten.
+ *
+ * Reviews more than MAX_CLOCK_SKEW in the future are rejected; later ones within it
+ * are taken as reviewed now.
+ */
+@Slf4j
+@Service
+public class ReviewBatchService {
+
+    private static final String SELECT_CARDS_SQL = """
+        SELECT id, problem_id, ease_factor, interval_days, repetitions,
+               next_review_date, last_review_date, last_quality, stability, difficulty
+        FROM spaced_repetition_cards
+        WHERE user_id = :userId AND problem_id IN (:problemIds)
+        ORDER BY problem_id
+        FOR UPDATE
+        """;
+
+    private static final String INSERT_CARD_SQL = """
+        INSERT INTO spaced_repetition_cards (user_id, problem_id, ease_factor, interval_days, repetitions,
+                                             next_review_date, last_review_date, last_quality,
+                                             stability, difficulty)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String UPDATE_CARD_SQL = """
+        UPDATE spaced_repetition_cards
+        SET ease_factor = ?, interval_days = ?, repetitions = ?,
+            next_review_date = ?, last_review_date = ?, last_quality = ?,
+            stability = ?, difficulty = ?
+        WHERE id = ?
+        """;
+
+    // Client clocks run a little ahead of ours
+    private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(5);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReviewSchedulers reviewSchedulers;
+    private final Sm2Scheduler sm2Scheduler;
+    private final ReviewLoadBalancer reviewLoadBalancer;
+    private final ReviewLogService reviewLogService;
+    private final CardReplayService cardReplayService;
+    private final int maxReviews;
+    private final int jdbcBatchSize;
+
+    /**
+     * Outcome of one batch: reviews applied and cards created or updated by them.
+     */
+    public record BatchResult(int reviews, int cardsCreated, int cardsUpdated) {
+    }
+
+    private record Review(long problemId, int quality, LocalDateTime reviewedAt) {
+    }
+
+    private record CardRow(long problemId, SpacedRepetitionCard card) {
+    }
+
+    public ReviewBatchService(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            ApplicationEventPublisher eventPublisher,
+            ReviewSchedulers reviewSchedulers,
+            Sm2Scheduler sm2Scheduler,
+            ReviewLoadBalancer reviewLoadBalancer,
+            ReviewLogService reviewLogService,
+            CardReplayService cardReplayService,
+            @Value("${lanki.reviews.max-batch:10000}") int maxReviews,
+            @Value("${lanki.reviews.jdbc-batch-size:500}") int jdbcBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.reviewSchedulers = reviewSchedulers;
+        this.sm2Scheduler = sm2Scheduler;
+        this.reviewLoadBalancer = reviewLoadBalancer;
+        this.reviewLogService = reviewLogService;
+        this.cardReplayService = cardReplayService;
+        this.maxReviews = maxReviews;
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    @Transactional
+    public BatchResult applyReviews(User user, List<ReviewDTO> reviews) {
+        long start = System.currentTimeMillis();
+        List<Review> ordered = validate(reviews);
+        if (ordered.isEmpty()) {
+            return new BatchResult(0, 0, 0);
+        }
+
+        // Sorted, so concurrent batches of one user lock their cards in the same order
+        SortedSet<Long> problemIds = new TreeSet<>();
+        ordered.forEach(review -> problemIds.add(review.problemId()));
+
+        Map<Long, SpacedRepetitionCard> existing = loadCards(user.getId(), problemIds);
+        Map<Long, SpacedRepetitionCard> created = new HashMap<>();
+        requireProblems(problemIds, existing.keySet());
+        ReviewScheduler scheduler = reviewSchedulers.forUser(user);
+        String parameters = scheduler.parameters(user);
+        List<ReviewLogService.Entry> logEntries = new ArrayList<>(ordered.size());
+        Set<Long> late = new HashSet<>();
+
+        for (Review review : ordered) {
+            SpacedRepetitionCard card = existing.get(review.problemId());
+            if (card != null && card.getLastReviewDate() != null && review.reviewedAt().isBefore(card.getLastReviewDate())) {
+                late.add(review.problemId());
+            }
+            if (card == null) {
+                card = created.computeIfAbsent(review.problemId(), id -> {
+                    SpacedRepetitionCard newCard = new SpacedRepetitionCard();
+                    newCard.setEaseFactor(sm2Scheduler.getInitialEase());
+                    newCard.setNextReviewDate(review.reviewedAt().toLocalDate());
+                    return newCard;
+                });
+            }
+            scheduler.review(parameters, card, review.quality(), review.reviewedAt());
+            reviewLoadBalancer.balance(user, card);
+            logEntries.add(ReviewLogService.Entry.of(user.getId(), review.problemId(), scheduler, parameters, card));
+        }
+
+        reviewLogService.append(logEntries);
+        if (!late.isEmpty()) {
+            replayLateCards(user.getId(), late, existing);
+        }
+        insertCards(user.getId(), created);
+        updateCards(existing);
+        existing.forEach((problemId, card) -> publishCardChange(user.getId(), problemId, card));
+        created.forEach((problemId, card) -> publishCardChange(user.getId(), problemId, card));
+
+        log.info("Applied {} reviews for user {} ({} cards created, {} updated) in {} ms",
+            ordered.size(), user.getId(), created.size(), existing.size(), System.currentTimeMillis() - start);
+        return new BatchResult(ordered.size(), created.size(), existing.size());
+    }
+
+    /**
+     * Rejects the whole batch on the first invalid review and orders the rest by time.
+     */
+    private List<Review> validate(List<ReviewDTO> reviews) {
+        if (reviews.size() > maxReviews) {
+            throw new IllegalArgumentException("At most " + maxReviews + " reviews per batch");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime latest = now.plus(MAX_CLOCK_SKEW);
+        List<Review> ordered = new ArrayList<>(reviews.size());
+        for (ReviewDTO review : reviews) {
+            if (review.getProblemId() == null) {
+                throw new IllegalArgumentException("problemId is required");
+            }
+            if (review.getQuality() == null || review.getQuality() < 0 || review.getQuality() > 5) {
+                throw new IllegalArgumentException("Quality must be between 0 and 5");
+            }
+            LocalDateTime reviewedAt = review.getReviewedAt() != null ? review.getReviewedAt() : now;
+            if (reviewedAt.isAfter(latest)) {
+                throw new IllegalArgumentException("reviewedAt " + reviewedAt + " is in the future");
+            }
+            ordered.add(new Review(review.getProblemId(), review.getQuality(),
+                reviewedAt.isAfter(now) ? now : reviewedAt));
+        }
+        // Stable, so reviews with the same time keep their request order
+        ordered.sort(Comparator.comparing(Review::reviewedAt));
+        return ordered;
+    }
+
+    private Map<Long, SpacedRepetitionCard> loadCards(Long userId, SortedSet<Long> problemIds) {
+        Map<Long, SpacedRepetitionCard> cards = new HashMap<>();
+        for (List<Long> chunk : chunks(new ArrayList<>(problemIds))) {
+            namedJdbcTemplate.query(SELECT_CARDS_SQL, Map.of("userId", userId, "problemIds", chunk),
+                (RowCallbackHandler) rs -> {
+                    SpacedRepetitionCard card = new SpacedRepetitionCard();
+                    card.setId(rs.getLong("id"));
+                    card.setEaseFactor(rs.getDouble("ease_factor"));
+                    card.setInterval(rs.getInt("interval_days"));
+                    card.setRepetitions(rs.getInt("repetitions"));
+                    card.setNextReviewDate(rs.getObject("next_review_date", LocalDate.class));
+                    card.setLastReviewDate(rs.getObject("last_review_date", LocalDateTime.class));
+                    card.setLastQuality(rs.getObject("last_quality", Integer.class));
+                    card.setStability(rs.getObject("stability", Double.class));
+                    card.setDifficulty(rs.getObject("difficulty", Double.class));
+                    cards.put(rs.getLong("problem_id"), card);
+                });
+        }
+        return cards;
+    }
+
+    private List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += jdbcBatchSize) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + jdbcBatchSize)));
+        }
+        return chunks;
+    }
+
+    /**
+     * Replaces the state of cards that got reviews older than their last review with
+     * their state replayed from the log, which now holds this batch's rows too.
+     */
+    private void replayLateCards(Long userId, Set<Long> problemIds, Map<Long, SpacedRepetitionCard> cards) {
+        cardReplayService.replayCards(userId, problemIds).forEach((problemId, replayed) -> {
+            SpacedRepetitionCard card = cards.get(problemId);
+            card.setEaseFactor(replayed.getEaseFactor());
+            card.setInterval(replayed.getInterval());
+            card.setRepetitions(replayed.getRepetitions());
+            card.setNextReviewDate(replayed.getNextReviewDate());
+            card.setLastReviewDate(replayed.getLastReviewDate());
+            card.setLastQuality(replayed.getLastQuality());
+            card.setStability(replayed.getStability());
+            card.setDifficulty(replayed.getDifficulty());
+        });
+        log.info("Replayed {} cards of user {} with reviews older than their last review", problemIds.size(), userId);
+    }
+
+    private void requireProblems(Set<Long> problemIds, Set<Long> withCards) {
+        List<Long> withoutCards = problemIds.stream().filter(id -> !withCards.contains(id)).toList();
+        if (withoutCards.isEmpty()) {
+            return;
+        }
+
+        Set<Long> found = new HashSet<>();
+        for (List<Long> chunk : chunks(withoutCards)) {
+            found.addAll(namedJdbcTemplate.queryForList(
+                "SELECT id FROM problems WHERE id IN (:ids)", Map.of("ids", chunk), Long.class));
+        }
+        for (Long problemId : withoutCards) {
+            if (!found.contains(problemId)) {
+                throw new RuntimeException("Problem not found with id: " + problemId);
+            }
+        }
+    }
+
+    private void insertCards(Long userId, Map<Long, SpacedRepetitionCard> cards) {
+        List<CardRow> rows = cards.entrySet().stream()
+            .map(entry -> new CardRow(entry.getKey(), entry.getValue()))
+            .toList();
+        jdbcTemplate.batchUpdate(INSERT_CARD_SQL, rows, jdbcBatchSize, (ps, row) -> {
+            SpacedRepetitionCard card = row.card();
+            ps.setLong(1, userId);
+            ps.setLong(2, row.problemId());
+            ps.setDouble(3, card.getEaseFactor());
+            ps.setInt(4, card.getInterval());
+            ps.setInt(5, card.getRepetitions());
+            ps.setDate(6, Date.valueOf(card.getNextReviewDate()));
+            ps.setTimestamp(7, Timestamp.valueOf(card.getLastReviewDate()));
+            ps.setInt(8, card.getLastQuality());
+            ps.setObject(9, card.getStability(), Types.DOUBLE);
+            ps.setObject(10, card.getDifficulty(), Types.DOUBLE);
+        });
+    }
+
+    private void updateCards(Map<Long, SpacedRepetitionCard> cards) {
+        jdbcTemplate.batchUpdate(UPDATE_CARD_SQL, cards.values(), jdbcBatchSize, (ps, card) -> {
+            ps.setDouble(1, card.getEaseFactor());
+            ps.setInt(2, card.getInterval());
+            ps.setInt(3, card.getRepetitions());
+            ps.setDate(4, Date.valueOf(card.getNextReviewDate()));
+            ps.setTimestamp(5, Timestamp.valueOf(card.getLastReviewDate()));
+            ps.setInt(6, card.getLastQuality());
+            ps.setObject(7, card.getStability(), Types.DOUBLE);
+            ps.setObject(8, card.getDifficulty(), Types.DOUBLE);
+            ps.setLong(9, card.getId());
+        });
+    }
+
+    private void publishCardChange(Long userId, Long problemId, SpacedRepetitionCard card) {
+        eventPublisher.publishEvent(new DailyQueueService.CardChangedEvent(
+            userId, problemId, card.getNextReviewDate(), card.getLastReviewDate(), card.getRepetitions()));
+    }
+}
@@ -0,0 +1,333 @@
+package com.lanki.service;
+
+import com.lanki.config.SchedulingConfig;
+import com.lanki.dto.ForecastDTO;
+import com.lanki.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Forecasts how many reviews will be due each day by running each card's scheduler
+ * forward: SM-2, or FSRS with the user's weights for users on FSRS.
+ *
+ * Cards are loaded into parallel primitive arrays (ease, interval, repetitions, due
+ * epoch day, plus stability, difficulty and last review day for FSRS) and each card
+ * is replayed independently: on every day it comes due it is reviewed with a
+ * quality drawn from lanki.forecast.quality-weights and rescheduled. Card ranges are simulated in parallel with fork/join and their
+ * per-day histograms summed. Random draws are seeded per range, so the same cards
+ * always give the same forecast.
+ *
+ * Serves per-user forecasts on demand and refreshes an all-users forecast nightly
+ * for capacity planning.
+ */
+@Slf4j
+@Service
+public class ReviewForecastService {
+
+    private static final String CARD_COLUMNS = """
+        SELECT c.ease_factor, c.interval_days, c.repetitions, c.next_review_date, c.last_review_date,
+               c.stability, c.difficulty, u.scheduler, u.fsrs_weights
+        FROM spaced_repetition_cards c
+        JOIN users u ON u.id = c.user_id
+        """;
+    private static final String USER_CARDS_SQL = CARD_COLUMNS + " WHERE c.user_id = ?";
+    private static final String ALL_CARDS_SQL = CARD_COLUMNS;
+
+    // Cards per fork/join leaf; small enough to balance, large enough to amortize the split
+    private static final int LEAF_CARDS = 4096;
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Sm2Scheduler sm2;
+    private final FsrsScheduler fsrs;
+    private final ForkJoinPool pool;
+    private final int maxDays;
+    private final int globalDays;
+    private final double[] qualityCdf;
+
+    private volatile ForecastDTO globalForecast;
+
+    public ReviewForecastService(
+            JdbcTemplate jdbcTemplate,
+            Sm2Scheduler sm2,
+            FsrsScheduler fsrs,
+            @Value("${lanki.forecast.parallelism:4}") int parallelism,
+            @Value("${lanki.forecast.max-days:365}") int maxDays,
+            @Value("${lanki.forecast.global-days:90}") int globalDays,
+            @Value("${lanki.forecast.quality-weights:2,3,5,15,45,30}") double[] qualityWeights) {
+        if (qualityWeights.length != 6) {
+            throw new IllegalArgumentException("lanki.forecast.quality-weights needs one weight per quality 0-5");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.sm2 = sm2;
+        this.fsrs = fsrs;
+        this.pool = new ForkJoinPool(parallelism);
+        this.maxDays = maxDays;
+        this.globalDays = globalDays;
+        this.qualityCdf = cumulative(qualityWeights);
+    }
+
+    /**
+     * Reviews due per day over the next days for one user's cards.
+     */
+    public ForecastDTO forecastForUser(Long userId, int days) {
+        if (days < 1 || days > maxDays) {
+            throw new IllegalArgumentException("days must be between 1 and " + maxDays);
+        }
+        Cards cards = new Cards();
+        jdbcTemplate.query(USER_CARDS_SQL, (RowCallbackHandler) cards::add, userId);
+        return simulate(cards, LocalDate.now(), days);
+    }
+
+    /**
+     * Latest all-users forecast, computed on first use and then nightly.
+     */
+    public ForecastDTO getGlobalForecast() {
+        ForecastDTO forecast = globalForecast;
+        return forecast != null ? forecast : refreshGlobalForecast();
+    }
+
+    @Scheduled(cron = "${lanki.forecast.global-cron:0 15 0 * * *}", scheduler = SchedulingConfig.BATCH_JOB_SCHEDULER)
+    public ForecastDTO refreshGlobalForecast() {
+        long start = System.currentTimeMillis();
+        Cards cards = new Cards();
+        jdbcTemplate.query(ALL_CARDS_SQL, (RowCallbackHandler) cards::add);
+        long loaded = System.currentTimeMillis();
+
+        ForecastDTO forecast = simulate(cards, LocalDate.now(), globalDays);
+        globalForecast = forecast;
+        log.info("Forecast {} days for {} cards: loaded in {} ms, simulated {} reviews in {} ms",
+            globalDays, cards.size, loaded - start, forecast.getSimulatedReviews(), System.currentTimeMillis() - loaded);
+        return forecast;
+    }
+
+    ForecastDTO simulate(Cards cards, LocalDate startDate, int days) {
+        int[] histogram = pool.invoke(new SimulationTask(sm2, fsrs, cards, 0, cards.size, startDate.toEpochDay(), days, qualityCdf));
+        long reviews = Arrays.stream(histogram).asLongStream().sum();
+        return new ForecastDTO(startDate, histogram, cards.size, reviews);
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double total = Arrays.stream(weights).sum();
+        double[] cdf = new double[weights.length];
+        double running = 0;
+        for (int i = 0; i < weights.length; i++) {
+            running += weights[i] / total;
+            cdf[i] = running;
+        }
+        cdf[cdf.length - 1] = 1.0;
+        return cdf;
+    }
+
+    /**
+     * Replays cards[from, to) and returns reviews per day.
+     */
+    private static class SimulationTask extends RecursiveTask<int[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Sm2Scheduler sm2;
+        private final FsrsScheduler fsrs;
+        private final Cards cards;
+        private final int from;
+        private final int to;
+        private final long startDay;
+        private final int days;
+        private final double[] qualityCdf;
+
+        SimulationTask(Sm2Scheduler sm2, FsrsScheduler fsrs, Cards cards, int from, int to,
+                       long startDay, int days, double[] qualityCdf) {
+            this.sm2 = sm2;
+            this.fsrs = fsrs;
+            this.cards = cards;
+            this.from = from;
+            this.to = to;
+            this.startDay = startDay;
+            this.days = days;
+            this.qualityCdf = qualityCdf;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from > LEAF_CARDS) {
+                int mid = (from + to) >>> 1;
+                SimulationTask left = new SimulationTask(sm2, fsrs, cards, from, mid, startDay, days, qualityCdf);
+                left.fork();
+                int[] right = new SimulationTask(sm2, fsrs, cards, mid, to, startDay, days, qualityCdf).compute();
+                int[] histogram = left.join();
+                for (int i = 0; i < days; i++) {
+                    histogram[i] += right[i];
+                }
+                return histogram;
+            }
+
+            int[] histogram = new int[days];
+            SplittableRandom random = new SplittableRandom(SEED ^ (from * 0x9E3779B97F4A7C15L));
+            long endDay = startDay + days;
+
+            for (int c = from; c < to; c++) {
+                if (cards.weights[c] < 0) {
+                    simulateSm2(c, histogram, random, endDay);
+                } else {
+                    simulateFsrs(c, histogram, random, endDay);
+                }
+            }
+            return histogram;
+        }
+
+        private void simulateSm2(int c, int[] histogram, SplittableRandom random, long endDay) {
+            double ease = cards.ease[c];
+            int interval = cards.interval[c];
+            int repetitions = cards.repetitions[c];
+            // Overdue cards are reviewed on the first day
+            long day = Math.max(cards.dueDay[c], startDay);
+
+            while (day < endDay) {
+                histogram[(int) (day - startDay)]++;
+                int quality = drawQuality(random);
+
+                interval = sm2.nextInterval(interval, repetitions, ease, quality);
+                repetitions = quality >= 3 ? repetitions + 1 : 0;
+                ease = sm2.nextEase(ease, quality);
+                day += interval;
+            }
+        }
+
+        /**
+         * Same steps as FsrsScheduler.review, on primitives.
+         */
+        private void simulateFsrs(int c, int[] histogram, SplittableRandom random, long endDay) {
+            double[] w = cards.weightSets.get(cards.weights[c]);
+            double stability = cards.stability[c];
+            double difficulty = cards.difficulty[c];
+            long lastDay = cards.lastDay[c];
+            long day = Math.max(cards.dueDay[c], startDay);
+
+            while (day < endDay) {
+                histogram[(int) (day - startDay)]++;
+                int grade = FsrsScheduler.grade(drawQuality(random));
+
+                if (lastDay == Cards.NEVER) {
+                    stability = FsrsScheduler.initialStability(w, grade);
+                    difficulty = FsrsScheduler.initialDifficulty(w, grade);
+                } else {
+                    double recall = FsrsScheduler.retrievability(day - lastDay, stability);
+                    stability = FsrsScheduler.nextStability(w, difficulty, stability, recall, grade);
+                    difficulty = FsrsScheduler.nextDifficulty(w, difficulty, grade);
+                }
+                lastDay = day;
+                day += fsrs.nextInterval(stability);
+            }
+        }
+
+        private int drawQuality(SplittableRandom random) {
+            double roll = random.nextDouble();
+            int quality = 0;
+            while (roll >= qualityCdf[quality]) {
+                quality++;
+            }
+            return quality;
+        }
+    }
+
+    /**
+     * Card state as parallel primitive arrays. weights is -1 for cards of SM-2 users,
+     * otherwise the index in weightSets of their user's FSRS weights.
+     */
+    static class Cards {
+
+        static final long NEVER = Long.MIN_VALUE;
+
+        double[] ease = new double[256];
+        int[] interval = new int[256];
+        int[] repetitions = new int[256];
+        long[] dueDay = new long[256];
+        double[] stability = new double[256];
+        double[] difficulty = new double[256];
+        long[] lastDay = new long[256];
+        int[] weights = new int[256];
+        int size;
+
+        final List<double[]> weightSets = new ArrayList<>();
+        // Users' fsrs_weights text to its weightSets index; null is the defaults
+        private final Map<String, Integer> weightIndex = new HashMap<>();
+
+        void add(ResultSet rs) throws SQLException {
+            double cardEase = rs.getDouble("ease_factor");
+            int cardInterval = rs.getInt("interval_days");
+            long cardDueDay = rs.getObject("next_review_date", LocalDate.class).toEpochDay();
+            if (User.Scheduler.valueOf(rs.getString("scheduler")) != User.Scheduler.FSRS) {
+                add(cardEase, cardInterval, rs.getInt("repetitions"), cardDueDay);
+                return;
+            }
+
+            LocalDateTime lastReview = rs.getObject("last_review_date", LocalDateTime.class);
+            Double cardStability = rs.getObject("stability", Double.class);
+            Double cardDifficulty = rs.getObject("difficulty", Double.class);
+            // Cards coming over from SM-2 start the way FsrsScheduler.review starts them
+            addFsrs(weightsIndex(rs.getString("fsrs_weights")),
+                cardStability != null ? cardStability : Math.max(cardInterval, 0.1),
+                cardDifficulty != null ? cardDifficulty : FsrsScheduler.difficultyFromEase(cardEase),
+                lastReview != null ? lastReview.toLocalDate().toEpochDay() : NEVER,
+                cardDueDay);
+        }
+
+        void add(double cardEase, int cardInterval, int cardRepetitions, long cardDueDay) {
+            grow();
+            ease[size] = cardEase;
+            interval[size] = cardInterval;
+            repetitions[size] = cardRepetitions;
+            dueDay[size] = cardDueDay;
+            weights[size] = -1;
+            size++;
+        }
+
+        void addFsrs(int weightSet, double cardStability, double cardDifficulty, long cardLastDay, long cardDueDay) {
+            grow();
+            stability[size] = cardStability;
+            difficulty[size] = cardDifficulty;
+            lastDay[size] = cardLastDay;
+            dueDay[size] = cardDueDay;
+            weights[size] = weightSet;
+            size++;
+        }
+
+        int weightsIndex(String fsrsWeights) {
+            return weightIndex.computeIfAbsent(fsrsWeights, text -> {
+                weightSets.add(text != null ? FsrsScheduler.parseWeights(text) : FsrsScheduler.DEFAULT_WEIGHTS);
+                return weightSets.size() - 1;
+            });
+        }
+
+        private void grow() {
+            if (size == ease.length) {
+                int capacity = size * 2;
+                ease = Arrays.copyOf(ease, capacity);
+                interval = Arrays.copyOf(interval, capacity);
+                repetitions = Arrays.copyOf(repetitions, capacity);
+                dueDay = Arrays.copyOf(dueDay, capacity);
+                stability = Arrays.copyOf(stability, capacity);
+                difficulty = Arrays.copyOf(difficulty, capacity);
+                lastDay = Arrays.copyOf(lastDay, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.lanki.service;
+
+import com.lanki.model.SpacedRepetitionCard;
+import com.lanki.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Spreads SM-2 due dates so cards reviewed together do not all come due together.
+ *
+ * For users with balanceReviewLoad on, a freshly reviewed card may move within
+ * a fuzz window of +/- fuzz-factor of its interval (at most max-fuzz-days, none
+ * below 3 days). It goes to the day in that window where the user already has
+ * the fewest cards due (from CardDueIndex), with ties picked at random.
+ */
+@Component
+public class ReviewLoadBalancer {
+
+    private static final int MIN_FUZZED_INTERVAL = 3;
+
+    private final CardDueIndex cardDueIndex;
+    private final double fuzzFactor;
+    private final int maxFuzzDays;
+
+    public ReviewLoadBalancer(
+            CardDueIndex cardDueIndex,
+            @Value("${lanki.reviews.balance.fuzz-factor:0.1}") double fuzzFactor,
+            @Value("${lanki.reviews.balance.max-fuzz-days:7}") int maxFuzzDays) {
+        this.cardDueIndex = cardDueIndex;
+        this.fuzzFactor = fuzzFactor;
+        this.maxFuzzDays = maxFuzzDays;
+    }
+
+    /**
+     * Moves a just-reviewed card's next review to the least loaded day of its window.
+     * Does nothing unless the user has balancing on.
+     */
+    public void balance(User user, SpacedRepetitionCard card) {
+        if (!Boolean.TRUE.equals(user.getBalanceReviewLoad())) {
+            return;
+        }
+        int fuzz = fuzzDays(card.getInterval());
+        if (fuzz == 0) {
+            return;
+        }
+
+        LocalDate reviewDay = card.getLastReviewDate().toLocalDate();
+        int[] dueCounts = cardDueIndex.countDueByDay(
+            user.getId(), reviewDay.plusDays(card.getInterval() - fuzz), 2 * fuzz + 1);
+        int interval = balancedInterval(card.getInterval(), dueCounts, ThreadLocalRandom.current());
+
+        card.setInterval(interval);
+        card.setNextReviewDate(reviewDay.plusDays(interval));
+    }
+
+    /**
+     * Days a due date may move either way for the given interval.
+     */
+    public int fuzzDays(int interval) {
+        if (interval < MIN_FUZZED_INTERVAL) {
+            return 0;
+        }
+        return (int) Math.min(maxFuzzDays, Math.max(1, Math.round(interval * fuzzFactor)));
+    }
+
+    /**
+     * Interval within the fuzz window whose due day has the fewest cards, ties at random.
+     *
+     * @param dueCounts cards due on each day of the window, starting at interval - fuzzDays(interval)
+     */
+    public int balancedInterval(int interval, int[] dueCounts, RandomGenerator random) {
+        int fuzz = fuzzDays(interval);
+        int best = 0;
+        int ties = 0;
+        for (int offset = 0; offset < dueCounts.length; offset++) {
+            if (dueCounts[offset] < dueCounts[best]) {
+                best = offset;
+                ties = 1;
+            } else if (dueCounts[offset] == dueCounts[best] && random.nextInt(++ties) == 0) {
+                // Reservoir sampling keeps each tied day equally likely
+                best = offset;
+            }
+        }
+        return interval - fuzz + best;
+    }
+}
@@ -0,0 +1,67 @@
+package com.lanki.service;
+
+import com.lanki.model.SpacedRepetitionCard;
+import com.lanki.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Appends reviews to review_log, in the same transaction as the card update.
+ *
+ * Appends are plain inserts, so concurrent reviews never wait on each other's
+ * log rows, and the batch path writes all its rows with JDBC batches.
+ */
+@Service
+public class ReviewLogService {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO review_log (user_id, problem_id, quality, reviewed_at, scheduler, scheduler_version,
+                                parameters, interval_days)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int jdbcBatchSize;
+
+    /**
+     * A review as logged, taken from the card right after it was rescheduled with parameters.
+     */
+    public record Entry(long userId, long problemId, int quality, LocalDateTime reviewedAt,
+                        User.Scheduler scheduler, int schedulerVersion, String parameters, int interval) {
+
+        public static Entry of(Long userId, Long problemId, ReviewScheduler scheduler, String parameters,
+                               SpacedRepetitionCard card) {
+            return new Entry(userId, problemId, card.getLastQuality(), card.getLastReviewDate(),
+                scheduler.type(), scheduler.version(), parameters, card.getInterval());
+        }
+    }
+
+    public ReviewLogService(
+            JdbcTemplate jdbcTemplate,
+            @Value("${lanki.reviews.jdbc-batch-size:500}") int jdbcBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    public void append(Entry entry) {
+        append(List.of(entry));
+    }
+
+    public void append(List<Entry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, jdbcBatchSize, (ps, entry) -> {
+            ps.setLong(1, entry.userId());
+            ps.setLong(2, entry.problemId());
+            ps.setInt(3, entry.quality());
+            ps.setTimestamp(4, Timestamp.valueOf(entry.reviewedAt()));
+            ps.setString(5, entry.scheduler().name());
+            ps.setInt(6, entry.schedulerVersion());
+            ps.setString(7, entry.parameters());
+            ps.setInt(8, entry.interval());
+        });
+    }
+}
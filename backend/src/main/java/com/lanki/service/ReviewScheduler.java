@@ -0,0 +1,39 @@
+package com.lanki.service;
+
+import com.lanki.model.SpacedRepetitionCard;
+import com.lanki.model.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reschedules a card after a review. One implementation per User.Scheduler.
+ */
+public interface ReviewScheduler {
+
+    User.Scheduler type();
+
+    /**
+     * Version of the scheduling rules, stored with each review_log row. Bump it when
+     * the rules change, so replay recomputes intervals logged under the old rules.
+     */
+    int version();
+
+    /**
+     * Configuration and per-user weights a review of this user runs with, as text.
+     * Stored with each review_log row, so replay uses the parameters the review had.
+     * A null user gives the configured defaults.
+     */
+    String parameters(User user);
+
+    /**
+     * Updates the card's scheduling state, next review date, last review date and last quality.
+     *
+     * @param parameters a value returned by parameters(User), possibly by an earlier configuration
+     * @param quality review quality 0-5 (see Interview.toSM2Quality)
+     */
+    void review(String parameters, SpacedRepetitionCard card, int quality, LocalDateTime reviewedAt);
+
+    default void review(User user, SpacedRepetitionCard card, int quality, LocalDateTime reviewedAt) {
+        review(parameters(user), card, quality, reviewedAt);
+    }
+}
@@ -0,0 +1,45 @@
+package com.lanki.service;
+
+import com.lanki.model.User;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Routes each review to the scheduler the user has chosen (SM-2 unless set).
+ */
+@Component
+public class ReviewSchedulers {
+
+    private final Map<User.Scheduler, ReviewScheduler> schedulers = new EnumMap<>(User.Scheduler.class);
+
+    public ReviewSchedulers(List<ReviewScheduler> schedulers) {
+        schedulers.forEach(scheduler -> this.schedulers.put(scheduler.type(), scheduler));
+        for (User.Scheduler type : User.Scheduler.values()) {
+            if (!this.schedulers.containsKey(type)) {
+                throw new IllegalStateException("No ReviewScheduler for " + type);
+            }
+        }
+    }
+
+    public ReviewScheduler forUser(User user) {
+        return get(user.getScheduler() != null ? user.getScheduler() : User.Scheduler.SM2);
+    }
+
+    public ReviewScheduler get(User.Scheduler type) {
+        return schedulers.get(type);
+    }
+
+    /**
+     * Version and default parameters of all schedulers, e.g. "SM2:1:2.5,1.3,6|FSRS:2:0.9;36500;...".
+     * Snapshots taken under other rules or configuration are not reused.
+     */
+    public String rulesVersion() {
+        return schedulers.values().stream()
+            .map(scheduler -> scheduler.type() + ":" + scheduler.version() + ":" + scheduler.parameters(null))
+            .collect(Collectors.joining("|"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.lanki.service;
+
+import com.lanki.repository.SubmissionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Answers "have we already stored this LeetCode submission ID?" without a query
+ * on the common path.
+ *
+ * A Bloom filter holds every stored ID. It never gives false negatives, so a
+ * "no" is final and skips the database; only a "maybe" is confirmed against
+ * the unique submissions.leetcode_submission_id index. The filter is warmed from
+ * the table at startup and, until then, every lookup goes to the database.
+ *
+ * Metrics: lanki.submissions.seen-index{result=negative|confirmed|false-positive}
+ */
+@Slf4j
+@Component
+public class SeenSubmissionIndex {
+
+    private final SubmissionRepository submissionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long expectedIds;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLong added = new AtomicLong();
+    private volatile boolean ready;
+
+    private final Counter negatives;
+    private final Counter confirmed;
+    private final Counter falsePositives;
+
+    public SeenSubmissionIndex(
+            SubmissionRepository submissionRepository,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${lanki.submissions.seen-index.expected-ids:1000000}") long expectedIds,
+            @Value("${lanki.submissions.seen-index.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.submissionRepository = submissionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.expectedIds = expectedIds;
+
+        // Standard Bloom filter sizing for n entries at false-positive rate p
+        long optimalBits = (long) Math.ceil(-expectedIds * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((optimalBits + 63) / 64));
+        this.bitCount = bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedIds * Math.log(2)));
+
+        this.negatives = resultCounter(meterRegistry, "negative");
+        this.confirmed = resultCounter(meterRegistry, "confirmed");
+        this.falsePositives = resultCounter(meterRegistry, "false-positive");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        jdbcTemplate.query(
+            "SELECT leetcode_submission_id FROM submissions WHERE leetcode_submission_id IS NOT NULL",
+            (RowCallbackHandler) rs -> markSeen(rs.getString(1)));
+        ready = true;
+        log.info("Seen-submission index warmed with {} IDs in {} ms",
+            added.get(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * True if a submission with this LeetCode ID is already stored.
+     */
+    public boolean isSeen(String leetcodeSubmissionId) {
+        if (ready && !mightContain(leetcodeSubmissionId)) {
+            negatives.increment();
+            return false;
+        }
+
+        boolean exists = submissionRepository.existsByLeetcodeSubmissionId(leetcodeSubmissionId);
+        (exists ? confirmed : falsePositives).increment();
+        return exists;
+    }
+
+    /**
+     * Records an ID as stored. Calling this for an ID that ends up not stored
+     * (e.g. rolled back) only costs one extra database check later.
+     */
+    public void markSeen(String leetcodeSubmissionId) {
+        long[] hashes = hashes(leetcodeSubmissionId);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hashes[0] + i * hashes[1], bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << (bit & 63);
+            long current;
+            while (((current = bits.get(word)) & mask) == 0
+                    && !bits.compareAndSet(word, current, current | mask)) {
+                // Retry until this bit is set
+            }
+        }
+
+        if (added.incrementAndGet() == expectedIds) {
+            log.warn("Seen-submission index reached its expected {} IDs; false positives will rise", expectedIds);
+        }
+    }
+
+    private boolean mightContain(String leetcodeSubmissionId) {
+        long[] hashes = hashes(leetcodeSubmissionId);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hashes[0] + i * hashes[1], bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Two independent 64-bit FNV-1a style hashes combined by double hashing.
+     */
+    private static long[] hashes(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        long h1 = 0xcbf29ce484222325L;
+        long h2 = 0x84222325cbf29ce4L;
+        for (byte b : bytes) {
+            h1 = (h1 ^ b) * 0x100000001b3L;
+            h2 = (h2 ^ b) * 0x9E3779B97F4A7C15L;
+        }
+        return new long[] {h1, h2 | 1};
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("lanki.submissions.seen-index")
+                .description("Seen-submission lookups by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,138 @@
+package com.lanki.service;
+
+import com.lanki.dto.SessionDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes session state changes to clients over Server-Sent Events.
+ *
+ * Emitters run on servlet async support, so an idle connection holds no request
+ * thread; it is only an entry in this registry until the next event or heartbeat.
+ * Every new connection first receives the current state, which makes a browser
+ * reconnect (EventSource retries automatically) catch up on anything it missed.
+ */
+@Slf4j
+@Service
+public class SessionEventService {
+
+    private static final String SESSION_EVENT = "session";
+
+    @Value("${lanki.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${lanki.sse.retry-ms:3000}")
+    private long retryMs;
+
+    // Subscriptions keyed by user ID
+    private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    /**
+     * Published by SessionService when a session is completed or abandoned.
+     */
+    public record SessionStatusChangedEvent(Long userId, SessionDTO session) {
+    }
+
+    /**
+     * A client stream: a single session when sessionId is set, otherwise all of the user's sessions.
+     */
+    private record Subscription(SseEmitter emitter, Long sessionId) {
+
+        boolean accepts(SessionDTO session) {
+            return sessionId == null || sessionId.equals(session.getId());
+        }
+    }
+
+    /**
+     * Opens a stream for the user and sends the current state of the given sessions.
+     *
+     * @param sessionId session to follow, or null for all of the user's sessions
+     */
+    public SseEmitter subscribe(Long userId, Long sessionId, List<SessionDTO> currentState) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscription subscription = new Subscription(emitter, sessionId);
+
+        subscriptions.compute(userId, (id, userSubscriptions) -> {
+            Set<Subscription> updated = userSubscriptions != null ? userSubscriptions : ConcurrentHashMap.newKeySet();
+            updated.add(subscription);
+            return updated;
+        });
+
+        emitter.onCompletion(() -> unsubscribe(userId, subscription));
+        emitter.onTimeout(() -> unsubscribe(userId, subscription));
+        emitter.onError(e -> unsubscribe(userId, subscription));
+
+        for (SessionDTO session : currentState) {
+            send(userId, subscription, session);
+        }
+        return emitter;
+    }
+
+    /**
+     * Sends the new session state to the user's open streams once the change is committed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionStatusChanged(SessionStatusChangedEvent event) {
+        Set<Subscription> userSubscriptions = subscriptions.get(event.userId());
+        if (userSubscriptions == null) {
+            return;
+        }
+
+        for (Subscription subscription : userSubscriptions) {
+            if (subscription.accepts(event.session())) {
+                send(event.userId(), subscription, event.session());
+            }
+        }
+    }
+
+    /**
+     * Keeps idle connections open through proxies and detects closed clients.
+     */
+    @Scheduled(fixedRateString = "${lanki.sse.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        subscriptions.forEach((userId, userSubscriptions) -> {
+            for (Subscription subscription : userSubscriptions) {
+                try {
+                    subscription.emitter().send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    unsubscribe(userId, subscription);
+                }
+            }
+        });
+    }
+
+    private void send(Long userId, Subscription subscription, SessionDTO session) {
+        try {
+            subscription.emitter().send(SseEmitter.event()
+                .id(session.getId() + ":" + session.getStatus())
+                .name(SESSION_EVENT)
+                .reconnectTime(retryMs)
+                .data(session));
+
+            // A single-session stream has nothing left to report once the session is finished
+            if (subscription.sessionId() != null && !"ACTIVE".equals(session.getStatus())) {
+                subscription.emitter().complete();
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping SSE subscription for user {}: {}", userId, e.getMessage());
+            unsubscribe(userId, subscription);
+        }
+    }
+
+    private void unsubscribe(Long userId, Subscription subscription) {
+        subscriptions.computeIfPresent(userId, (id, userSubscriptions) -> {
+            userSubscriptions.remove(subscription);
+            return userSubscriptions.isEmpty() ? null : userSubscriptions;
+        });
+    }
+}
@@ -1,5 +1,6 @@
 package com.lanki.service;
 
+import com.lanki.dto.ProblemDTO;
 import com.lanki.dto.SessionDTO;
 import com.lanki.dto.SubmissionDTO;
 import com.lanki.model.*;
@@ -8,18 +9,29 @@ import com.lanki.repository.ProblemSessionRepository;
 import com.lanki.repository.SubmissionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Manages problem-solving sessions.
  * Key flow:
  * 1. User starts session → creates ProblemSession record
- * 2. Frontend polls checkForSubmission() every 5 seconds
+ * 2. SubmissionPoller fetches LeetCode once per account and calls completeSessions()
  * 3. When submission detected → completes session with elapsed time
+ * 4. Frontend reads the stored state through checkForSubmission()
+ *
+ * Active sessions are also kept in ActiveSessionRegistry: duplicate starts and checks
+ * of active sessions are answered from it, and every state change is written to the
+ * table and the registry under the user's registry lock. Those methods run their own
+ * transactions (TransactionTemplate) so the lock is held until after the commit.
  */
 @Slf4j
 @Service
@@ -29,82 +41,146 @@ public class SessionService {
     private final ProblemSessionRepository sessionRepository;
     private final ProblemRepository problemRepository;
     private final SubmissionRepository submissionRepository;
-    private final LeetCodeService leetCodeService;
     private final UserProgressService userProgressService;
+    private final PollCadenceService pollCadenceService;
+    private final LeetCodeThrottle leetCodeThrottle;
+    private final SeenSubmissionIndex seenSubmissionIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ActiveSessionRegistry activeSessions;
+    private final ProblemCatalog problemCatalog;
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * Starts a new problem session.
      * Called when user clicks "Yes, start problem" in the modal.
      */
-    @Transactional
     public SessionDTO startSession(User user, Long problemId) {
-        Problem problem = problemRepository.findById(problemId)
-                .orElseThrow(() -> new RuntimeException("Problem not found"));
+        ProblemDTO problem = problemCatalog.find(problemId);
+        if (problem == null) {
+            throw new RuntimeException("Problem not found");
+        }
 
-        // Check if there's already an active session for this problem
-        List<ProblemSession> activeSessions = sessionRepository.findActiveSessionsByUserId(user.getId());
-        for (ProblemSession session : activeSessions) {
-            if (session.getProblem().getId().equals(problemId)) {
+        return activeSessions.withUserLock(user.getId(), () -> {
+            // Check if there's already an active session for this problem
+            ActiveSessionRegistry.ActiveSession existing = activeSessions.isReady()
+                ? activeSessions.find(user.getId(), problemId)
+                : findActiveInTable(user.getId(), problemId);
+            if (existing != null) {
                 log.warn("User {} already has an active session for problem {}", user.getId(), problemId);
-                return toDTO(session);
+                return toDTO(existing);
             }
-        }
 
-        ProblemSession session = new ProblemSession();
-        session.setUser(user);
-        session.setProblem(problem);
-        session.setStartedAt(LocalDateTime.now());
-        session.setStatus(ProblemSession.SessionStatus.ACTIVE);
+            ActiveSessionRegistry.ActiveSession started = transactionTemplate.execute(status -> {
+                ProblemSession session = new ProblemSession();
+                session.setUser(user);
+                session.setProblem(problemRepository.getReferenceById(problemId));
+                session.setStartedAt(LocalDateTime.now());
+                session.setStatus(ProblemSession.SessionStatus.ACTIVE);
 
-        session = sessionRepository.save(session);
+                session = sessionRepository.save(session);
 
-        // Update user progress
-        userProgressService.markAsInProgress(user, problem);
+                // Update user progress
+                userProgressService.markAsInProgress(user, session.getProblem());
 
-        log.info("Started session {} for user {} on problem {}", session.getId(), user.getId(), problemId);
-        return toDTO(session);
+                return new ActiveSessionRegistry.ActiveSession(session.getId(), user.getId(), problemId,
+                    problem.getTitle(), Problem.Difficulty.valueOf(problem.getDifficulty()), session.getStartedAt());
+            });
+            activeSessions.register(started);
+
+            log.info("Started session {} for user {} on problem {}", started.id(), user.getId(), problemId);
+            return toDTO(started);
+        });
+    }
+
+    private ActiveSessionRegistry.ActiveSession findActiveInTable(Long userId, Long problemId) {
+        for (ProblemSession session : sessionRepository.findActiveSessionsByUserId(userId)) {
+            if (session.getProblem().getId().equals(problemId)) {
+                return ActiveSessionRegistry.ActiveSession.of(session);
+            }
+        }
+        return null;
     }
 
     /**
-     * Checks for submission on LeetCode for an active session.
-     * Called by frontend every 5 seconds.
-     * Returns null if no submission found, or SubmissionDTO if detected.
+     * Returns the current state of a session.
+     * Submission detection is done by SubmissionPoller, so this only reads the
+     * state the poller last wrote and never calls LeetCode. Active sessions are answered
+     * from ActiveSessionRegistry, others from the table.
      */
-    @Transactional
     public SessionDTO checkForSubmission(User user, Long sessionId) {
-        ProblemSession session = sessionRepository.findByIdAndUser(sessionId, user)
-                .orElseThrow(() -> new RuntimeException("Session not found"));
-
-        if (session.getStatus() != ProblemSession.SessionStatus.ACTIVE) {
-            // Session already completed or abandoned
-            return toDTO(session);
+        ActiveSessionRegistry.ActiveSession active = activeSessions.get(sessionId);
+        if (active != null && active.userId().equals(user.getId())) {
+            return toDTO(active);
         }
+        return transactionTemplate.execute(status -> toDTO(sessionRepository.findByIdAndUser(sessionId, user)
+                .orElseThrow(() -> new RuntimeException("Session not found"))));
+    }
+
+    /**
+     * Completes every session the poller matched a submission for.
+     * Sessions that were completed or abandoned since the poll started are skipped.
+     * Fails with DataIntegrityViolationException if a submission was already stored
+     * by a concurrent poll (unique LeetCode submission ID).
+     *
+     * @param detected submissions keyed by session ID, each with its user set
+     * @return IDs of the sessions that were completed
+     */
+    public List<Long> completeSessions(Map<Long, Submission> detected) {
+        List<Long> userIds = detected.values().stream()
+            .map(submission -> submission.getUser() != null ? submission.getUser().getId() : null)
+            .distinct()
+            .toList();
+        return activeSessions.withUserLocks(userIds, () -> {
+            List<ActiveSessionRegistry.ActiveSession> unregistered = detected.keySet().stream()
+                .map(activeSessions::unregister)
+                .filter(Objects::nonNull)
+                .toList();
+            try {
+                return transactionTemplate.execute(status -> completeInTransaction(detected));
+            } catch (RuntimeException e) {
+                unregistered.forEach(activeSessions::register);
+                throw e;
+            }
+        });
+    }
+
+    private List<Long> completeInTransaction(Map<Long, Submission> detected) {
+        List<ProblemSession> sessions = sessionRepository.findAllById(detected.keySet());
+        List<Submission> submissions = new ArrayList<>();
+        List<ProblemSession> completed = new ArrayList<>();
 
-        // Check LeetCode for new submission
-        Submission newSubmission = leetCodeService.checkForNewSubmission(
-            user,
-            session.getProblem(),
-            session.getStartedAt()
-        );
+        for (ProblemSession session : sessions) {
+            if (session.getStatus() != ProblemSession.SessionStatus.ACTIVE) {
+                continue;
+            }
+
+            Submission submission = detected.get(session.getId());
+            submission.setUser(session.getUser());
+            submission.setProblem(session.getProblem());
+            submission.setSession(session);
+            session.complete(submission);
 
-        if (newSubmission != null) {
-            // Submission detected! Complete the session
-            newSubmission.setSession(session);
-            newSubmission = submissionRepository.save(newSubmission);
+            submissions.add(submission);
+            completed.add(session);
+        }
 
-            session.complete(newSubmission);
-            sessionRepository.save(session);
+        submissionRepository.saveAll(submissions);
+        sessionRepository.saveAll(completed);
+        submissions.forEach(submission -> seenSubmissionIndex.markSeen(submission.getLeetcodeSubmissionId()));
 
+        for (ProblemSession session : completed) {
             // Update user progress
-            if ("Accepted".equals(newSubmission.getStatus())) {
-                userProgressService.markAsCompleted(user, session.getProblem());
+            if ("Accepted".equals(session.getSubmission().getStatus())) {
+                userProgressService.markAsCompleted(session.getUser(), session.getProblem());
             }
 
+            pollCadenceService.invalidate(session.getUser().getId());
+            publishStatusChange(session);
             log.info("Session {} completed in {} seconds",
                 session.getId(), session.getElapsedTimeSeconds());
         }
 
-        return toDTO(session);
+        return completed.stream().map(ProblemSession::getId).toList();
     }
 
     /**
@@ -120,29 +196,71 @@ public class SessionService {
     /**
      * Gets all active sessions for a user.
      */
-    @Transactional(readOnly = true)
     public List<SessionDTO> getActiveSessions(User user) {
-        return sessionRepository.findActiveSessionsByUserId(user.getId())
+        if (activeSessions.isReady()) {
+            return activeSessions.forUser(user.getId()).stream()
+                    .map(this::toDTO)
+                    .toList();
+        }
+        return transactionTemplate.execute(status -> sessionRepository.findActiveSessionsByUserId(user.getId())
                 .stream()
                 .map(this::toDTO)
-                .toList();
+                .toList());
     }
 
     /**
      * Abandons a session (user gave up or closed tab).
      */
-    @Transactional
     public void abandonSession(User user, Long sessionId) {
-        ProblemSession session = sessionRepository.findByIdAndUser(sessionId, user)
-                .orElseThrow(() -> new RuntimeException("Session not found"));
+        activeSessions.withUserLock(user.getId(), () -> {
+            ActiveSessionRegistry.ActiveSession active = activeSessions.get(sessionId);
+            if (active != null && active.userId().equals(user.getId())) {
+                activeSessions.unregister(sessionId);
+            } else {
+                active = null;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    ProblemSession session = sessionRepository.findByIdAndUser(sessionId, user)
+                            .orElseThrow(() -> new RuntimeException("Session not found"));
 
-        session.setStatus(ProblemSession.SessionStatus.ABANDONED);
-        session.setCompletedAt(LocalDateTime.now());
-        sessionRepository.save(session);
+                    session.setStatus(ProblemSession.SessionStatus.ABANDONED);
+                    session.setCompletedAt(LocalDateTime.now());
+                    sessionRepository.save(session);
+                    publishStatusChange(session);
+                });
+            } catch (RuntimeException e) {
+                if (active != null) {
+                    activeSessions.register(active);
+                }
+                throw e;
+            }
+            return null;
+        });
 
         log.info("Session {} abandoned", sessionId);
     }
 
+    /**
+     * Notifies open event streams; delivery happens after the transaction commits.
+     */
+    private void publishStatusChange(ProblemSession session) {
+        eventPublisher.publishEvent(new SessionEventService.SessionStatusChangedEvent(
+            session.getUser().getId(), toDTO(session)));
+    }
+
+    private SessionDTO toDTO(ActiveSessionRegistry.ActiveSession session) {
+        SessionDTO dto = new SessionDTO();
+        dto.setId(session.id());
+        dto.setProblemId(session.problemId());
+        dto.setProblemTitle(session.problemTitle());
+        dto.setStartedAt(session.startedAt());
+        dto.setStatus(ProblemSession.SessionStatus.ACTIVE.name());
+        dto.setNextPollAfterMs(pollCadenceService.nextPollDelayMs(session.userId(), session.difficulty(), session.startedAt()));
+        dto.setUpstreamStatus(leetCodeThrottle.isDegraded() ? "DEGRADED" : "OK");
+        return dto;
+    }
+
     private SessionDTO toDTO(ProblemSession session) {
         SessionDTO dto = new SessionDTO();
         dto.setId(session.getId());
@@ -153,6 +271,11 @@ public class SessionService {
         dto.setStatus(session.getStatus().name());
         dto.setElapsedTimeSeconds(session.getElapsedTimeSeconds());
 
+        if (session.getStatus() == ProblemSession.SessionStatus.ACTIVE) {
+            dto.setNextPollAfterMs(pollCadenceService.nextPollDelayMs(session));
+            dto.setUpstreamStatus(leetCodeThrottle.isDegraded() ? "DEGRADED" : "OK");
+        }
+
         if (session.getSubmission() != null) {
             Submission sub = session.getSubmission();
             SubmissionDTO subDto = new SubmissionDTO();
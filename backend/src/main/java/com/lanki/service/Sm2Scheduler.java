@@ -0,0 +1,109 @@
+package com.lanki.service;
+
+import com.lanki.model.SpacedRepetitionCard;
+import com.lanki.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SuperMemo 2 (SM-2), the default scheduler.
+ *
+ * Quality 3-5 is a successful recall: the interval goes 1 day, then
+ * second-interval days, then the previous interval times the ease factor.
+ * Quality 0-2 restarts the card at 1 day. The ease factor moves with every
+ * review and never drops below min-ease.
+ */
+@Component
+public class Sm2Scheduler implements ReviewScheduler {
+
+    private final double initialEase;
+    private final double minEase;
+    private final int secondInterval;
+    private final String parameters;
+    // Schedulers for parameters logged under earlier configurations
+    private final Map<String, Sm2Scheduler> byParameters = new ConcurrentHashMap<>();
+
+    public Sm2Scheduler(
+            @Value("${lanki.scheduler.sm2.initial-ease:2.5}") double initialEase,
+            @Value("${lanki.scheduler.sm2.min-ease:1.3}") double minEase,
+            @Value("${lanki.scheduler.sm2.second-interval:6}") int secondInterval) {
+        this.initialEase = initialEase;
+        this.minEase = minEase;
+        this.secondInterval = secondInterval;
+        this.parameters = initialEase + "," + minEase + "," + secondInterval;
+    }
+
+    @Override
+    public User.Scheduler type() {
+        return User.Scheduler.SM2;
+    }
+
+    @Override
+    public int version() {
+        return 1;
+    }
+
+    /**
+     * "initialEase,minEase,secondInterval"; the same for every user.
+     */
+    @Override
+    public String parameters(User user) {
+        return parameters;
+    }
+
+    @Override
+    public void review(String parameters, SpacedRepetitionCard card, int quality, LocalDateTime reviewedAt) {
+        Sm2Scheduler scheduler = parameters.equals(this.parameters) ? this
+            : byParameters.computeIfAbsent(parameters, Sm2Scheduler::parse);
+        scheduler.review(card, quality, reviewedAt);
+    }
+
+    public void review(SpacedRepetitionCard card, int quality, LocalDateTime reviewedAt) {
+        if (quality < 0 || quality > 5) {
+            throw new IllegalArgumentException("Quality must be between 0 and 5");
+        }
+        double ease = card.getEaseFactor() != null ? card.getEaseFactor() : initialEase;
+        int repetitions = card.getRepetitions() != null ? card.getRepetitions() : 0;
+        int interval = card.getInterval() != null ? card.getInterval() : 1;
+
+        card.setInterval(nextInterval(interval, repetitions, ease, quality));
+        card.setRepetitions(quality >= 3 ? repetitions + 1 : 0);
+        card.setEaseFactor(nextEase(ease, quality));
+        card.setLastQuality(quality);
+        card.setLastReviewDate(reviewedAt);
+        card.setNextReviewDate(reviewedAt.toLocalDate().plusDays(card.getInterval()));
+    }
+
+    /**
+     * Interval in days after a review, from the state before it.
+     */
+    public int nextInterval(int interval, int repetitions, double ease, int quality) {
+        if (quality < 3 || repetitions == 0) {
+            return 1;
+        }
+        if (repetitions == 1) {
+            return secondInterval;
+        }
+        return (int) Math.round(interval * ease);
+    }
+
+    public double nextEase(double ease, int quality) {
+        return Math.max(minEase, ease + (0.1 - (5 - quality) * (0.08 + (5 - quality) * 0.02)));
+    }
+
+    public double getInitialEase() {
+        return initialEase;
+    }
+
+    private static Sm2Scheduler parse(String parameters) {
+        String[] values = parameters.split(",");
+        if (values.length != 3) {
+            throw new IllegalArgumentException("SM-2 parameters must be initialEase,minEase,secondInterval: " + parameters);
+        }
+        return new Sm2Scheduler(Double.parseDouble(values[0]), Double.parseDouble(values[1]), Integer.parseInt(values[2]));
+    }
+}
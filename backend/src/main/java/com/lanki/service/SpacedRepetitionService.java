@@ -1,7 +1,6 @@
 package com.lanki.service;
 
 import com.lanki.dto.DailyProblemDTO;
-import com.lanki.dto.ProblemDTO;
 import com.lanki.model.Interview;
 import com.lanki.model.Problem;
 import com.lanki.model.SpacedRepetitionCard;
@@ -9,13 +8,13 @@ import com.lanki.model.User;
 import com.lanki.repository.SpacedRepetitionCardRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Implements SuperMemo 2 (SM-2) algorithm for spaced repetition.
@@ -26,48 +25,38 @@ import java.util.stream.Collectors;
 public class SpacedRepetitionService {
 
     private final SpacedRepetitionCardRepository cardRepository;
+    private final DailyQueueService dailyQueueService;
+    private final CardDueIndex cardDueIndex;
+    private final ReviewSchedulers reviewSchedulers;
+    private final Sm2Scheduler sm2Scheduler;
+    private final ReviewLoadBalancer reviewLoadBalancer;
+    private final ReviewLogService reviewLogService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Gets all problems due for review today or overdue.
+     * Served from the materialized queues in DailyQueueService.
      */
-    @Transactional(readOnly = true)
     public List<DailyProblemDTO> getDailyRecommendations(User user) {
-        LocalDate today = LocalDate.now();
-        List<SpacedRepetitionCard> dueCards = cardRepository.findDueCardsByUserId(user.getId(), today);
-
-        return dueCards.stream()
-                .map(card -> {
-                    DailyProblemDTO dto = new DailyProblemDTO();
-                    dto.setProblem(ProblemDTO.fromEntity(card.getProblem()));
-                    dto.setNextReviewDate(card.getNextReviewDate());
-                    dto.setRepetitions(card.getRepetitions());
-
-                    if (card.getLastReviewDate() != null) {
-                        long daysSince = ChronoUnit.DAYS.between(
-                            card.getLastReviewDate().toLocalDate(),
-                            LocalDate.now()
-                        );
-                        dto.setDaysSinceLastReview((int) daysSince);
-                    }
-
-                    dto.setIsOverdue(today.isAfter(card.getNextReviewDate()));
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        return dailyQueueService.getDailyProblems(user.getId());
     }
 
     /**
      * Creates or gets spaced repetition card for a problem.
+     * An existing card stays row-locked until the transaction commits.
      */
     @Transactional
     public SpacedRepetitionCard getOrCreateCard(User user, Problem problem) {
-        return cardRepository.findByUserAndProblem(user, problem)
+        return cardRepository.findByUserAndProblemForUpdate(user, problem)
                 .orElseGet(() -> {
                     SpacedRepetitionCard card = new SpacedRepetitionCard();
                     card.setUser(user);
                     card.setProblem(problem);
+                    card.setEaseFactor(sm2Scheduler.getInitialEase());
                     card.setNextReviewDate(LocalDate.now());
-                    return cardRepository.save(card);
+                    SpacedRepetitionCard saved = cardRepository.save(card);
+                    publishCardChange(user, problem, saved);
+                    return saved;
                 });
     }
 
@@ -82,11 +71,9 @@ public class SpacedRepetitionService {
         // Convert interview score to SM-2 quality (0-5)
         int quality = interview.toSM2Quality();
 
-        // Update card using SM-2 algorithm
-        card.review(quality);
-        cardRepository.save(card);
+        applyReview(user, problem, card, quality);
 
-        log.info("Updated SM-2 card for user {} problem {} - quality: {}, next review: {}",
+        log.info("Updated card for user {} problem {} - quality: {}, next review: {}",
             user.getId(), problem.getId(), quality, card.getNextReviewDate());
     }
 
@@ -100,16 +87,27 @@ public class SpacedRepetitionService {
         }
 
         SpacedRepetitionCard card = getOrCreateCard(user, problem);
-        card.review(quality);
+        applyReview(user, problem, card, quality);
+    }
+
+    /**
+     * Reschedules the card with the user's scheduler, saves it and logs the review.
+     */
+    private void applyReview(User user, Problem problem, SpacedRepetitionCard card, int quality) {
+        ReviewScheduler scheduler = reviewSchedulers.forUser(user);
+        String parameters = scheduler.parameters(user);
+        scheduler.review(parameters, card, quality, LocalDateTime.now());
+        reviewLoadBalancer.balance(user, card);
         cardRepository.save(card);
+        reviewLogService.append(ReviewLogService.Entry.of(user.getId(), problem.getId(), scheduler, parameters, card));
+        publishCardChange(user, problem, card);
     }
 
     /**
      * Gets count of problems due today.
      */
-    @Transactional(readOnly = true)
     public long getCountOfDueProblems(User user) {
-        return cardRepository.countDueCardsByUserId(user.getId(), LocalDate.now());
+        return cardDueIndex.countDue(user.getId(), LocalDate.now());
     }
 
     /**
@@ -119,4 +117,9 @@ public class SpacedRepetitionService {
     public List<SpacedRepetitionCard> getAllCards(User user) {
         return cardRepository.findAllCardsByUserIdOrderedByReviewDate(user.getId());
     }
+
+    private void publishCardChange(User user, Problem problem, SpacedRepetitionCard card) {
+        eventPublisher.publishEvent(new DailyQueueService.CardChangedEvent(
+            user.getId(), problem.getId(), card.getNextReviewDate(), card.getLastReviewDate(), card.getRepetitions()));
+    }
 }
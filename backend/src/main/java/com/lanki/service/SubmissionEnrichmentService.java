@@ -0,0 +1,215 @@
+package com.lanki.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.lanki.model.Submission;
+import com.lanki.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills in code, runtime and memory of detected submissions in the background.
+ *
+ * recentAcSubmissionList only has slug, status and language, so completing a
+ * session stores those and queues the submission here. Queued submissions wait in a
+ * DelayQueue until they are due (at once, or after their retry delay). Each run:
+ * 1. writes the details fetched since the last run in one JDBC batch
+ * 2. starts fetches for due submissions, up to batch-size in flight at once
+ * Fetches complete on the LeetCodeClient executor, which hands the details to the
+ * next run or queues a retry (retry-delay-ms times the attempt number), so the
+ * scheduler thread never waits on LeetCode. Session completion never waits on this.
+ *
+ * Metrics:
+ * - lanki.enrichment.queue.depth
+ * - lanki.enrichment.lag (time from detection to stored details)
+ * - lanki.enrichment.submissions{result=enriched|failed|dropped}
+ */
+@Slf4j
+@Service
+public class SubmissionEnrichmentService {
+
+    private static final String UPDATE_SQL =
+        "UPDATE submissions SET code = ?, runtime = ?, memory = ? WHERE id = ?";
+
+    private final LeetCodeClient leetCodeClient;
+    private final JdbcTemplate jdbcTemplate;
+    private final DelayQueue<EnrichmentTask> queue = new DelayQueue<>();
+    // Details fetched since the last run, written by the next one
+    private final Queue<Details> fetched = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final int queueCapacity;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+
+    private final Timer lag;
+    private final Counter enriched;
+    private final Counter failed;
+    private final Counter dropped;
+
+    private record EnrichmentTask(Long submissionId, String leetcodeSubmissionId, String leetcodeUsername,
+                                  String sessionToken, String csrfToken,
+                                  int attempt, long enqueuedAt, long notBefore) implements Delayed {
+
+        EnrichmentTask retry(long notBefore) {
+            return new EnrichmentTask(submissionId, leetcodeSubmissionId, leetcodeUsername,
+                sessionToken, csrfToken, attempt + 1, enqueuedAt, notBefore);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(notBefore - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(notBefore, ((EnrichmentTask) other).notBefore);
+        }
+    }
+
+    private record Details(EnrichmentTask task, String code, Integer runtime, Double memory) {
+    }
+
+    public SubmissionEnrichmentService(
+            LeetCodeClient leetCodeClient,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${lanki.enrichment.queue-capacity:10000}") int queueCapacity,
+            @Value("${lanki.enrichment.batch-size:16}") int batchSize,
+            @Value("${lanki.enrichment.max-attempts:3}") int maxAttempts,
+            @Value("${lanki.enrichment.retry-delay-ms:10000}") long retryDelayMs) {
+        this.leetCodeClient = leetCodeClient;
+        this.jdbcTemplate = jdbcTemplate;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMs = retryDelayMs;
+
+        this.lag = Timer.builder("lanki.enrichment.lag")
+                .description("Time from submission detection to stored details")
+                .register(meterRegistry);
+        this.enriched = resultCounter(meterRegistry, "enriched");
+        this.failed = resultCounter(meterRegistry, "failed");
+        this.dropped = resultCounter(meterRegistry, "dropped");
+        meterRegistry.gaugeCollectionSize("lanki.enrichment.queue.depth", List.of(), queue);
+    }
+
+    /**
+     * Queues a saved submission for enrichment. Drops it if the queue is full.
+     */
+    public void enqueue(Submission submission, User user) {
+        long now = System.currentTimeMillis();
+        EnrichmentTask task = new EnrichmentTask(submission.getId(), submission.getLeetcodeSubmissionId(),
+            user.getLeetcodeUsername(), user.getLeetcodeSession(), user.getCsrfToken(), 1, now, now);
+
+        if (!offer(task)) {
+            log.warn("Enrichment queue full, dropping submission {}", submission.getId());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${lanki.enrichment.interval-ms:1000}")
+    public void processQueue() {
+        List<Details> results = new ArrayList<>();
+        Details details;
+        while ((details = fetched.poll()) != null) {
+            results.add(details);
+        }
+        if (!results.isEmpty()) {
+            store(results);
+        }
+
+        EnrichmentTask task;
+        while (inFlight.get() < batchSize && (task = queue.poll()) != null) {
+            fetch(task);
+        }
+    }
+
+    private void fetch(EnrichmentTask task) {
+        inFlight.incrementAndGet();
+        leetCodeClient.querySubmissionDetails(
+                task.leetcodeUsername(), task.leetcodeSubmissionId(), task.sessionToken(), task.csrfToken())
+            .thenAccept(details -> {
+                if (details == null) {
+                    throw new IllegalStateException("no submission details returned");
+                }
+                fetched.add(toDetails(task, details));
+            })
+            .whenComplete((ignored, error) -> {
+                inFlight.decrementAndGet();
+                if (error != null) {
+                    retryOrGiveUp(task, error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+                }
+            });
+    }
+
+    private void store(List<Details> results) {
+        jdbcTemplate.batchUpdate(UPDATE_SQL, results, results.size(), (ps, details) -> {
+            ps.setString(1, details.code());
+            ps.setObject(2, details.runtime());
+            ps.setObject(3, details.memory());
+            ps.setLong(4, details.task().submissionId());
+        });
+
+        long now = System.currentTimeMillis();
+        for (Details details : results) {
+            lag.record(Duration.ofMillis(now - details.task().enqueuedAt()));
+        }
+        enriched.increment(results.size());
+        log.debug("Enriched {} submissions, {} still queued", results.size(), queue.size());
+    }
+
+    private void retryOrGiveUp(EnrichmentTask task, Throwable e) {
+        if (task.attempt() < maxAttempts) {
+            offer(task.retry(System.currentTimeMillis() + retryDelayMs * task.attempt()));
+            return;
+        }
+        failed.increment();
+        log.warn("Giving up on details for submission {} after {} attempts: {}",
+            task.submissionId(), task.attempt(), e.toString());
+    }
+
+    // DelayQueue is unbounded, so queue-capacity is enforced here
+    private boolean offer(EnrichmentTask task) {
+        if (queue.size() >= queueCapacity) {
+            dropped.increment();
+            return false;
+        }
+        return queue.offer(task);
+    }
+
+    private static Details toDetails(EnrichmentTask task, JsonNode details) {
+        JsonNode runtime = details.path("runtime");
+        JsonNode memory = details.path("memory");
+        return new Details(
+            task,
+            details.path("code").asText(null),
+            runtime.isNumber() || runtime.isTextual() ? runtime.asInt() : null,
+            // LeetCode reports memory in bytes; submissions store megabytes
+            memory.isNumber() || memory.isTextual() ? memory.asLong() / (1024.0 * 1024.0) : null
+        );
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("lanki.enrichment.submissions")
+                .description("Submission enrichment outcomes")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,134 @@
+package com.lanki.service;
+
+import com.lanki.model.ProblemSession;
+import com.lanki.model.Submission;
+import com.lanki.model.User;
+import com.lanki.repository.ProblemSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Detects LeetCode submissions for all active sessions on a fixed schedule.
+ *
+ * Active sessions are grouped by LeetCode account, so each account is queried
+ * once per tick no matter how many sessions or browser tabs it has open.
+ * Account fetches run concurrently and no database transaction is held while
+ * waiting on LeetCode.
+ * Each session is only included once its PollCadenceService delay has passed.
+ * Matches are completed in one transaction through SessionService and then
+ * queued for SubmissionEnrichmentService.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SubmissionPoller {
+
+    private final ProblemSessionRepository sessionRepository;
+    private final LeetCodeService leetCodeService;
+    private final SessionService sessionService;
+    private final PollCadenceService pollCadenceService;
+    private final SubmissionEnrichmentService enrichmentService;
+
+    // Earliest time (epoch millis) each active session should be checked again
+    private final Map<Long, Long> nextPollAt = new ConcurrentHashMap<>();
+
+    @Scheduled(fixedDelayString = "${lanki.poller.interval-ms:5000}")
+    public void pollActiveSessions() {
+        List<ProblemSession> activeSessions = sessionRepository.findAllActiveSessionsWithUserAndProblem();
+        Set<Long> activeIds = activeSessions.stream().map(ProblemSession::getId).collect(Collectors.toSet());
+        nextPollAt.keySet().retainAll(activeIds);
+        if (activeSessions.isEmpty()) {
+            return;
+        }
+
+        // Only sessions whose recommended delay has passed; accounts with none are not fetched
+        long now = System.currentTimeMillis();
+        Map<String, List<ProblemSession>> sessionsByAccount = activeSessions.stream()
+                .filter(session -> hasCredentials(session.getUser()))
+                .filter(session -> nextPollAt.getOrDefault(session.getId(), 0L) <= now)
+                .collect(Collectors.groupingBy(session -> session.getUser().getLeetcodeUsername()));
+        sessionsByAccount.values().forEach(sessions -> sessions.forEach(session ->
+            nextPollAt.put(session.getId(), now + pollCadenceService.nextPollDelayMs(session))));
+
+        // Fetch every account concurrently; the client bounds how many are in flight
+        Map<String, CompletableFuture<List<RecentSubmission>>> fetches = new HashMap<>();
+        sessionsByAccount.forEach((account, sessions) ->
+            fetches.put(account, leetCodeService.fetchRecentSubmissions(sessions.get(0).getUser())));
+        CompletableFuture.allOf(fetches.values().toArray(CompletableFuture[]::new)).join();
+
+        Map<Long, Submission> detected = new HashMap<>();
+        for (Map.Entry<String, CompletableFuture<List<RecentSubmission>>> fetch : fetches.entrySet()) {
+            List<RecentSubmission> submissions = fetch.getValue().join();
+            if (submissions == null) {
+                continue;
+            }
+
+            for (ProblemSession session : sessionsByAccount.get(fetch.getKey())) {
+                Submission submission = leetCodeService.findMatchingSubmission(
+                    submissions,
+                    session.getUser(),
+                    session.getProblem(),
+                    session.getStartedAt()
+                );
+                if (submission != null) {
+                    detected.put(session.getId(), submission);
+                }
+            }
+        }
+
+        if (!detected.isEmpty()) {
+            List<Long> completed = completeSessions(detected);
+
+            // Code, runtime and memory are fetched afterwards, off the completion path
+            Map<Long, ProblemSession> sessionsById = activeSessions.stream()
+                    .collect(Collectors.toMap(ProblemSession::getId, session -> session));
+            for (Long sessionId : completed) {
+                enrichmentService.enqueue(detected.get(sessionId), sessionsById.get(sessionId).getUser());
+            }
+
+            log.info("Poller completed {} of {} active sessions across {} accounts",
+                completed.size(), activeSessions.size(), sessionsByAccount.size());
+        }
+    }
+
+    /**
+     * Completes all matches in one transaction. If another poll stored one of the
+     * submissions first, the unique index rejects the batch and the sessions are
+     * retried one by one so only the duplicate is skipped.
+     */
+    private List<Long> completeSessions(Map<Long, Submission> detected) {
+        try {
+            return sessionService.completeSessions(detected);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Duplicate submission in batch of {}, completing sessions individually", detected.size());
+        }
+
+        List<Long> completed = new ArrayList<>();
+        detected.forEach((sessionId, submission) -> {
+            submission.setId(null); // assigned by the rolled-back insert
+            try {
+                completed.addAll(sessionService.completeSessions(Map.of(sessionId, submission)));
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Submission {} for session {} was already stored",
+                    submission.getLeetcodeSubmissionId(), sessionId);
+            }
+        });
+        return completed;
+    }
+
+    private boolean hasCredentials(User user) {
+        return user.getLeetcodeSession() != null && user.getLeetcodeUsername() != null;
+    }
+}
@@ -0,0 +1,220 @@
+package com.lanki.service;
+
+import com.lanki.model.UserProgress;
+import com.lanki.repository.UserProgressRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user problem progress as packed 2-bit statuses, one lane per catalog position.
+ *
+ * Lane values are 00 NOT_STARTED, 01 IN_PROGRESS and 10 COMPLETED, 32 problems per
+ * long, so 150 problems take 5 words. Counts and per-category rollups are popcounts
+ * of the words masked with the low or high lane bits (and a category's lanes).
+ *
+ * Vectors are loaded from user_progress on a miss (statuses only, no entities),
+ * patched in place after a progress change commits (ProgressChangedEvent) and
+ * evicted least recently used beyond max-users. A vector built for an older
+ * catalog snapshot counts as a miss. A load that raced with a change is returned
+ * to its caller but not cached.
+ */
+@Component
+public class UserProgressCache {
+
+    static final int NOT_STARTED = 0;
+    static final int IN_PROGRESS = 1;
+    static final int COMPLETED = 2;
+
+    private static final int LANES_PER_WORD = 32;
+    private static final long LOW_BITS = 0x5555555555555555L;
+    private static final long HIGH_BITS = 0xAAAAAAAAAAAAAAAAL;
+
+    private final UserProgressRepository userProgressRepository;
+    private final ProblemCatalog problemCatalog;
+    private final Map<Long, Object> vectors;
+
+    private volatile CategoryMasks categoryMasks;
+
+    /**
+     * Published when a user's status on a problem changes; applied after the transaction commits.
+     */
+    public record ProgressChangedEvent(Long userId, Long problemId, UserProgress.ProgressStatus status) {
+    }
+
+    /**
+     * Completed, in-progress and total problems of one category (or all of them).
+     */
+    public record Rollup(int completed, int inProgress, int total) {
+    }
+
+    /**
+     * Marks a load in flight for a user; replaced when a change arrives during the load.
+     */
+    private static final class Loading {
+    }
+
+    private static final class ProgressVector {
+
+        final ProblemCatalog.Snapshot catalog;
+        final long[] words;
+
+        ProgressVector(ProblemCatalog.Snapshot catalog) {
+            this.catalog = catalog;
+            this.words = new long[(catalog.ids().length + LANES_PER_WORD - 1) / LANES_PER_WORD];
+        }
+
+        synchronized void set(int position, int status) {
+            int word = position / LANES_PER_WORD;
+            int shift = (position % LANES_PER_WORD) * 2;
+            words[word] = (words[word] & ~(3L << shift)) | ((long) status << shift);
+        }
+
+        synchronized int get(int position) {
+            return (int) (words[position / LANES_PER_WORD] >>> ((position % LANES_PER_WORD) * 2)) & 3;
+        }
+
+        synchronized Rollup rollup(long[] mask) {
+            int completed = 0;
+            int inProgress = 0;
+            for (int i = 0; i < words.length; i++) {
+                long lanes = mask != null ? words[i] & mask[i] : words[i];
+                completed += Long.bitCount(lanes & HIGH_BITS);
+                inProgress += Long.bitCount(lanes & LOW_BITS);
+            }
+            return new Rollup(completed, inProgress, mask != null ? countLanes(mask) : catalog.ids().length);
+        }
+
+        private static int countLanes(long[] mask) {
+            int lanes = 0;
+            for (long word : mask) {
+                lanes += Long.bitCount(word & LOW_BITS);
+            }
+            return lanes;
+        }
+    }
+
+    /**
+     * Lane masks (both bits of each lane set) of every category of one catalog snapshot.
+     */
+    private record CategoryMasks(ProblemCatalog.Snapshot catalog, long[][] masks) {
+    }
+
+    public UserProgressCache(
+            UserProgressRepository userProgressRepository,
+            ProblemCatalog problemCatalog,
+            MeterRegistry meterRegistry,
+            @Value("${lanki.progress-cache.max-users:100000}") int maxUsers) {
+        this.userProgressRepository = userProgressRepository;
+        this.problemCatalog = problemCatalog;
+        this.vectors = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Object> eldest) {
+                return size() > maxUsers;
+            }
+        });
+        meterRegistry.gaugeMapSize("lanki.progress-cache.users", List.of(), vectors);
+    }
+
+    /**
+     * Status of each started problem by problem id; problems not in the map are NOT_STARTED.
+     */
+    public Map<Long, String> statuses(Long userId) {
+        ProgressVector vector = vector(userId);
+        long[] ids = vector.catalog.ids();
+        Map<Long, String> statuses = new HashMap<>();
+        for (int position = 0; position < ids.length; position++) {
+            int status = vector.get(position);
+            if (status != NOT_STARTED) {
+                statuses.put(ids[position], (status == COMPLETED
+                    ? UserProgress.ProgressStatus.COMPLETED : UserProgress.ProgressStatus.IN_PROGRESS).name());
+            }
+        }
+        return statuses;
+    }
+
+    public Rollup total(Long userId) {
+        return vector(userId).rollup(null);
+    }
+
+    /**
+     * Rollup per category, in catalog category order.
+     */
+    public Map<String, Rollup> byCategory(Long userId) {
+        ProgressVector vector = vector(userId);
+        long[][] masks = masksFor(vector.catalog);
+        List<String> names = vector.catalog.categoryNames();
+        Map<String, Rollup> rollups = new LinkedHashMap<>();
+        for (int c = 0; c < names.size(); c++) {
+            rollups.put(names.get(c), vector.rollup(masks[c]));
+        }
+        return rollups;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProgressChanged(ProgressChangedEvent event) {
+        vectors.computeIfPresent(event.userId(), (userId, entry) -> {
+            if (entry instanceof ProgressVector vector) {
+                int position = vector.catalog.position(event.problemId());
+                if (position >= 0) {
+                    vector.set(position, lane(event.status()));
+                }
+                return vector;
+            }
+            // Whatever the in-flight load read may be older than this change
+            return new Loading();
+        });
+    }
+
+    private ProgressVector vector(Long userId) {
+        ProblemCatalog.Snapshot catalog = problemCatalog.snapshot();
+        Object cached = vectors.get(userId);
+        if (cached instanceof ProgressVector vector && vector.catalog == catalog) {
+            return vector;
+        }
+
+        Loading loading = new Loading();
+        vectors.put(userId, loading);
+        ProgressVector loaded = new ProgressVector(catalog);
+        for (Object[] row : userProgressRepository.findStatusesByUserId(userId)) {
+            int position = catalog.position((Long) row[0]);
+            if (position >= 0) {
+                loaded.set(position, lane((UserProgress.ProgressStatus) row[1]));
+            }
+        }
+        vectors.computeIfPresent(userId, (id, entry) -> entry == loading ? loaded : entry);
+        return loaded;
+    }
+
+    private long[][] masksFor(ProblemCatalog.Snapshot catalog) {
+        CategoryMasks cached = categoryMasks;
+        if (cached != null && cached.catalog() == catalog) {
+            return cached.masks();
+        }
+        int words = (catalog.ids().length + LANES_PER_WORD - 1) / LANES_PER_WORD;
+        long[][] masks = new long[catalog.idsByCategory().length][words];
+        for (int c = 0; c < masks.length; c++) {
+            for (long id : catalog.idsByCategory()[c]) {
+                int position = catalog.position(id);
+                masks[c][position / LANES_PER_WORD] |= 3L << ((position % LANES_PER_WORD) * 2);
+            }
+        }
+        categoryMasks = new CategoryMasks(catalog, masks);
+        return masks;
+    }
+
+    private static int lane(UserProgress.ProgressStatus status) {
+        return switch (status) {
+            case COMPLETED -> COMPLETED;
+            case IN_PROGRESS -> IN_PROGRESS;
+            default -> NOT_STARTED;
+        };
+    }
+}
@@ -5,6 +5,7 @@ import com.lanki.model.User;
 import com.lanki.model.UserProgress;
 import com.lanki.repository.UserProgressRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,6 +16,7 @@ import java.time.LocalDateTime;
 public class UserProgressService {
 
     private final UserProgressRepository progressRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public void markAsInProgress(User user, Problem problem) {
@@ -31,6 +33,7 @@ public class UserProgressService {
         progress.setLastAttemptedAt(LocalDateTime.now());
 
         progressRepository.save(progress);
+        publishProgressChange(user, problem, progress);
     }
 
     @Transactional
@@ -49,6 +52,7 @@ public class UserProgressService {
         progress.setCompletedAt(LocalDateTime.now());
 
         progressRepository.save(progress);
+        publishProgressChange(user, problem, progress);
     }
 
     @Transactional(readOnly = true)
@@ -56,4 +60,9 @@ public class UserProgressService {
         return progressRepository.findByUserAndProblem(user, problem)
                 .orElse(null);
     }
+
+    private void publishProgressChange(User user, Problem problem, UserProgress progress) {
+        eventPublisher.publishEvent(new UserProgressCache.ProgressChangedEvent(
+            user.getId(), problem.getId(), progress.getStatus()));
+    }
 }
@@ -0,0 +1,81 @@
+package com.lanki.config;
+
+import com.lanki.service.ActiveSessionRegistry;
+import com.lanki.service.ProblemCatalog;
+import com.lanki.service.ProblemCatalogSeeder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.config.ScheduledTask;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The "prod" profile on its own in-memory database: lazy initialization must still
+ * start scheduled jobs and event-driven registries, and the catalog is seeded only
+ * while the problems table is empty. The schema is created here instead of validated.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:lanki-prod",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "lanki.catalog.seed-script=classpath:prod-seed.sql"
+})
+@ActiveProfiles("prod")
+class ProdProfileTest {
+
+    @Autowired
+    private ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    private List<ScheduledTaskHolder> scheduledTaskHolders;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void scheduledAndListenerBeansStartDespiteLazyInitialization() {
+        assertThat(beanFactory.containsSingleton("submissionPoller")).isTrue();
+        assertThat(beanFactory.containsSingleton("activeSessionRegistry")).isTrue();
+        assertThat(beanFactory.getBean(ActiveSessionRegistry.class).isReady()).isTrue();
+        assertThat(scheduledTaskHolders.stream()
+                .map(ScheduledTaskHolder::getScheduledTasks)
+                .flatMap(Set::stream)
+                .map(ScheduledTask::toString))
+            .contains("com.lanki.service.SubmissionPoller.pollActiveSessions");
+
+        // Beans without scheduled methods or startup listeners wait for their first use
+        assertThat(beanFactory.containsSingleton("problemCatalogImporter")).isFalse();
+    }
+
+    @Test
+    void emptyCatalogIsSeededOnceAndAPopulatedOneIsLeftAlone() {
+        assertThat(problemSlugs()).containsExactly("merge-k-sorted-lists", "two-sum", "valid-parentheses");
+        assertThat(beanFactory.getBean(ProblemCatalog.class).findBySlug("two-sum")).isNotNull();
+
+        jdbcTemplate.update("""
+            INSERT INTO problems (title, title_slug, category, difficulty, leetcode_url, is_premium)
+            VALUES ('Prod Problem', 'prod-problem', 'Prod', 'MEDIUM', 'https://leetcode.com/problems/prod-problem/', FALSE)
+            """);
+        jdbcTemplate.update("DELETE FROM problems WHERE title_slug = 'two-sum'");
+
+        // Re-running the script would put two-sum back (or fail on the other slugs)
+        beanFactory.getBean(ProblemCatalogSeeder.class).seedIfEmpty();
+
+        assertThat(problemSlugs()).containsExactly("merge-k-sorted-lists", "prod-problem", "valid-parentheses");
+    }
+
+    private List<String> problemSlugs() {
+        return jdbcTemplate.queryForList("SELECT title_slug FROM problems ORDER BY title_slug", String.class);
+    }
+}
@@ -0,0 +1,45 @@
+package com.lanki.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * /api/admin/** needs the admin user; the rest of the API stays open.
+ */
+@SpringBootTest(properties = {"lanki.admin.password=test-admin-password", "spring.jpa.show-sql=false"})
+@AutoConfigureMockMvc
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void adminEndpointsRejectAnonymousAndWrongPassword() throws Exception {
+        mockMvc.perform(post("/api/admin/catalog/reload"))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/admin/catalog/reload").with(httpBasic("admin", "wrong")))
+            .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/admin/catalog/import").contentType("application/json").content("{}"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void adminEndpointsAcceptTheAdminUser() throws Exception {
+        mockMvc.perform(post("/api/admin/catalog/reload").with(httpBasic("admin", "test-admin-password")))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void otherEndpointsStayOpen() throws Exception {
+        mockMvc.perform(get("/api/problems"))
+            .andExpect(status().isOk());
+    }
+}
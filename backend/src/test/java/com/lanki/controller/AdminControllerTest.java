@@ -0,0 +1,80 @@
+package com.lanki.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /api/admin/catalog/import: list members and invalid input.
+ */
+@SpringBootTest(properties = {"lanki.admin.password=test-admin-password", "spring.jpa.show-sql=false"})
+@AutoConfigureMockMvc
+class AdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void listNamedTwiceByOneProblemGetsOneEntry() throws Exception {
+        importCatalog("""
+            {"problems": [
+              {"title": "Two Sum", "titleSlug": "import-two-sum", "category": "Arrays", "difficulty": "easy",
+               "lists": ["import-list", "import-list"]},
+              {"title": "Three Sum", "titleSlug": "import-three-sum", "category": "Arrays", "difficulty": "MEDIUM",
+               "lists": ["import-list"]}
+            ]}
+            """)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.listEntries").value(2));
+
+        assertThat(jdbcTemplate.queryForList("""
+            SELECT p.title_slug FROM problem_list_entries e
+            JOIN problem_lists l ON l.id = e.list_id
+            JOIN problems p ON p.id = e.problem_id
+            WHERE l.slug = 'import-list' ORDER BY e.position
+            """, String.class)).containsExactly("import-two-sum", "import-three-sum");
+    }
+
+    @Test
+    void invalidImportsAreBadRequestsAndWriteNothing() throws Exception {
+        importCatalog("""
+            {"lists": [{"name": "No slug"}],
+             "problems": [{"title": "A", "titleSlug": "import-invalid-a", "category": "C", "difficulty": "EASY"}]}
+            """)
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Every list needs a slug"));
+        importCatalog("""
+            {"problems": [{"title": "B", "titleSlug": "import-invalid-b", "category": "C", "difficulty": "EASY",
+                           "lists": [null]}]}
+            """)
+            .andExpect(status().isBadRequest());
+        importCatalog("""
+            {"problems": [{"title": "C", "titleSlug": "import-invalid-c", "category": "C", "difficulty": "TRIVIAL"}]}
+            """)
+            .andExpect(status().isBadRequest());
+
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM problems WHERE title_slug LIKE 'import-invalid-%'", Integer.class)).isZero();
+    }
+
+    private ResultActions importCatalog(String body) throws Exception {
+        return mockMvc.perform(post("/api/admin/catalog/import")
+            .with(httpBasic("admin", "test-admin-password"))
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(body));
+    }
+}
@@ -0,0 +1,125 @@
+package com.lanki.controller;
+
+import com.lanki.model.Problem;
+import com.lanki.repository.ProblemRepository;
+import com.lanki.service.ProblemCatalog;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Request validation of the catalog endpoints, and revalidation of the pre-serialized
+ * catalog bodies by ETag per encoding.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureMockMvc
+class ProblemControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Autowired
+    private ProblemCatalog problemCatalog;
+
+    @Test
+    void limitOutOfRangeIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/problems/page").param("limit", "0"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("limit must be between 1 and 200"));
+        mockMvc.perform(get("/api/problems/search").param("q", "sum").param("limit", "201"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/problems/page").param("limit", "10"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void eachEncodingHasItsOwnETagAndMatchingOnesAreNotModified() throws Exception {
+        MvcResult identity = mockMvc.perform(get("/api/problems"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+            .andReturn();
+        MvcResult gzip = mockMvc.perform(get("/api/problems").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+            .andReturn();
+        String etag = identity.getResponse().getHeader(HttpHeaders.ETAG);
+        String gzipEtag = gzip.getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(etag).startsWith("\"");
+        assertThat(gzipEtag).isNotEqualTo(etag);
+        assertThat(gunzip(gzip.getResponse().getContentAsByteArray()))
+            .isEqualTo(identity.getResponse().getContentAsByteArray());
+
+        mockMvc.perform(get("/api/problems").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+            .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get("/api/problems")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, gzipEtag))
+            .andExpect(status().isNotModified())
+            .andExpect(content().bytes(new byte[0]));
+        // A cached gzip body is no answer to a client that cannot decode it
+        mockMvc.perform(get("/api/problems").header(HttpHeaders.IF_NONE_MATCH, gzipEtag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void swappingTheCatalogChangesTheETags() throws Exception {
+        String etag = etag("/api/problems");
+        String categoriesEtag = etag("/api/problems/categories");
+
+        if (problemRepository.findByTitleSlug("etag-problem").isEmpty()) {
+            Problem problem = new Problem();
+            problem.setTitle("ETag Problem");
+            problem.setTitleSlug("etag-problem");
+            problem.setCategory("ETag Category");
+            problem.setDifficulty(Problem.Difficulty.EASY);
+            problem.setLeetcodeUrl("https://leetcode.com/problems/etag-problem/");
+            problemRepository.save(problem);
+        }
+        problemCatalog.reload();
+
+        String swapped = etag("/api/problems");
+        assertThat(swapped).isNotEqualTo(etag);
+        assertThat(etag("/api/problems/categories")).isNotEqualTo(categoriesEtag);
+        mockMvc.perform(get("/api/problems").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, swapped))
+            .andExpect(jsonPath("$['ETag Category'][0].titleSlug").value("etag-problem"));
+    }
+
+    private String etag(String path) throws Exception {
+        return mockMvc.perform(get(path)).andExpect(status().isOk()).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+}
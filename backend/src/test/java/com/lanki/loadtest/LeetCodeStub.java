@@ -0,0 +1,242 @@
+package com.lanki.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded stand-in for the LeetCode GraphQL endpoint, on its own port.
+ *
+ * Answers the recentAcSubmissionList, submissionDetails and userStatus queries
+ * LeetCodeClient sends, from per-account accepted submissions held in memory.
+ * Latency, injected 500/429 answers and a background generator of unrelated
+ * submissions are set with configure(); failSubmissionDetails() fails the next
+ * submissionDetails queries.
+ */
+public class LeetCodeStub {
+
+    private static final int MAX_SUBMISSIONS_PER_ACCOUNT = 50;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newCachedThreadPool(daemon("leetcode-stub"));
+    private final ScheduledExecutorService generator =
+        Executors.newSingleThreadScheduledExecutor(daemon("leetcode-stub-generator"));
+
+    // Newest first, keyed by LeetCode username
+    private final Map<String, List<Map<String, Object>>> submissionsByAccount = new ConcurrentHashMap<>();
+    private final AtomicLong submissionIds = new AtomicLong(1_000_000);
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong detailsRequestCount = new AtomicLong();
+    private final AtomicInteger detailsFailures = new AtomicInteger();
+
+    private volatile long latencyMs;
+    private volatile long latencyJitterMs;
+    private volatile double errorRate;
+    private volatile double throttleRate;
+    private volatile double generateProbability;
+
+    private LeetCodeStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/graphql", this::graphql);
+        server.setExecutor(handlers);
+    }
+
+    /**
+     * Starts a stub on a free port, answering without latency or errors.
+     */
+    public static LeetCodeStub start() {
+        try {
+            LeetCodeStub stub = new LeetCodeStub();
+            stub.server.start();
+            stub.generator.scheduleWithFixedDelay(stub::generateSubmissions, 1, 1, TimeUnit.SECONDS);
+            return stub;
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not start the LeetCode stub", e);
+        }
+    }
+
+    /**
+     * @param generateProbability chance per second that a known account gets an unrelated submission
+     */
+    public void configure(long latencyMs, long latencyJitterMs, double errorRate, double throttleRate,
+                          double generateProbability) {
+        this.latencyMs = latencyMs;
+        this.latencyJitterMs = latencyJitterMs;
+        this.errorRate = errorRate;
+        this.throttleRate = throttleRate;
+        this.generateProbability = generateProbability;
+    }
+
+    /**
+     * Answers the next count submissionDetails queries with 500.
+     */
+    public void failSubmissionDetails(int count) {
+        detailsFailures.set(count);
+    }
+
+    public String graphqlUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/graphql";
+    }
+
+    public void stop() {
+        server.stop(0);
+        handlers.shutdownNow();
+        generator.shutdownNow();
+    }
+
+    /**
+     * Records an accepted submission, as if the user had just submitted on LeetCode.
+     */
+    public Map<String, Object> addSubmission(String username, String titleSlug, String lang) {
+        Map<String, Object> submission = Map.of(
+            "id", String.valueOf(submissionIds.incrementAndGet()),
+            "title", titleSlug,
+            "titleSlug", titleSlug,
+            "timestamp", String.valueOf(Instant.now().getEpochSecond()),
+            "statusDisplay", "Accepted",
+            "lang", lang
+        );
+
+        submissionsByAccount.compute(username, (u, submissions) -> {
+            List<Map<String, Object>> updated = new ArrayList<>(MAX_SUBMISSIONS_PER_ACCOUNT + 1);
+            updated.add(submission);
+            if (submissions != null) {
+                updated.addAll(submissions.subList(0, Math.min(submissions.size(), MAX_SUBMISSIONS_PER_ACCOUNT - 1)));
+            }
+            return updated;
+        });
+        return submission;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    public long getDetailsRequestCount() {
+        return detailsRequestCount.get();
+    }
+
+    private void graphql(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.incrementAndGet();
+            JsonNode request = objectMapper.readTree(exchange.getRequestBody());
+            sleepLatency();
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            double roll = random.nextDouble();
+            if (roll < errorRate + throttleRate) {
+                injectedErrors.incrementAndGet();
+                respond(exchange, roll < errorRate ? 500 : 429, error("Injected stub failure"));
+                return;
+            }
+
+            String query = request.path("query").asText();
+            JsonNode variables = request.path("variables");
+            if (query.contains("recentAcSubmissionList")) {
+                String username = variables.path("username").asText();
+                submissionsByAccount.putIfAbsent(username, List.of());
+                List<Map<String, Object>> submissions = submissionsByAccount.getOrDefault(username, List.of());
+                int limit = Math.min(variables.path("limit").asInt(20), submissions.size());
+                respond(exchange, 200, Map.of("data", Map.of("recentAcSubmissionList", submissions.subList(0, limit))));
+            } else if (query.contains("submissionDetails")) {
+                detailsRequestCount.incrementAndGet();
+                if (detailsFailures.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+                    injectedErrors.incrementAndGet();
+                    respond(exchange, 500, error("Injected stub failure"));
+                    return;
+                }
+                respond(exchange, 200, Map.of("data", Map.of(
+                    "submissionDetails", submissionDetails(variables.path("submissionId").asLong()))));
+            } else if (query.contains("userStatus")) {
+                respond(exchange, 200, Map.of("data", Map.of(
+                    "userStatus", Map.of("username", "stub", "isSignedIn", true))));
+            } else {
+                respond(exchange, 400, error("Unsupported query"));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sleepLatency() {
+        long delay = latencyMs + (latencyJitterMs > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMs + 1) : 0);
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, Object> error(String message) {
+        return Map.of("errors", List.of(Map.of("message", message)));
+    }
+
+    private static Map<String, Object> submissionDetails(long submissionId) {
+        return Map.of(
+            "runtime", (int) (submissionId % 100) + 1,
+            "memory", 16_000_000 + (submissionId % 1000) * 1000,
+            "code", "class Solution:\n    pass  # stub submission " + submissionId,
+            "lang", Map.of("name", "python3")
+        );
+    }
+
+    /**
+     * Adds unrelated accepted submissions to known accounts, so matching has to
+     * look past other problems the way it does with real account history.
+     */
+    private void generateSubmissions() {
+        if (generateProbability <= 0) {
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (String username : submissionsByAccount.keySet()) {
+            if (random.nextDouble() < generateProbability) {
+                addSubmission(username, "synthetic-problem-" + random.nextInt(3000), "python3");
+            }
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
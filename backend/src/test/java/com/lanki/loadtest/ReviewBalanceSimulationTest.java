@@ -0,0 +1,174 @@
+package com.lanki.loadtest;
+
+import com.lanki.model.SpacedRepetitionCard;
+import com.lanki.model.User;
+import com.lanki.service.CardDueIndex;
+import com.lanki.service.ReviewLoadBalancer;
+import com.lanki.service.Sm2Scheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+/**
+ * Daily review counts with and without ReviewLoadBalancer, using the configured
+ * SM-2 scheduler, balancer and forecast quality mix.
+ *
+ * One simulated user adds NEW_PER_DAY cards on each of the first INTRO_DAYS days and
+ * reviews every due card daily. Both runs use the same random seed. CardDueIndex
+ * answers from the simulated due counts. After the intro period the balanced run must
+ * be clearly less spiky: a smaller standard deviation from the centered 7-day average
+ * and a smaller largest excess over it.
+ */
+@Slf4j
+@SpringBootTest(classes = {Sm2Scheduler.class, ReviewLoadBalancer.class})
+class ReviewBalanceSimulationTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+    private static final int NEW_PER_DAY = 20;
+    private static final int INTRO_DAYS = 60;
+    private static final int DAYS = 240;
+    // Extra room past the horizon for cards scheduled beyond it
+    private static final int DUE_DAYS = DAYS + 400;
+
+    @Autowired
+    private Sm2Scheduler sm2Scheduler;
+
+    @Autowired
+    private ReviewLoadBalancer reviewLoadBalancer;
+
+    @MockBean
+    private CardDueIndex cardDueIndex;
+
+    @Value("${lanki.forecast.quality-weights}")
+    private double[] qualityWeights;
+
+    private int[] dueCounts;
+
+    @Test
+    void balancingFlattensDailyReviews() {
+        when(cardDueIndex.countDueByDay(anyLong(), any(LocalDate.class), anyInt())).thenAnswer(invocation -> {
+            int from = dayIndex(invocation.getArgument(1));
+            int[] counts = new int[invocation.<Integer>getArgument(2)];
+            for (int i = 0; i < counts.length && from + i < DUE_DAYS; i++) {
+                counts[i] = dueCounts[from + i];
+            }
+            return counts;
+        });
+
+        Load plain = Load.of(simulate(false));
+        Load balanced = Load.of(simulate(true));
+        log.info("Review load over days {}-{}:\n  unbalanced: {}\n  balanced:   {}", INTRO_DAYS, DAYS, plain, balanced);
+
+        assertThat(balanced.spikiness()).isLessThan(plain.spikiness() * 0.6);
+        assertThat(balanced.maxExcess()).isLessThan(plain.maxExcess());
+    }
+
+    private int[] simulate(boolean balance) {
+        User user = new User();
+        user.setId(1L);
+        user.setBalanceReviewLoad(balance);
+        SplittableRandom random = new SplittableRandom(42);
+        dueCounts = new int[DUE_DAYS];
+        int[] reviewsPerDay = new int[DAYS];
+        List<SpacedRepetitionCard> cards = new ArrayList<>();
+
+        for (int day = 0; day < DAYS; day++) {
+            LocalDate today = START.plusDays(day);
+            if (day < INTRO_DAYS) {
+                for (int i = 0; i < NEW_PER_DAY; i++) {
+                    SpacedRepetitionCard card = new SpacedRepetitionCard();
+                    card.setEaseFactor(sm2Scheduler.getInitialEase());
+                    card.setNextReviewDate(today);
+                    cards.add(card);
+                    dueCounts[day]++;
+                }
+            }
+
+            for (SpacedRepetitionCard card : cards) {
+                if (card.getNextReviewDate().isAfter(today)) {
+                    continue;
+                }
+                dueCounts[dayIndex(card.getNextReviewDate())]--;
+                sm2Scheduler.review(card, drawQuality(random), today.atTime(9, 0));
+                reviewLoadBalancer.balance(user, card);
+                dueCounts[dayIndex(card.getNextReviewDate())]++;
+                reviewsPerDay[day]++;
+            }
+        }
+        return reviewsPerDay;
+    }
+
+    private int drawQuality(SplittableRandom random) {
+        double total = 0;
+        for (double weight : qualityWeights) {
+            total += weight;
+        }
+        double roll = random.nextDouble() * total;
+        int quality = 0;
+        while (quality < qualityWeights.length - 1 && roll >= qualityWeights[quality]) {
+            roll -= qualityWeights[quality];
+            quality++;
+        }
+        return quality;
+    }
+
+    private static int dayIndex(LocalDate date) {
+        return (int) Math.min(ChronoUnit.DAYS.between(START, date), DUE_DAYS - 1);
+    }
+
+    /**
+     * Reviews per day after the intro period. Spikiness is the standard deviation from
+     * the centered 7-day average, which removes the slow downward trend; maxExcess is
+     * the most reviews any day had over that average.
+     */
+    private record Load(double mean, double stdDev, double spikiness, double maxExcess, int peak) {
+
+        static Load of(int[] reviewsPerDay) {
+            int measured = DAYS - INTRO_DAYS;
+            double sum = 0;
+            int peak = 0;
+            for (int day = INTRO_DAYS; day < DAYS; day++) {
+                sum += reviewsPerDay[day];
+                peak = Math.max(peak, reviewsPerDay[day]);
+            }
+            double mean = sum / measured;
+            double squares = 0;
+            for (int day = INTRO_DAYS; day < DAYS; day++) {
+                squares += (reviewsPerDay[day] - mean) * (reviewsPerDay[day] - mean);
+            }
+            double residualSquares = 0;
+            double maxExcess = 0;
+            for (int day = INTRO_DAYS + 3; day < DAYS - 3; day++) {
+                double weekly = 0;
+                for (int d = day - 3; d <= day + 3; d++) {
+                    weekly += reviewsPerDay[d];
+                }
+                residualSquares += Math.pow(reviewsPerDay[day] - weekly / 7, 2);
+                maxExcess = Math.max(maxExcess, reviewsPerDay[day] - weekly / 7);
+            }
+            return new Load(mean, Math.sqrt(squares / measured), Math.sqrt(residualSquares / (measured - 6)),
+                maxExcess, peak);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("mean %.1f, std dev %.1f, std dev from 7-day average %.1f (max excess %.1f), "
+                + "peak %d reviews/day", mean, stdDev, spikiness, maxExcess, peak);
+        }
+    }
+}
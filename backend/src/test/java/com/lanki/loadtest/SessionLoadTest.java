@@ -0,0 +1,339 @@
+package com.lanki.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lanki.model.Problem;
+import com.lanki.model.User;
+import com.lanki.repository.ProblemRepository;
+import com.lanki.repository.UserRepository;
+import com.lanki.service.ProblemCatalog;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load test of the session flow over HTTP, against LeetCodeStub.
+ *
+ * Seeds problems (when the table is empty) and users with stub LeetCode accounts,
+ * then each simulated user:
+ * 1. starts a session on a random problem with POST /api/sessions/start
+ * 2. "submits" on the stub LeetCode after a random solve time
+ * 3. polls GET /api/sessions/{id}/check at a fixed interval, like an open browser
+ *    tab, until SubmissionPoller has completed the session
+ *
+ * Requests name their user in the X-Load-Test-User header, which a test filter turns
+ * into the authenticated principal. Logs start/check p50 and p99, check throughput,
+ * detection delay and upstream GraphQL calls. The default load (application-loadtest.yml)
+ * is small enough for every build; scale it with e.g.
+ * mvn test -Dtest=SessionLoadTest -Dlanki.loadtest.users=1000 -Dlanki.loadtest.poll-interval-ms=5000
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class SessionLoadTest {
+
+    private static final String USER_HEADER = "X-Load-Test-User";
+    private static final LeetCodeStub STUB = LeetCodeStub.start();
+    private static final Map<Long, User> USERS = new ConcurrentHashMap<>();
+
+    @DynamicPropertySource
+    static void leetCodeStub(DynamicPropertyRegistry registry) {
+        registry.add("lanki.leetcode.graphql-url", STUB::graphqlUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.stop();
+    }
+
+    @TestConfiguration
+    static class LoadTestConfig {
+
+        @Bean
+        LeetCodeStub leetCodeStub(
+                @Value("${lanki.loadtest.stub.latency-ms:0}") long latencyMs,
+                @Value("${lanki.loadtest.stub.latency-jitter-ms:0}") long latencyJitterMs,
+                @Value("${lanki.loadtest.stub.error-rate:0}") double errorRate,
+                @Value("${lanki.loadtest.stub.throttle-rate:0}") double throttleRate,
+                @Value("${lanki.loadtest.stub.generate-probability:0}") double generateProbability) {
+            STUB.configure(latencyMs, latencyJitterMs, errorRate, throttleRate, generateProbability);
+            return STUB;
+        }
+
+        /**
+         * Authenticates each request as the seeded user named in X-Load-Test-User.
+         * Runs after the Spring Security filters, so @AuthenticationPrincipal sees it.
+         */
+        @Bean
+        FilterRegistrationBean<Filter> loadTestUserFilter() {
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+                String userId = ((HttpServletRequest) request).getHeader(USER_HEADER);
+                User user = userId != null ? USERS.get(Long.valueOf(userId)) : null;
+                if (user != null) {
+                    SecurityContextHolder.getContext().setAuthentication(
+                        new UsernamePasswordAuthenticationToken(user, null, List.of()));
+                }
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            });
+            registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+            return registration;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Autowired
+    private ProblemCatalog problemCatalog;
+
+    @Value("${lanki.loadtest.users}")
+    private int userCount;
+
+    @Value("${lanki.loadtest.problems}")
+    private int problemCount;
+
+    @Value("${lanki.loadtest.threads}")
+    private int threads;
+
+    @Value("${lanki.loadtest.poll-interval-ms}")
+    private long pollIntervalMs;
+
+    @Value("${lanki.loadtest.min-solve-ms}")
+    private long minSolveMs;
+
+    @Value("${lanki.loadtest.max-solve-ms}")
+    private long maxSolveMs;
+
+    @Value("${lanki.loadtest.timeout-ms}")
+    private long timeoutMs;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LatencyRecorder startLatency = new LatencyRecorder();
+    private final LatencyRecorder checkLatency = new LatencyRecorder();
+    private final LatencyRecorder detectionDelay = new LatencyRecorder();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    @Test
+    void detectsEverySubmissionThroughCheckEndpoint() throws InterruptedException {
+        List<Problem> problems = seedProblems();
+        List<User> users = seedUsers();
+        log.info("Load test starting: {} users, {} problems, check every {} ms",
+            users.size(), problems.size(), pollIntervalMs);
+
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(threads);
+        CountDownLatch finished = new CountDownLatch(users.size());
+        long upstreamBefore = STUB.getRequestCount();
+        long startedAt = System.nanoTime();
+
+        for (User user : users) {
+            Problem problem = problems.get(ThreadLocalRandom.current().nextInt(problems.size()));
+            long stagger = ThreadLocalRandom.current().nextLong(pollIntervalMs);
+            executor.schedule(() -> simulateUser(executor, finished, user, problem), stagger, TimeUnit.MILLISECONDS);
+        }
+
+        boolean done = finished.await(timeoutMs + maxSolveMs + pollIntervalMs * 2, TimeUnit.MILLISECONDS);
+        executor.shutdownNow();
+
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        log.info("""
+            Load test finished in {} s
+              sessions:  {} completed, {} failed or timed out
+              start:     p50 {} ms, p99 {} ms
+              check:     p50 {} ms, p99 {} ms, {} requests, {} req/s
+              detection: p50 {} ms, p99 {} ms after submit
+              upstream:  {} GraphQL calls, {} injected failures""",
+            String.format("%.1f", seconds),
+            completed.get(), failed.get(),
+            startLatency.percentileMs(50), startLatency.percentileMs(99),
+            checkLatency.percentileMs(50), checkLatency.percentileMs(99),
+            checkLatency.count(), String.format("%.1f", checkLatency.count() / seconds),
+            detectionDelay.percentileMs(50), detectionDelay.percentileMs(99),
+            STUB.getRequestCount() - upstreamBefore, STUB.getInjectedErrors());
+
+        assertThat(done).as("all simulated users finished").isTrue();
+        assertThat(failed.get()).as("sessions failed or timed out").isZero();
+        assertThat(completed.get()).isEqualTo(users.size());
+    }
+
+    private void simulateUser(ScheduledExecutorService executor, CountDownLatch finished,
+                              User user, Problem problem) {
+        try {
+            long start = System.nanoTime();
+            JsonNode session = send(user, HttpRequest.newBuilder(uri("/api/sessions/start"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"problemId\":" + problem.getId() + "}")));
+            startLatency.record(System.nanoTime() - start);
+            long sessionId = session.path("id").asLong();
+
+            long solveMs = ThreadLocalRandom.current().nextLong(minSolveMs, maxSolveMs + 1);
+            long[] submittedAt = {0};
+            executor.schedule(() -> {
+                STUB.addSubmission(user.getLeetcodeUsername(), problem.getTitleSlug(), "python3");
+                submittedAt[0] = System.nanoTime();
+            }, solveMs, TimeUnit.MILLISECONDS);
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            executor.schedule(() -> check(executor, finished, user, sessionId, submittedAt, deadline),
+                pollIntervalMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            log.warn("Load test user {} failed to start: {}", user.getUsername(), e.getMessage());
+            failed.incrementAndGet();
+            finished.countDown();
+        }
+    }
+
+    private void check(ScheduledExecutorService executor, CountDownLatch finished,
+                       User user, long sessionId, long[] submittedAt, long deadline) {
+        try {
+            long start = System.nanoTime();
+            JsonNode session = send(user, HttpRequest.newBuilder(uri("/api/sessions/" + sessionId + "/check")).GET());
+            long now = System.nanoTime();
+            checkLatency.record(now - start);
+
+            if ("COMPLETED".equals(session.path("status").asText())) {
+                detectionDelay.record(now - submittedAt[0]);
+                completed.incrementAndGet();
+                finished.countDown();
+            } else if (now > deadline) {
+                failed.incrementAndGet();
+                finished.countDown();
+            } else {
+                executor.schedule(() -> check(executor, finished, user, sessionId, submittedAt, deadline),
+                    pollIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (Exception e) {
+            log.warn("Load test check for session {} failed: {}", sessionId, e.getMessage());
+            failed.incrementAndGet();
+            finished.countDown();
+        }
+    }
+
+    private JsonNode send(User user, HttpRequest.Builder request) throws Exception {
+        HttpResponse<byte[]> response = httpClient.send(
+            request.header(USER_HEADER, String.valueOf(user.getId())).build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + ": " + new String(response.body()));
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private List<Problem> seedProblems() {
+        List<Problem> problems = problemRepository.findAll();
+        if (!problems.isEmpty()) {
+            return problems;
+        }
+
+        Problem.Difficulty[] difficulties = Problem.Difficulty.values();
+        for (int i = 1; i <= problemCount; i++) {
+            Problem problem = new Problem();
+            problem.setTitle("Load Problem " + i);
+            problem.setTitleSlug("load-problem-" + i);
+            problem.setCategory("Load Test " + (i % 10));
+            problem.setDifficulty(difficulties[i % difficulties.length]);
+            problem.setLeetcodeUrl("https://leetcode.com/problems/load-problem-" + i + "/");
+            problem.setIsPremium(false);
+            problems.add(problem);
+        }
+        problems = problemRepository.saveAll(problems);
+        // Sessions are started against the in-memory catalog
+        problemCatalog.reload();
+        return problems;
+    }
+
+    private List<User> seedUsers() {
+        List<User> users = new ArrayList<>();
+        for (int i = 1; i <= userCount; i++) {
+            User user = new User();
+            user.setUsername("load-user-" + i);
+            user.setEmail("load-user-" + i + "@lanki.test");
+            user.setPasswordHash("-");
+            user.setLeetcodeUsername("load-user-" + i);
+            user.setLeetcodeSession("stub-session");
+            user.setCsrfToken("stub-csrf");
+            users.add(user);
+        }
+        List<User> saved = userRepository.saveAll(users);
+        saved.forEach(user -> USERS.put(user.getId(), user));
+        return saved;
+    }
+
+    /**
+     * Collects latencies in nanoseconds for percentile reporting.
+     */
+    private static class LatencyRecorder {
+
+        private long[] samples = new long[1024];
+        private int size;
+
+        synchronized void record(long nanos) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        }
+
+        synchronized int count() {
+            return size;
+        }
+
+        synchronized String percentileMs(int percentile) {
+            if (size == 0) {
+                return "-";
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int index = Math.min(size - 1, (int) Math.ceil(percentile / 100.0 * size) - 1);
+            return String.format("%.2f", sorted[Math.max(0, index)] / 1e6);
+        }
+    }
+}
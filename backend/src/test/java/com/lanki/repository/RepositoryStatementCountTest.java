@@ -0,0 +1,135 @@
+package com.lanki.repository;
+
+import com.lanki.model.Problem;
+import com.lanki.model.ProblemSession;
+import com.lanki.model.SpacedRepetitionCard;
+import com.lanki.model.User;
+import com.lanki.model.UserProgress;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statements issued by the per-user list queries, counted with Hibernate statistics.
+ * Each must stay a single statement however many rows the user has, including the
+ * problem every caller reads from each row.
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.show-sql=false"
+})
+class RepositoryStatementCountTest {
+
+    private static final int PROBLEMS = 60;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserProgressRepository progressRepository;
+
+    @Autowired
+    private ProblemSessionRepository sessionRepository;
+
+    @Autowired
+    private SpacedRepetitionCardRepository cardRepository;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setUsername("statements");
+        user.setEmail("statements@lanki.test");
+        user.setPasswordHash("-");
+        entityManager.persist(user);
+
+        Problem.Difficulty[] difficulties = Problem.Difficulty.values();
+        for (int i = 1; i <= PROBLEMS; i++) {
+            Problem problem = new Problem();
+            problem.setTitle("Statement Problem " + i);
+            problem.setTitleSlug("statement-problem-" + i);
+            problem.setCategory("Category " + (i % 5));
+            problem.setDifficulty(difficulties[i % difficulties.length]);
+            problem.setLeetcodeUrl("https://leetcode.com/problems/statement-problem-" + i + "/");
+            entityManager.persist(problem);
+
+            UserProgress progress = new UserProgress();
+            progress.setUser(user);
+            progress.setProblem(problem);
+            progress.setStatus(i % 2 == 0 ? UserProgress.ProgressStatus.COMPLETED : UserProgress.ProgressStatus.IN_PROGRESS);
+            entityManager.persist(progress);
+
+            SpacedRepetitionCard card = new SpacedRepetitionCard();
+            card.setUser(user);
+            card.setProblem(problem);
+            card.setNextReviewDate(LocalDate.now().minusDays(i % 3));
+            entityManager.persist(card);
+
+            if (i % 10 == 0) {
+                ProblemSession session = new ProblemSession();
+                session.setUser(user);
+                session.setProblem(problem);
+                session.setStartedAt(LocalDateTime.now());
+                entityManager.persist(session);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void progressStatusesAreOneStatement() {
+        List<Object[]> statuses = progressRepository.findStatusesByUserId(user.getId());
+
+        assertThat(statuses).hasSize(PROBLEMS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void activeSessionsLoadTheirProblemsInTheSameStatement() {
+        List<String> titles = new ArrayList<>();
+        sessionRepository.findActiveSessionsByUserId(user.getId())
+            .forEach(session -> titles.add(session.getProblem().getTitle()));
+
+        assertThat(titles).hasSize(PROBLEMS / 10);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cardListsLoadTheirProblemsInTheSameStatement() {
+        List<String> titles = new ArrayList<>();
+        cardRepository.findAllCardsByUserIdOrderedByReviewDate(user.getId())
+            .forEach(card -> titles.add(card.getProblem().getTitle()));
+        assertThat(titles).hasSize(PROBLEMS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        entityManager.clear();
+        statistics.clear();
+        titles.clear();
+        cardRepository.findDueCardsByUserId(user.getId(), LocalDate.now())
+            .forEach(card -> titles.add(card.getProblem().getTitle()));
+        assertThat(titles).hasSize(PROBLEMS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,183 @@
+package com.lanki.service;
+
+import com.lanki.dto.SessionDTO;
+import com.lanki.model.Problem;
+import com.lanki.model.Submission;
+import com.lanki.model.User;
+import com.lanki.repository.ProblemRepository;
+import com.lanki.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent starts, checks, abandons and completions on a few users and problems,
+ * after which ActiveSessionRegistry must hold exactly the ACTIVE rows of problem_sessions.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class ActiveSessionRegistryStressTest {
+
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 300;
+    private static final int USERS = 3;
+    private static final int PROBLEMS = 4;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private ActiveSessionRegistry activeSessions;
+
+    @Autowired
+    private ProblemCatalog problemCatalog;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<User> users = new ArrayList<>();
+    private final List<Long> problemIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= USERS; i++) {
+            String name = "stress-user-" + i;
+            users.add(userRepository.findByUsername(name).orElseGet(() -> {
+                User user = new User();
+                user.setUsername(name);
+                user.setEmail(name + "@lanki.test");
+                user.setPasswordHash("-");
+                return userRepository.save(user);
+            }));
+        }
+        for (int i = 1; i <= PROBLEMS; i++) {
+            String slug = "stress-problem-" + i;
+            String title = "Stress Problem " + i;
+            problemIds.add(problemRepository.findByTitleSlug(slug).orElseGet(() -> {
+                Problem problem = new Problem();
+                problem.setTitle(title);
+                problem.setTitleSlug(slug);
+                problem.setCategory("Stress");
+                problem.setDifficulty(Problem.Difficulty.EASY);
+                problem.setLeetcodeUrl("https://leetcode.com/problems/" + slug + "/");
+                return problemRepository.save(problem);
+            }).getId());
+        }
+        problemCatalog.reload();
+        assertThat(activeSessions.isReady()).isTrue();
+    }
+
+    @Test
+    void registryMatchesTheTableAfterConcurrentChanges() throws Exception {
+        // Sessions any thread may check, abandon or complete, whatever their state
+        List<SessionDTO> started = new CopyOnWriteArrayList<>();
+        Map<Long, User> owners = new ConcurrentHashMap<>();
+        AtomicLong submissionIds = new AtomicLong();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch go = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            futures.add(executor.submit(() -> {
+                go.await();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    try {
+                        int operation = random.nextInt(10);
+                        if (operation < 4 || started.isEmpty()) {
+                            User user = users.get(random.nextInt(USERS));
+                            SessionDTO session = sessionService.startSession(user,
+                                problemIds.get(random.nextInt(PROBLEMS)));
+                            owners.put(session.getId(), user);
+                            started.add(session);
+                            continue;
+                        }
+                        Long sessionId = started.get(random.nextInt(started.size())).getId();
+                        User owner = owners.get(sessionId);
+                        if (operation < 7) {
+                            assertThat(sessionService.checkForSubmission(owner, sessionId).getId())
+                                .isEqualTo(sessionId);
+                        } else if (operation < 9) {
+                            sessionService.abandonSession(owner, sessionId);
+                        } else {
+                            sessionService.completeSessions(Map.of(sessionId,
+                                submission(owner, "stress-" + submissionIds.incrementAndGet())));
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertThat(failures).isEmpty();
+        assertThat(started).isNotEmpty();
+
+        List<Map<String, Object>> duplicates = jdbcTemplate.queryForList("""
+            SELECT user_id, problem_id FROM problem_sessions
+            WHERE status = 'ACTIVE'
+            GROUP BY user_id, problem_id
+            HAVING COUNT(*) > 1
+            """);
+        assertThat(duplicates).isEmpty();
+
+        for (User user : users) {
+            Set<Long> active = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM problem_sessions WHERE user_id = ? AND status = 'ACTIVE'", Long.class, user.getId()));
+            Set<Long> registered = new HashSet<>();
+            activeSessions.forUser(user.getId()).forEach(session -> registered.add(session.id()));
+            assertThat(registered).isEqualTo(active);
+        }
+        for (SessionDTO session : started) {
+            String status = jdbcTemplate.queryForObject(
+                "SELECT status FROM problem_sessions WHERE id = ?", String.class, session.getId());
+            assertThat(activeSessions.get(session.getId()) != null)
+                .as("session %d is %s", session.getId(), status)
+                .isEqualTo("ACTIVE".equals(status));
+        }
+    }
+
+    private Submission submission(User user, String leetcodeSubmissionId) {
+        Submission submission = new Submission();
+        submission.setUser(user);
+        submission.setLanguage("python3");
+        submission.setStatus("Accepted");
+        submission.setSubmittedAt(LocalDateTime.now());
+        submission.setLeetcodeSubmissionId(leetcodeSubmissionId);
+        return submission;
+    }
+}
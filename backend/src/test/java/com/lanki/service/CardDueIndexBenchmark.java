@@ -0,0 +1,135 @@
+package com.lanki.service;
+
+import com.lanki.LankiApplication;
+import com.lanki.repository.SpacedRepetitionCardRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Due counts for the dashboard: CardDueIndex against the repository queries it
+ * answers in place of (countDueCardsByUserId and countDueCardsByDay), on an H2
+ * database seeded with cards spread over the next three months.
+ *
+ * Run with: mvn -Pbench test-compile exec:exec -Dbench="CardDueIndex -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardDueIndexBenchmark {
+
+    private static final int USERS = 200;
+    private static final int FORECAST_DAYS = 30;
+
+    @Param({"300"})
+    public int cardsPerUser;
+
+    private ConfigurableApplicationContext context;
+    private CardDueIndex cardDueIndex;
+    private SpacedRepetitionCardRepository cardRepository;
+    private List<Long> userIds;
+    private LocalDate today;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(LankiApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.main.banner-mode=off",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN")
+            .run();
+        cardDueIndex = context.getBean(CardDueIndex.class);
+        cardRepository = context.getBean(SpacedRepetitionCardRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        today = LocalDate.now();
+
+        List<Object[]> problems = new ArrayList<>();
+        for (int i = 1; i <= cardsPerUser; i++) {
+            problems.add(new Object[] {"Bench Problem " + i, "bench-problem-" + i, "Bench", "MEDIUM",
+                "https://leetcode.com/problems/bench-problem-" + i + "/", false});
+        }
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO problems (title, title_slug, category, difficulty, leetcode_url, is_premium)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """, problems);
+        List<Long> problemIds = jdbcTemplate.queryForList(
+            "SELECT id FROM problems WHERE title_slug LIKE 'bench-problem-%' ORDER BY id", Long.class);
+
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 1; i <= USERS; i++) {
+            users.add(new Object[] {"bench-user-" + i, "bench-user-" + i + "@lanki.test", "-"});
+        }
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO users (username, email, password_hash, balance_review_load, scheduler, created_at)
+            VALUES (?, ?, ?, FALSE, 'SM2', CURRENT_TIMESTAMP)
+            """, users);
+        userIds = jdbcTemplate.queryForList(
+            "SELECT id FROM users WHERE username LIKE 'bench-user-%' ORDER BY id", Long.class);
+
+        SplittableRandom random = new SplittableRandom(42);
+        List<Object[]> cards = new ArrayList<>();
+        for (Long userId : userIds) {
+            for (Long problemId : problemIds) {
+                cards.add(new Object[] {userId, problemId, today.plusDays(random.nextInt(-10, 90))});
+            }
+        }
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO spaced_repetition_cards (user_id, problem_id, ease_factor, interval_days, repetitions, next_review_date)
+            VALUES (?, ?, 2.5, 1, 0, ?)
+            """, cards);
+        cardDueIndex.load();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long countDueIndex() {
+        return cardDueIndex.countDue(nextUser(), today);
+    }
+
+    @Benchmark
+    public long countDueRepository() {
+        return cardRepository.countDueCardsByUserId(nextUser(), today);
+    }
+
+    @Benchmark
+    public int[] countDueByDayIndex() {
+        return cardDueIndex.countDueByDay(nextUser(), today, FORECAST_DAYS);
+    }
+
+    @Benchmark
+    public List<Object[]> countDueByDayRepository() {
+        return cardRepository.countDueCardsByDay(nextUser(), today, today.plusDays(FORECAST_DAYS - 1));
+    }
+
+    private Long nextUser() {
+        next = (next + 1) % userIds.size();
+        return userIds.get(next);
+    }
+}
@@ -0,0 +1,162 @@
+package com.lanki.service;
+
+import com.lanki.dto.ReviewDTO;
+import com.lanki.model.Problem;
+import com.lanki.model.SpacedRepetitionCard;
+import com.lanki.model.User;
+import com.lanki.repository.ProblemRepository;
+import com.lanki.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Card state replayed from review_log: late offline reviews and the parameters logged with each row.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class CardReplayServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 1, 5, 9, 0);
+
+    @Autowired
+    private ReviewBatchService reviewBatchService;
+
+    @Autowired
+    private CardReplayService cardReplayService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Problem problem;
+
+    @BeforeEach
+    void setUp() {
+        problem = problemRepository.findByTitleSlug("replay-problem").orElseGet(() -> {
+            Problem created = new Problem();
+            created.setTitle("Replay Problem");
+            created.setTitleSlug("replay-problem");
+            created.setCategory("Replay");
+            created.setDifficulty(Problem.Difficulty.MEDIUM);
+            created.setLeetcodeUrl("https://leetcode.com/problems/replay-problem/");
+            return problemRepository.save(created);
+        });
+    }
+
+    @Test
+    void lateReviewIsAppliedInTimeOrder() {
+        for (User.Scheduler scheduler : User.Scheduler.values()) {
+            User inOrder = user("in-order-" + scheduler, scheduler);
+            reviewBatchService.applyReviews(inOrder, List.of(review(0, 4), review(3, 2), review(10, 5)));
+
+            User late = user("late-" + scheduler, scheduler);
+            reviewBatchService.applyReviews(late, List.of(review(0, 4), review(10, 5)));
+            reviewBatchService.applyReviews(late, List.of(review(3, 2)));
+
+            assertSameState(card(late), card(inOrder));
+            assertThat(card(late).getLastReviewDate()).isEqualTo(START.plusDays(10));
+        }
+    }
+
+    @Test
+    void lateReviewBeforeASnapshotReplaysTheWholeLog() {
+        User inOrder = user("snapshot-in-order", User.Scheduler.FSRS);
+        reviewBatchService.applyReviews(inOrder, List.of(review(0, 4), review(3, 2), review(10, 5)));
+
+        User late = user("snapshot-late", User.Scheduler.FSRS);
+        reviewBatchService.applyReviews(late, List.of(review(0, 4), review(10, 5)));
+        // Every review is older than snapshot-after-days, so the snapshot covers both
+        cardReplayService.compact();
+        reviewBatchService.applyReviews(late, List.of(review(3, 2)));
+
+        assertSameState(card(late), card(inOrder));
+    }
+
+    @Test
+    void rebuildKeepsStateOfLateReviews() {
+        User late = user("rebuild-late", User.Scheduler.FSRS);
+        reviewBatchService.applyReviews(late, List.of(review(0, 3), review(20, 4)));
+        reviewBatchService.applyReviews(late, List.of(review(2, 1), review(30, 5)));
+        SpacedRepetitionCard applied = card(late);
+
+        cardReplayService.rebuildAll();
+
+        assertSameState(card(late), applied);
+    }
+
+    @Test
+    void replayUsesTheWeightsLoggedWithEachReview() {
+        User user = user("refitted", User.Scheduler.FSRS);
+        double[] fitted = FsrsScheduler.DEFAULT_WEIGHTS.clone();
+        fitted[4] = 8;
+        user.setFsrsWeights(FsrsScheduler.formatWeights(fitted));
+        user = userRepository.save(user);
+        reviewBatchService.applyReviews(user, List.of(review(0, 2), review(5, 4)));
+        SpacedRepetitionCard applied = card(user);
+
+        // Refitting after the reviews must not change the replayed history
+        user.setFsrsWeights(null);
+        userRepository.save(user);
+        cardReplayService.rebuildAll();
+
+        assertSameState(card(user), applied);
+    }
+
+    private User user(String name, User.Scheduler scheduler) {
+        User user = new User();
+        user.setUsername("replay-" + name);
+        user.setEmail("replay-" + name + "@lanki.test");
+        user.setPasswordHash("-");
+        user.setScheduler(scheduler);
+        return userRepository.save(user);
+    }
+
+    private ReviewDTO review(int day, int quality) {
+        return new ReviewDTO(problem.getId(), quality, START.plusDays(day));
+    }
+
+    private SpacedRepetitionCard card(User user) {
+        Map<Long, SpacedRepetitionCard> cards = cardReplayService.replayCards(user.getId(), List.of(problem.getId()));
+        SpacedRepetitionCard stored = jdbcTemplate.queryForObject("""
+            SELECT ease_factor, interval_days, repetitions, next_review_date, last_review_date, stability, difficulty
+            FROM spaced_repetition_cards WHERE user_id = ? AND problem_id = ?
+            """, (rs, row) -> {
+                SpacedRepetitionCard card = new SpacedRepetitionCard();
+                card.setEaseFactor(rs.getDouble("ease_factor"));
+                card.setInterval(rs.getInt("interval_days"));
+                card.setRepetitions(rs.getInt("repetitions"));
+                card.setNextReviewDate(rs.getObject("next_review_date", LocalDate.class));
+                card.setLastReviewDate(rs.getObject("last_review_date", LocalDateTime.class));
+                card.setStability(rs.getObject("stability", Double.class));
+                card.setDifficulty(rs.getObject("difficulty", Double.class));
+                return card;
+            }, user.getId(), problem.getId());
+        // The stored card is what the log replays to
+        assertSameState(cards.get(problem.getId()), stored);
+        return stored;
+    }
+
+    private static void assertSameState(SpacedRepetitionCard actual, SpacedRepetitionCard expected) {
+        assertThat(actual.getEaseFactor()).isEqualTo(expected.getEaseFactor());
+        assertThat(actual.getInterval()).isEqualTo(expected.getInterval());
+        assertThat(actual.getRepetitions()).isEqualTo(expected.getRepetitions());
+        assertThat(actual.getNextReviewDate()).isEqualTo(expected.getNextReviewDate());
+        assertThat(actual.getLastReviewDate()).isEqualTo(expected.getLastReviewDate());
+        assertThat(actual.getStability()).isEqualTo(expected.getStability());
+        assertThat(actual.getDifficulty()).isEqualTo(expected.getDifficulty());
+    }
+}
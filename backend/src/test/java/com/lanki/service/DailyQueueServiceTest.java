@@ -0,0 +1,202 @@
+package com.lanki.service;
+
+import com.lanki.dto.DailyProblemDTO;
+import com.lanki.dto.ProblemDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Daily queues over an in-memory card table: patches against a full rebuild, the
+ * version check that keeps a patch over an older load, and eviction.
+ */
+class DailyQueueServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private record Card(long userId, long problemId, LocalDate due, LocalDateTime lastReview, int repetitions) {
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+    private final ProblemCatalog problemCatalog = mock(ProblemCatalog.class);
+    private final CardDueIndex cardDueIndex = mock(CardDueIndex.class);
+
+    private final List<Card> table = new ArrayList<>();
+    private final AtomicInteger queries = new AtomicInteger();
+    private Runnable afterRead = () -> { };
+
+    private DailyQueueService service;
+
+    @BeforeEach
+    void setUp() {
+        when(problemCatalog.find(anyLong())).thenAnswer(invocation -> {
+            ProblemDTO problem = new ProblemDTO();
+            problem.setId(invocation.getArgument(0));
+            return problem;
+        });
+        when(cardDueIndex.countDue(anyLong(), any())).thenAnswer(invocation ->
+            (long) dueRows(List.of(invocation.<Long>getArgument(0)), invocation.getArgument(1)).size());
+        when(cardDueIndex.usersWithDueCards(any())).thenAnswer(invocation ->
+            dueRows(null, invocation.getArgument(0)).stream().map(Card::userId).distinct().toList());
+        doAnswer(invocation -> {
+            Map<String, ?> params = invocation.getArgument(1);
+            RowCallbackHandler handler = invocation.getArgument(2);
+            queries.incrementAndGet();
+            @SuppressWarnings("unchecked")
+            List<Long> userIds = (List<Long>) params.get("userIds");
+            for (Card card : dueRows(userIds, (LocalDate) params.get("today"))) {
+                handler.processRow(resultSet(card));
+            }
+            afterRead.run();
+            return null;
+        }).when(jdbcTemplate).query(anyString(), anyMap(), any(RowCallbackHandler.class));
+
+        service = service(100);
+        insert(new Card(1, 10, TODAY.minusDays(3), TODAY.minusDays(9).atStartOfDay(), 2));
+        insert(new Card(1, 11, TODAY, TODAY.minusDays(4).atStartOfDay(), 1));
+        insert(new Card(1, 12, TODAY.minusDays(1), null, 0));
+        insert(new Card(1, 13, TODAY.plusDays(5), TODAY.minusDays(1).atStartOfDay(), 3));
+        insert(new Card(2, 10, TODAY, TODAY.minusDays(2).atStartOfDay(), 1));
+    }
+
+    @Test
+    void patchesAfterCommitMatchAFullRebuild() {
+        assertThat(problemIds(service.getDailyProblems(1L))).containsExactly(10L, 12L, 11L);
+        assertThat(problemIds(service.getDailyProblems(2L))).containsExactly(10L);
+        int loaded = queries.get();
+
+        LocalDateTime now = LocalDateTime.now();
+        change(new Card(1, 10, TODAY.plusDays(6), now, 3));                    // reviewed, leaves the queue
+        change(new Card(1, 12, TODAY, now, 0));                                // failed, due again today
+        change(new Card(1, 13, TODAY.minusDays(2), now.minusDays(1), 3));      // rescheduled into the queue
+        change(new Card(2, 10, TODAY.plusDays(1), now, 2));                    // user 2 has nothing left
+        change(new Card(2, 14, TODAY, null, 0));                               // and a new card
+        List<DailyProblemDTO> patched = service.getDailyProblems(1L);
+        List<DailyProblemDTO> patchedOther = service.getDailyProblems(2L);
+        assertThat(queries.get()).isEqualTo(loaded);
+
+        service.rebuildAll();
+        assertThat(service.getDailyProblems(1L)).isEqualTo(patched);
+        assertThat(service.getDailyProblems(2L)).isEqualTo(patchedOther);
+        assertThat(problemIds(patched)).containsExactly(13L, 11L, 12L);
+        assertThat(problemIds(patchedOther)).containsExactly(14L);
+        assertThat(patched.get(0).getIsOverdue()).isTrue();
+        assertThat(patched.get(0).getDaysSinceLastReview()).isEqualTo(1);
+        assertThat(patched.get(2).getDaysSinceLastReview()).isZero();
+    }
+
+    @Test
+    void changeCommittedDuringALoadIsNotUndoneByIt() {
+        afterRead = () -> {
+            afterRead = () -> { };
+            change(new Card(1, 10, TODAY.plusDays(6), LocalDateTime.now(), 3));
+        };
+
+        // The caller gets what it read; the cache keeps the newer change and reloads
+        assertThat(problemIds(service.getDailyProblems(1L))).containsExactly(10L, 12L, 11L);
+        assertThat(problemIds(service.getDailyProblems(1L))).containsExactly(12L, 11L);
+        assertThat(queries.get()).isEqualTo(2);
+    }
+
+    @Test
+    void patchDuringTheRebuildIsKeptOverTheRebuiltQueue() {
+        service.getDailyProblems(1L);
+        afterRead = () -> {
+            afterRead = () -> { };
+            change(new Card(1, 11, TODAY.plusDays(3), LocalDateTime.now(), 2));
+        };
+
+        service.rebuildAll();
+        int rebuilt = queries.get();
+
+        assertThat(problemIds(service.getDailyProblems(1L))).containsExactly(10L, 12L);
+        assertThat(queries.get()).isEqualTo(rebuilt);
+    }
+
+    @Test
+    void rebuildDropsQueuesOfUsersWithNothingDue() {
+        service.getDailyProblems(2L);
+        table.removeIf(card -> card.userId() == 2);
+
+        service.rebuildAll();
+        int rebuilt = queries.get();
+
+        // Dropped, and reloaded from CardDueIndex alone
+        assertThat(service.getDailyProblems(2L)).isEmpty();
+        assertThat(queries.get()).isEqualTo(rebuilt);
+    }
+
+    @Test
+    void leastRecentlyUsedQueuesAreEvictedBeyondMaxUsers() {
+        DailyQueueService small = service(2);
+        insert(new Card(3, 10, TODAY, null, 0));
+
+        small.getDailyProblems(1L);
+        small.getDailyProblems(2L);
+        small.getDailyProblems(1L);
+        small.getDailyProblems(3L);
+        assertThat(queries.get()).isEqualTo(3);
+
+        small.getDailyProblems(1L);
+        small.getDailyProblems(3L);
+        assertThat(queries.get()).isEqualTo(3);
+        small.getDailyProblems(2L);
+        assertThat(queries.get()).isEqualTo(4);
+    }
+
+    private DailyQueueService service(int maxUsers) {
+        return new DailyQueueService(jdbcTemplate, problemCatalog, cardDueIndex, 1, 1, maxUsers);
+    }
+
+    private void insert(Card card) {
+        table.removeIf(row -> row.userId() == card.userId() && row.problemId() == card.problemId());
+        table.add(card);
+    }
+
+    private void change(Card card) {
+        insert(card);
+        service.onCardChanged(new DailyQueueService.CardChangedEvent(card.userId(), card.problemId(), card.due(),
+            card.lastReview(), card.repetitions()));
+    }
+
+    private List<Card> dueRows(List<Long> userIds, LocalDate day) {
+        return table.stream()
+            .filter(card -> (userIds == null || userIds.contains(card.userId())) && !card.due().isAfter(day))
+            .sorted(Comparator.comparingLong(Card::userId).thenComparing(Card::due).thenComparingLong(Card::problemId))
+            .toList();
+    }
+
+    private static ResultSet resultSet(Card card) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("user_id")).thenReturn(card.userId());
+        when(rs.getLong("problem_id")).thenReturn(card.problemId());
+        when(rs.getObject("next_review_date", LocalDate.class)).thenReturn(card.due());
+        when(rs.getObject("last_review_date", LocalDateTime.class)).thenReturn(card.lastReview());
+        when(rs.getInt("repetitions")).thenReturn(card.repetitions());
+        return rs;
+    }
+
+    private static List<Long> problemIds(List<DailyProblemDTO> daily) {
+        return daily.stream().map(dto -> dto.getProblem().getId()).toList();
+    }
+}
@@ -0,0 +1,154 @@
+package com.lanki.service;
+
+import com.lanki.LankiApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The weekly FSRS fit on a synthetic review_log: users reviewing cards on the
+ * intervals FSRS gives them with the default weights, recalling each card with the
+ * predicted probability. optimizeAll is the whole job (load, fit, write back);
+ * fit is one user's Adam run. Use -prof gc for the allocation per fit.
+ *
+ * Run with: mvn -Pbench test-compile exec:exec -Dbench="FsrsOptimizer -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class FsrsOptimizerBenchmark {
+
+    private static final int CARDS_PER_USER = 40;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 6, 9, 0);
+
+    @Param({"8"})
+    public int users;
+
+    @Param({"10"})
+    public int reviewsPerCard;
+
+    private ConfigurableApplicationContext context;
+    private FsrsOptimizer optimizer;
+    private FsrsOptimizer.History history;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(LankiApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.main.banner-mode=off",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN",
+                "lanki.scheduler.fsrs.optimizer.min-reviews=1")
+            .run();
+        optimizer = context.getBean(FsrsOptimizer.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> problems = new ArrayList<>();
+        for (int i = 1; i <= CARDS_PER_USER; i++) {
+            problems.add(new Object[] {"Bench Problem " + i, "bench-problem-" + i, "Bench", "MEDIUM",
+                "https://leetcode.com/problems/bench-problem-" + i + "/", false});
+        }
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO problems (title, title_slug, category, difficulty, leetcode_url, is_premium)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """, problems);
+        List<Long> problemIds = jdbcTemplate.queryForList(
+            "SELECT id FROM problems WHERE title_slug LIKE 'bench-problem-%' ORDER BY id", Long.class);
+
+        List<Object[]> userRows = new ArrayList<>();
+        for (int i = 1; i <= users; i++) {
+            userRows.add(new Object[] {"bench-user-" + i, "bench-user-" + i + "@lanki.test", "-"});
+        }
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO users (username, email, password_hash, balance_review_load, scheduler, created_at)
+            VALUES (?, ?, ?, FALSE, 'FSRS', CURRENT_TIMESTAMP)
+            """, userRows);
+        List<Long> userIds = jdbcTemplate.queryForList(
+            "SELECT id FROM users WHERE username LIKE 'bench-user-%' ORDER BY id", Long.class);
+
+        SplittableRandom random = new SplittableRandom(42);
+        String parameters = FsrsScheduler.formatWeights(FsrsScheduler.DEFAULT_WEIGHTS);
+        List<Object[]> reviews = new ArrayList<>();
+        for (Long userId : userIds) {
+            FsrsOptimizer.History userHistory = new FsrsOptimizer.History(userId);
+            for (Long problemId : problemIds) {
+                simulateCard(random, userHistory, (day, quality) -> reviews.add(new Object[] {
+                    userId, problemId, quality, START.plusDays(day), parameters}));
+            }
+            if (history == null) {
+                history = userHistory;
+            }
+        }
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO review_log (user_id, problem_id, quality, reviewed_at, scheduler, scheduler_version,
+                                    parameters, interval_days)
+            VALUES (?, ?, ?, ?, 'FSRS', 2, ?, 1)
+            """, reviews);
+    }
+
+    // One card reviewed reviewsPerCard times, each on the day its interval ends
+    private void simulateCard(SplittableRandom random, FsrsOptimizer.History userHistory, ReviewSink sink) {
+        double[] w = FsrsScheduler.DEFAULT_WEIGHTS;
+        int grade = 2 + random.nextInt(3);
+        double stability = FsrsScheduler.initialStability(w, grade);
+        double difficulty = FsrsScheduler.initialDifficulty(w, grade);
+        long day = random.nextInt(30);
+        sink.review(day, grade + 1);
+        userHistory.add(true, 0, grade);
+
+        for (int r = 1; r < reviewsPerCard; r++) {
+            int interval = FsrsScheduler.nextInterval(stability, 0.9, 36500);
+            // Reviews come a little early or late, as they do in practice
+            int elapsed = Math.max(1, interval + random.nextInt(-interval / 4 - 1, interval / 4 + 2));
+            double recall = FsrsScheduler.retrievability(elapsed, stability);
+            grade = random.nextDouble() < recall ? 2 + random.nextInt(3) : 1;
+            day += elapsed;
+            sink.review(day, grade == 1 ? 1 : grade + 1);
+            userHistory.add(false, elapsed, grade);
+            stability = FsrsScheduler.nextStability(w, difficulty, stability, recall, grade);
+            difficulty = FsrsScheduler.nextDifficulty(w, difficulty, grade);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int optimizeAll() {
+        return optimizer.optimizeAll();
+    }
+
+    @Benchmark
+    public double[] fit() {
+        return optimizer.fit(history);
+    }
+
+    @FunctionalInterface
+    private interface ReviewSink {
+        void review(long day, int quality);
+    }
+}
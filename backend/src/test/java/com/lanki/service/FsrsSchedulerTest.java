@@ -0,0 +1,51 @@
+package com.lanki.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Initial and next memory state against FSRS-4.5 reference values for the default weights.
+ */
+class FsrsSchedulerTest {
+
+    private static final double[] W = FsrsScheduler.DEFAULT_WEIGHTS;
+
+    @Test
+    void initialStabilityIsTheGradeWeight() {
+        assertThat(FsrsScheduler.initialStability(W, 1)).isCloseTo(0.4872, within(1e-9));
+        assertThat(FsrsScheduler.initialStability(W, 2)).isCloseTo(1.4003, within(1e-9));
+        assertThat(FsrsScheduler.initialStability(W, 3)).isCloseTo(3.7145, within(1e-9));
+        assertThat(FsrsScheduler.initialStability(W, 4)).isCloseTo(13.8206, within(1e-9));
+    }
+
+    @Test
+    void initialDifficultyIsLinearInGrade() {
+        // D0(G) = w4 - (G - 3) * w5
+        assertThat(FsrsScheduler.initialDifficulty(W, 1)).isCloseTo(7.6214, within(1e-9));
+        assertThat(FsrsScheduler.initialDifficulty(W, 2)).isCloseTo(6.3916, within(1e-9));
+        assertThat(FsrsScheduler.initialDifficulty(W, 3)).isCloseTo(5.1618, within(1e-9));
+        assertThat(FsrsScheduler.initialDifficulty(W, 4)).isCloseTo(3.9320, within(1e-9));
+    }
+
+    @Test
+    void nextDifficultyRevertsTowardsTheInitialGoodDifficulty() {
+        // A "good" review only moves difficulty towards D0(3) = w4
+        double next = FsrsScheduler.nextDifficulty(W, 8.0, 3);
+        assertThat(next).isCloseTo(0.031 * 5.1618 + 0.969 * 8.0, within(1e-9));
+        assertThat(FsrsScheduler.nextDifficulty(W, 5.1618, 3)).isCloseTo(5.1618, within(1e-9));
+
+        // "again" from D0(1): 7.6214 + 2 * w6, then reverted
+        assertThat(FsrsScheduler.nextDifficulty(W, 7.6214, 1))
+            .isCloseTo(0.031 * 5.1618 + 0.969 * (7.6214 + 2 * 0.8975), within(1e-9));
+    }
+
+    @Test
+    void intervalAtNinetyPercentRetentionIsTheStability() {
+        FsrsScheduler scheduler = new FsrsScheduler(0.9, 36500);
+        assertThat(scheduler.nextInterval(3.7145)).isEqualTo(4);
+        assertThat(scheduler.nextInterval(13.8206)).isEqualTo(14);
+        assertThat(FsrsScheduler.retrievability(10, 10)).isCloseTo(0.9, within(1e-9));
+    }
+}
@@ -0,0 +1,130 @@
+package com.lanki.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lanki.dto.ProblemDTO;
+import com.lanki.dto.ProblemPageDTO;
+import com.lanki.model.Problem;
+import com.lanki.repository.ProblemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * page() over 200 problems: ids 1-180 are Arrays and the rest Graphs, every 20th
+ * is HARD and every 3rd premium, so the Arrays id array is far longer than the
+ * HARD one.
+ */
+class ProblemCatalogTest {
+
+    private static final int PROBLEMS = 200;
+
+    private final ProblemRepository problemRepository = mock(ProblemRepository.class);
+    private final List<Problem> problems = new ArrayList<>();
+    private ProblemCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= PROBLEMS; id++) {
+            Problem problem = new Problem();
+            problem.setId(id);
+            problem.setTitle("Problem " + id);
+            problem.setTitleSlug("problem-" + id);
+            problem.setCategory(id <= 180 ? "Arrays" : "Graphs");
+            problem.setDifficulty(id % 20 == 0 ? Problem.Difficulty.HARD : Problem.Difficulty.MEDIUM);
+            problem.setLeetcodeUrl("https://leetcode.com/problems/problem-" + id + "/");
+            problem.setIsPremium(id % 3 == 0);
+            problems.add(problem);
+        }
+        when(problemRepository.findAll(any(Sort.class))).thenReturn(problems);
+        catalog = new ProblemCatalog(problemRepository, mock(JdbcTemplate.class), new ObjectMapper());
+        catalog.reload();
+    }
+
+    @Test
+    void walksTheShortestArrayOfTheActiveFilters() {
+        ProblemCatalog.Snapshot snapshot = catalog.snapshot();
+        long[] arrays = snapshot.idsByCategory()[snapshot.categoryNames().indexOf("Arrays")];
+        long[] graphs = snapshot.idsByCategory()[snapshot.categoryNames().indexOf("Graphs")];
+        long[] hard = snapshot.idsByDifficulty()[Problem.Difficulty.HARD.ordinal()];
+        long[] premium = snapshot.idsByPremium()[1];
+        assertThat(arrays).hasSize(180);
+        assertThat(hard).hasSize(10);
+        assertThat(premium).hasSize(66);
+
+        assertThat(source(new ProblemCatalog.Filter("Arrays", Problem.Difficulty.HARD, null, null))).isSameAs(hard);
+        assertThat(source(new ProblemCatalog.Filter("Arrays", null, true, null))).isSameAs(premium);
+        assertThat(source(new ProblemCatalog.Filter("Graphs", null, false, null))).isSameAs(graphs);
+        assertThat(source(new ProblemCatalog.Filter(null, null, null, null))).isSameAs(snapshot.ids());
+        assertThat(source(new ProblemCatalog.Filter("Trees", Problem.Difficulty.HARD, null, null))).isEmpty();
+    }
+
+    @Test
+    void pagesThroughTheDifficultyArrayWhenItIsShorterThanTheCategory() {
+        ProblemCatalog.Filter filter = new ProblemCatalog.Filter("Arrays", Problem.Difficulty.HARD, null, null);
+
+        ProblemPageDTO first = catalog.page(filter, null, 4);
+        ProblemPageDTO second = catalog.page(filter, first.getNextCursor(), 4);
+        ProblemPageDTO last = catalog.page(filter, second.getNextCursor(), 4);
+
+        assertThat(ids(first)).containsExactly(20L, 40L, 60L, 80L);
+        assertThat(first.getNextCursor()).isEqualTo(80L);
+        assertThat(ids(second)).containsExactly(100L, 120L, 140L, 160L);
+        assertThat(ids(last)).containsExactly(180L);
+        assertThat(last.getNextCursor()).isNull();
+    }
+
+    @Test
+    void everyFilterCombinationPagesToTheMatchingProblems() {
+        for (String category : Arrays.asList(null, "Arrays", "Graphs")) {
+            for (Problem.Difficulty difficulty : Arrays.asList(null, Problem.Difficulty.MEDIUM, Problem.Difficulty.HARD)) {
+                for (Boolean premium : Arrays.asList(null, false, true)) {
+                    ProblemCatalog.Filter filter = new ProblemCatalog.Filter(category, difficulty, premium, null);
+                    List<Long> paged = new ArrayList<>();
+                    Long after = null;
+                    do {
+                        ProblemPageDTO page = catalog.page(filter, after, 7);
+                        paged.addAll(ids(page));
+                        after = page.getNextCursor();
+                    } while (after != null);
+
+                    List<Long> expected = problems.stream()
+                        .filter(p -> category == null || category.equals(p.getCategory()))
+                        .filter(p -> difficulty == null || difficulty == p.getDifficulty())
+                        .filter(p -> premium == null || premium.equals(p.getIsPremium()))
+                        .map(Problem::getId)
+                        .toList();
+                    assertThat(paged).as("%s", filter).isEqualTo(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    void premiumIndexSplitsEveryProblem() {
+        ProblemCatalog.Snapshot snapshot = catalog.snapshot();
+        long[] all = LongStream.concat(Arrays.stream(snapshot.idsByPremium()[0]), Arrays.stream(snapshot.idsByPremium()[1]))
+            .sorted()
+            .toArray();
+        assertThat(all).isEqualTo(snapshot.ids());
+        assertThat(Arrays.stream(snapshot.idsByPremium()[1])).allMatch(id -> id % 3 == 0);
+    }
+
+    private long[] source(ProblemCatalog.Filter filter) {
+        return ProblemCatalog.source(catalog.snapshot(), filter);
+    }
+
+    private static List<Long> ids(ProblemPageDTO page) {
+        return page.getItems().stream().map(ProblemDTO::getId).toList();
+    }
+}
@@ -0,0 +1,83 @@
+package com.lanki.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/problems/search over a catalog of 3000 problems: real titles mixed with
+ * generated ones, queried with exact words, prefixes and typos for the top 10.
+ *
+ * Run with: mvn -Pbench test-compile exec:exec -Dbench="ProblemSearchIndex -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProblemSearchIndexBenchmark {
+
+    private static final int PROBLEMS = 3000;
+
+    private static final String[] REAL_TITLES = {
+        "Two Sum", "3Sum", "3Sum Closest", "4Sum", "Add Two Numbers", "Longest Substring Without Repeating Characters",
+        "Median of Two Sorted Arrays", "Longest Palindromic Substring", "Trapping Rain Water", "Container With Most Water",
+        "Binary Tree Inorder Traversal", "Binary Tree Level Order Traversal", "Validate Binary Search Tree",
+        "Merge k Sorted Lists", "Word Search", "Word Ladder", "Course Schedule", "Number of Islands",
+        "Coin Change", "Edit Distance", "Climbing Stairs", "House Robber", "LRU Cache", "Min Stack"
+    };
+
+    private static final String[] WORDS = {
+        "array", "string", "tree", "graph", "binary", "search", "sorted", "minimum", "maximum", "path", "sum",
+        "subarray", "substring", "palindrome", "matrix", "interval", "window", "stack", "queue", "heap", "linked",
+        "list", "node", "distance", "count", "number", "valid", "merge", "partition", "sequence", "kth", "element"
+    };
+
+    @Param({"3sum", "trap rian", "trappng rain", "longest substr", "binary tre", "median sorted"})
+    public String query;
+
+    private ProblemSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        // Titles and slugs are indexed by problem id, as in ProblemCatalog
+        String[] titles = new String[PROBLEMS + 1];
+        String[] slugs = new String[PROBLEMS + 1];
+        long[] ids = new long[PROBLEMS];
+        for (int id = 1; id <= PROBLEMS; id++) {
+            if (id <= REAL_TITLES.length) {
+                titles[id] = REAL_TITLES[id - 1];
+            } else {
+                StringBuilder title = new StringBuilder();
+                int words = 2 + random.nextInt(4);
+                for (int w = 0; w < words; w++) {
+                    String word = WORDS[random.nextInt(WORDS.length)];
+                    title.append(w > 0 ? " " : "").append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+                }
+                titles[id] = title + " " + (id / WORDS.length);
+            }
+            slugs[id] = titles[id].toLowerCase(Locale.ROOT).replace(' ', '-') + "-" + id;
+            ids[id - 1] = id;
+        }
+        index = ProblemSearchIndex.build(titles, slugs, ids);
+    }
+
+    @Benchmark
+    public int[] search() {
+        return index.search(query, 10);
+    }
+}
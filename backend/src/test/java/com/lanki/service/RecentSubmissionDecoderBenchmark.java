@@ -0,0 +1,94 @@
+package com.lanki.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * recentAcSubmissionList response to matched submission: the streaming
+ * RecentSubmissionDecoder against the JsonNode tree walk it replaced, which built
+ * a LocalDateTime for every entry before comparing slugs.
+ *
+ * Run with: mvn -Pbench test-compile exec:exec -Dbench="RecentSubmissionDecoder -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecentSubmissionDecoderBenchmark {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final long NOW = 1_700_000_000L;
+
+    // LeetCode returns up to the requested limit; the poller asks for 20
+    @Param({"20"})
+    public int submissions;
+
+    private byte[] body;
+    private String slug;
+    private long startEpochSecond;
+    private LocalDateTime start;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (int i = 0; i < submissions; i++) {
+            list.add(Map.of(
+                "id", String.valueOf(1_000_000 + i),
+                "titleSlug", "problem-" + i,
+                "timestamp", String.valueOf(NOW - i * 600L),
+                "statusDisplay", "Accepted",
+                "lang", "python3"));
+        }
+        body = OBJECT_MAPPER.writeValueAsBytes(Map.of("data", Map.of("recentAcSubmissionList", list)));
+        // The session's problem is the oldest entry, so both paths look at every submission
+        slug = "problem-" + (submissions - 1);
+        startEpochSecond = NOW - submissions * 600L;
+        start = LocalDateTime.ofInstant(Instant.ofEpochSecond(startEpochSecond), ZoneId.systemDefault());
+    }
+
+    @Benchmark
+    public String streaming() throws IOException {
+        for (RecentSubmission submission : RecentSubmissionDecoder.decode(body)) {
+            if (submission.timestamp() > startEpochSecond && submission.titleSlug().equals(slug)) {
+                return submission.id();
+            }
+        }
+        return null;
+    }
+
+    @Benchmark
+    public String tree() throws IOException {
+        JsonNode list = OBJECT_MAPPER.readTree(body).path("data").path("recentAcSubmissionList");
+        for (JsonNode node : list) {
+            String titleSlug = node.get("titleSlug").asText();
+            LocalDateTime submittedAt = LocalDateTime.ofInstant(
+                Instant.ofEpochSecond(node.get("timestamp").asLong()), ZoneId.systemDefault());
+            if (titleSlug.equals(slug) && submittedAt.isAfter(start)) {
+                return node.get("id").asText();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.lanki.service;
+
+import com.lanki.LankiApplication;
+import com.lanki.dto.ReviewDTO;
+import com.lanki.model.User;
+import com.lanki.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reviews applied per second by POST /api/reviews/batch at the 10k batch limit: an
+ * offline client syncing reviews of 2000 cards. The first batch creates the cards;
+ * every measured batch is a day later than the one before, so all of its cards are
+ * updated and none replayed.
+ *
+ * Run with: mvn -Pbench test-compile exec:exec -Dbench="ReviewBatch -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewBatchBenchmark {
+
+    private static final int REVIEWS = 10_000;
+    private static final int CARDS = 2_000;
+
+    @Param({"SM2", "FSRS"})
+    public User.Scheduler scheduler;
+
+    private ConfigurableApplicationContext context;
+    private ReviewBatchService reviewBatchService;
+    private User user;
+    private List<Long> problemIds;
+    private LocalDateTime day;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(LankiApplication.class)
+            .properties(
+                "server.port=0",
+                "spring.main.banner-mode=off",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN")
+            .run();
+        reviewBatchService = context.getBean(ReviewBatchService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Object[]> problems = new ArrayList<>();
+        for (int i = 1; i <= CARDS; i++) {
+            problems.add(new Object[] {"Bench Problem " + i, "bench-problem-" + i, "Bench", "MEDIUM",
+                "https://leetcode.com/problems/bench-problem-" + i + "/", false});
+        }
+        jdbcTemplate.batchUpdate("""
+            INSERT INTO problems (title, title_slug, category, difficulty, leetcode_url, is_premium)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """, problems);
+        problemIds = jdbcTemplate.queryForList(
+            "SELECT id FROM problems WHERE title_slug LIKE 'bench-problem-%' ORDER BY id", Long.class);
+
+        user = new User();
+        user.setUsername("bench-user");
+        user.setEmail("bench-user@lanki.test");
+        user.setPasswordHash("-");
+        user.setScheduler(scheduler);
+        user = context.getBean(UserRepository.class).save(user);
+
+        // Far enough back for every measured batch to stay in the past
+        day = LocalDateTime.now().minusYears(20);
+        reviewBatchService.applyReviews(user, nextBatch());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REVIEWS)
+    public ReviewBatchService.BatchResult applyReviews() {
+        return reviewBatchService.applyReviews(user, nextBatch());
+    }
+
+    // Five reviews of each card over the day, in request order
+    private List<ReviewDTO> nextBatch() {
+        day = day.plusDays(1);
+        SplittableRandom random = new SplittableRandom(day.toLocalDate().toEpochDay());
+        List<ReviewDTO> reviews = new ArrayList<>(REVIEWS);
+        for (int i = 0; i < REVIEWS; i++) {
+            reviews.add(new ReviewDTO(problemIds.get(i % CARDS), 1 + random.nextInt(5), day.plusSeconds(i)));
+        }
+        return reviews;
+    }
+}
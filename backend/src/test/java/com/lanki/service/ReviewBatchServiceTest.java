@@ -0,0 +1,233 @@
+package com.lanki.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lanki.dto.ReviewDTO;
+import com.lanki.model.Problem;
+import com.lanki.model.SpacedRepetitionCard;
+import com.lanki.model.User;
+import com.lanki.repository.ProblemRepository;
+import com.lanki.repository.SpacedRepetitionCardRepository;
+import com.lanki.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * POST /api/reviews/batch: time order, validation, id lookups in chunks (of 2 here)
+ * and a single review of the same card arriving mid-batch.
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "lanki.reviews.jdbc-batch-size=2"})
+@AutoConfigureMockMvc
+class ReviewBatchServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2026, 2, 2, 9, 0);
+    private static final int PROBLEMS = 5;
+
+    @Autowired
+    private ReviewBatchService reviewBatchService;
+
+    @Autowired
+    private SpacedRepetitionService spacedRepetitionService;
+
+    @Autowired
+    private CardReplayService cardReplayService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Autowired
+    private SpacedRepetitionCardRepository cardRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final List<Problem> problems = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 1; i <= PROBLEMS; i++) {
+            String slug = "batch-problem-" + i;
+            String title = "Batch Problem " + i;
+            problems.add(problemRepository.findByTitleSlug(slug).orElseGet(() -> {
+                Problem created = new Problem();
+                created.setTitle(title);
+                created.setTitleSlug(slug);
+                created.setCategory("Batch");
+                created.setDifficulty(Problem.Difficulty.MEDIUM);
+                created.setLeetcodeUrl("https://leetcode.com/problems/" + slug + "/");
+                return problemRepository.save(created);
+            }));
+        }
+    }
+
+    @Test
+    void reviewsAreAppliedInTimeOrderWhateverTheRequestOrder() {
+        List<ReviewDTO> inOrder = new ArrayList<>();
+        for (Problem problem : problems) {
+            inOrder.add(review(problem, 0, 4));
+            inOrder.add(review(problem, 1, 2));
+            inOrder.add(review(problem, 4, 5));
+        }
+        List<ReviewDTO> shuffled = new ArrayList<>(inOrder);
+        Collections.shuffle(shuffled, new Random(7));
+
+        User ordered = user("ordered");
+        User unordered = user("unordered");
+        assertThat(reviewBatchService.applyReviews(ordered, inOrder))
+            .isEqualTo(new ReviewBatchService.BatchResult(15, PROBLEMS, 0));
+        reviewBatchService.applyReviews(unordered, shuffled);
+
+        for (Problem problem : problems) {
+            SpacedRepetitionCard expected = card(ordered, problem);
+            SpacedRepetitionCard actual = card(unordered, problem);
+            assertThat(actual.getRepetitions()).isEqualTo(expected.getRepetitions());
+            assertThat(actual.getEaseFactor()).isEqualTo(expected.getEaseFactor());
+            assertThat(actual.getNextReviewDate()).isEqualTo(expected.getNextReviewDate());
+            assertThat(actual.getLastReviewDate()).isEqualTo(START.plusDays(4));
+        }
+    }
+
+    @Test
+    void laterBatchesUpdateEveryCardAcrossLookupChunks() {
+        User user = user("chunks");
+        List<ReviewDTO> first = new ArrayList<>();
+        List<ReviewDTO> second = new ArrayList<>();
+        for (Problem problem : problems) {
+            first.add(review(problem, 0, 4));
+            second.add(review(problem, 6, 4));
+        }
+        reviewBatchService.applyReviews(user, first);
+
+        assertThat(reviewBatchService.applyReviews(user, second))
+            .isEqualTo(new ReviewBatchService.BatchResult(PROBLEMS, 0, PROBLEMS));
+        for (Problem problem : problems) {
+            assertThat(card(user, problem).getRepetitions()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void invalidBatchesAreBadRequestsAndWriteNothing() throws Exception {
+        User user = user("invalid");
+        Long problemId = problems.get(0).getId();
+
+        mockMvc.perform(post("/api/reviews/batch")
+                .with(authentication(new UsernamePasswordAuthenticationToken(user, null, List.of())))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(
+                    new ReviewDTO(problemId, 4, START),
+                    new ReviewDTO(problemId, 4, LocalDateTime.now().plusDays(1))))))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value(containsString("is in the future")));
+
+        mockMvc.perform(post("/api/reviews/batch")
+                .with(authentication(new UsernamePasswordAuthenticationToken(user, null, List.of())))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(new ReviewDTO(problemId, 6, START)))))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Quality must be between 0 and 5"));
+
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM review_log WHERE user_id = ?", Integer.class, user.getId())).isZero();
+        assertThat(cardRepository.findByUserAndProblem(user, problems.get(0))).isEmpty();
+    }
+
+    @Test
+    void reviewWithinClockSkewIsTakenAsNow() {
+        User user = user("skew");
+        LocalDateTime before = LocalDateTime.now();
+
+        reviewBatchService.applyReviews(user, List.of(new ReviewDTO(problems.get(0).getId(), 4, before.plusMinutes(2))));
+
+        assertThat(card(user, problems.get(0)).getLastReviewDate()).isBetween(before, LocalDateTime.now());
+    }
+
+    @Test
+    void singleReviewDuringABatchWaitsForItInsteadOfOverwritingIt() throws Exception {
+        User user = user("lost-update");
+        Problem problem = problems.get(0);
+        reviewBatchService.applyReviews(user, List.of(review(problem, 0, 4)));
+
+        CountDownLatch batchApplied = new CountDownLatch(1);
+        CountDownLatch commitBatch = new CountDownLatch(1);
+        CompletableFuture<Void> batch = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            reviewBatchService.applyReviews(user, List.of(review(problem, 3, 5)));
+            batchApplied.countDown();
+            try {
+                commitBatch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertThat(batchApplied.await(10, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Void> single = CompletableFuture.runAsync(() ->
+            spacedRepetitionService.reviewCard(user, problem, 3));
+        Thread.sleep(300);
+        assertThat(single).isNotDone();
+        commitBatch.countDown();
+        batch.get(10, TimeUnit.SECONDS);
+        single.get(10, TimeUnit.SECONDS);
+
+        // Three successful reviews, the single one last, and the card agrees with its log
+        SpacedRepetitionCard card = card(user, problem);
+        assertThat(card.getRepetitions()).isEqualTo(3);
+        assertThat(card.getLastQuality()).isEqualTo(3);
+        SpacedRepetitionCard replayed = cardReplayService.replayCards(user.getId(), Set.of(problem.getId()))
+            .get(problem.getId());
+        assertThat(card.getRepetitions()).isEqualTo(replayed.getRepetitions());
+        assertThat(card.getEaseFactor()).isEqualTo(replayed.getEaseFactor());
+        assertThat(card.getNextReviewDate()).isEqualTo(replayed.getNextReviewDate());
+    }
+
+    private User user(String name) {
+        User user = new User();
+        user.setUsername("batch-" + name);
+        user.setEmail("batch-" + name + "@lanki.test");
+        user.setPasswordHash("-");
+        return userRepository.save(user);
+    }
+
+    private SpacedRepetitionCard card(User user, Problem problem) {
+        return cardRepository.findByUserAndProblem(user, problem).orElseThrow();
+    }
+
+    private static ReviewDTO review(Problem problem, int day, int quality) {
+        return new ReviewDTO(problem.getId(), quality, START.plusDays(day));
+    }
+}
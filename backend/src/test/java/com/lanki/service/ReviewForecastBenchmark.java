@@ -0,0 +1,74 @@
+package com.lanki.service;
+
+import com.lanki.dto.ForecastDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cards simulated per second by the nightly forecast: 100k cards over the 90-day
+ * global horizon, split between SM-2 and FSRS users as set by fsrsShare.
+ *
+ * Run with: mvn -Pbench test-compile exec:exec -Dbench="ReviewForecast -p parallelism=1,4"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReviewForecastBenchmark {
+
+    private static final int CARDS = 100_000;
+    private static final int DAYS = 90;
+
+    @Param({"0", "0.5", "1"})
+    public double fsrsShare;
+
+    @Param({"4"})
+    public int parallelism;
+
+    private ReviewForecastService forecastService;
+    private ReviewForecastService.Cards cards;
+    private LocalDate today;
+
+    @Setup
+    public void setUp() {
+        forecastService = new ReviewForecastService(null, new Sm2Scheduler(2.5, 1.3, 6),
+            new FsrsScheduler(0.9, 36500), parallelism, 365, DAYS, new double[] {2, 3, 5, 15, 45, 30});
+        today = LocalDate.now();
+        long todayDay = today.toEpochDay();
+
+        SplittableRandom random = new SplittableRandom(42);
+        cards = new ReviewForecastService.Cards();
+        int fsrsWeights = cards.weightsIndex(null);
+        for (int i = 0; i < CARDS; i++) {
+            int interval = 1 + random.nextInt(60);
+            long dueDay = todayDay + random.nextInt(-5, 60);
+            if (random.nextDouble() < fsrsShare) {
+                cards.addFsrs(fsrsWeights, interval, 1 + random.nextDouble() * 9, dueDay - interval, dueDay);
+            } else {
+                cards.add(1.3 + random.nextDouble() * 1.5, interval, random.nextInt(10), dueDay);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CARDS)
+    public ForecastDTO simulate() {
+        return forecastService.simulate(cards, today, DAYS);
+    }
+}
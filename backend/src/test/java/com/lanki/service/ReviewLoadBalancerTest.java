@@ -0,0 +1,117 @@
+package com.lanki.service;
+
+import com.lanki.model.SpacedRepetitionCard;
+import com.lanki.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Fuzz windows and day choice of ReviewLoadBalancer, with fuzz-factor 0.1 and max-fuzz-days 7.
+ */
+class ReviewLoadBalancerTest {
+
+    private static final LocalDateTime REVIEWED_AT = LocalDateTime.of(2026, 3, 2, 9, 0);
+
+    private final CardDueIndex cardDueIndex = mock(CardDueIndex.class);
+    private final ReviewLoadBalancer balancer = new ReviewLoadBalancer(cardDueIndex, 0.1, 7);
+
+    @Test
+    void fuzzWindowGrowsWithTheIntervalUpToTheMaximum() {
+        assertThat(balancer.fuzzDays(1)).isZero();
+        assertThat(balancer.fuzzDays(2)).isZero();
+        assertThat(balancer.fuzzDays(3)).isEqualTo(1);
+        assertThat(balancer.fuzzDays(30)).isEqualTo(3);
+        assertThat(balancer.fuzzDays(70)).isEqualTo(7);
+        assertThat(balancer.fuzzDays(400)).isEqualTo(7);
+    }
+
+    @Test
+    void balancedIntervalStaysInsideTheWindow() {
+        // interval 30: fuzz 3, window of 7 days starting at interval 27
+        assertThat(balancer.balancedInterval(30, new int[] {0, 5, 5, 5, 5, 5, 5}, new SplittableRandom(1))).isEqualTo(27);
+        assertThat(balancer.balancedInterval(30, new int[] {5, 5, 5, 5, 5, 5, 0}, new SplittableRandom(1))).isEqualTo(33);
+        assertThat(balancer.balancedInterval(30, new int[] {9, 8, 7, 2, 7, 8, 9}, new SplittableRandom(1))).isEqualTo(30);
+
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 1000; i++) {
+            int[] dueCounts = new int[7];
+            for (int d = 0; d < dueCounts.length; d++) {
+                dueCounts[d] = random.nextInt(4);
+            }
+            assertThat(balancer.balancedInterval(30, dueCounts, random)).isBetween(27, 33);
+        }
+    }
+
+    @Test
+    void tiesAreBrokenOnlyAmongTheLeastLoadedDaysAndRepeatForTheSameSeed() {
+        int[] dueCounts = {4, 1, 3, 4, 2, 1, 4};
+        Set<Integer> chosen = new HashSet<>();
+        for (long seed = 0; seed < 200; seed++) {
+            int interval = balancer.balancedInterval(30, dueCounts, new SplittableRandom(seed));
+            assertThat(balancer.balancedInterval(30, dueCounts, new SplittableRandom(seed))).isEqualTo(interval);
+            chosen.add(interval);
+        }
+        // Offsets 1 and 5 of the window, both reached
+        assertThat(chosen).containsExactlyInAnyOrder(28, 32);
+    }
+
+    @Test
+    void balanceLeavesTheCardAloneWhenTheUserHasItOff() {
+        SpacedRepetitionCard card = reviewedCard(30);
+
+        balancer.balance(user(false), card);
+
+        assertThat(card.getInterval()).isEqualTo(30);
+        assertThat(card.getNextReviewDate()).isEqualTo(REVIEWED_AT.toLocalDate().plusDays(30));
+        verifyNoInteractions(cardDueIndex);
+    }
+
+    @Test
+    void balanceMovesTheCardToTheLeastLoadedDay() {
+        LocalDate windowStart = REVIEWED_AT.toLocalDate().plusDays(27);
+        when(cardDueIndex.countDueByDay(1L, windowStart, 7)).thenReturn(new int[] {6, 6, 6, 6, 6, 1, 6});
+        SpacedRepetitionCard card = reviewedCard(30);
+
+        balancer.balance(user(true), card);
+
+        verify(cardDueIndex).countDueByDay(1L, windowStart, 7);
+        assertThat(card.getInterval()).isEqualTo(32);
+        assertThat(card.getNextReviewDate()).isEqualTo(REVIEWED_AT.toLocalDate().plusDays(32));
+    }
+
+    @Test
+    void shortIntervalsAreNotMoved() {
+        SpacedRepetitionCard card = reviewedCard(2);
+
+        balancer.balance(user(true), card);
+
+        assertThat(card.getInterval()).isEqualTo(2);
+        verifyNoInteractions(cardDueIndex);
+    }
+
+    private static User user(boolean balanceReviewLoad) {
+        User user = new User();
+        user.setId(1L);
+        user.setBalanceReviewLoad(balanceReviewLoad);
+        return user;
+    }
+
+    private static SpacedRepetitionCard reviewedCard(int interval) {
+        SpacedRepetitionCard card = new SpacedRepetitionCard();
+        card.setInterval(interval);
+        card.setLastReviewDate(REVIEWED_AT);
+        card.setNextReviewDate(REVIEWED_AT.toLocalDate().plusDays(interval));
+        return card;
+    }
+}
@@ -0,0 +1,205 @@
+package com.lanki.service;
+
+import com.lanki.dto.SessionDTO;
+import com.lanki.model.Problem;
+import com.lanki.model.User;
+import com.lanki.repository.ProblemRepository;
+import com.lanki.repository.UserRepository;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Session event streams opened through SessionController: delivery after commit to
+ * single-session and all-sessions streams, heartbeats, and dropping streams that
+ * completed or timed out. Scheduled heartbeats are pushed out of the way.
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "lanki.sse.heartbeat-ms=3600000"})
+@AutoConfigureMockMvc
+class SessionEventServiceTest {
+
+    @Autowired
+    private SessionEventService sessionEventService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private ProblemCatalog problemCatalog;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private User user;
+    private final List<Long> problemIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.findByUsername("sse-user").orElseGet(() -> {
+            User created = new User();
+            created.setUsername("sse-user");
+            created.setEmail("sse-user@lanki.test");
+            created.setPasswordHash("-");
+            return userRepository.save(created);
+        });
+        for (int i = 1; i <= 2; i++) {
+            String slug = "sse-problem-" + i;
+            String title = "SSE Problem " + i;
+            problemIds.add(problemRepository.findByTitleSlug(slug).orElseGet(() -> {
+                Problem problem = new Problem();
+                problem.setTitle(title);
+                problem.setTitleSlug(slug);
+                problem.setCategory("SSE");
+                problem.setDifficulty(Problem.Difficulty.EASY);
+                problem.setLeetcodeUrl("https://leetcode.com/problems/" + slug + "/");
+                return problemRepository.save(problem);
+            }).getId());
+        }
+        problemCatalog.reload();
+        sessionService.getActiveSessions(user).forEach(session -> sessionService.abandonSession(user, session.getId()));
+    }
+
+    @Test
+    void changesReachSessionAndUserStreamsOnlyAfterCommit() throws Exception {
+        SessionDTO first = sessionService.startSession(user, problemIds.get(0));
+        SessionDTO second = sessionService.startSession(user, problemIds.get(1));
+        MvcResult sessionStream = open("/api/sessions/" + first.getId() + "/events");
+        MvcResult userStream = open("/api/sessions/events");
+        int before = subscriptions();
+
+        // Connecting sends the current state
+        assertThat(events(sessionStream)).containsExactly(first.getId() + ":ACTIVE");
+        assertThat(events(userStream)).containsExactlyInAnyOrder(first.getId() + ":ACTIVE", second.getId() + ":ACTIVE");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            sessionService.abandonSession(user, first.getId());
+            assertThat(events(sessionStream)).hasSize(1);
+            assertThat(events(userStream)).hasSize(2);
+        });
+        assertThat(events(sessionStream)).endsWith(first.getId() + ":ABANDONED");
+        assertThat(events(userStream)).endsWith(first.getId() + ":ABANDONED");
+        assertThat(body(sessionStream)).contains("\"status\":\"ABANDONED\"");
+
+        // The finished session's stream is completed, and dropped once the container
+        // completes the request; the user stream stays open
+        assertThat(dispatched(sessionStream)).isTrue();
+        assertThat(dispatched(userStream)).isFalse();
+        fire(sessionStream, listener -> listener.onComplete(new AsyncEvent(sessionStream.getRequest().getAsyncContext())));
+        assertThat(subscriptions()).isEqualTo(before - 1);
+
+        sessionService.abandonSession(user, second.getId());
+        assertThat(events(userStream)).endsWith(second.getId() + ":ABANDONED");
+        assertThat(events(sessionStream)).hasSize(2);
+    }
+
+    @Test
+    void heartbeatsReachEveryOpenStream() throws Exception {
+        MvcResult first = open("/api/sessions/events");
+        MvcResult second = open("/api/sessions/events");
+
+        sessionEventService.sendHeartbeats();
+        sessionEventService.sendHeartbeats();
+
+        assertThat(body(first)).containsOnlyOnce(":heartbeat\n\n".repeat(2));
+        assertThat(body(second)).contains(":heartbeat\n\n");
+    }
+
+    @Test
+    void timedOutAndCompletedStreamsAreDropped() throws Exception {
+        int before = subscriptions();
+        MvcResult timedOut = open("/api/sessions/events");
+        MvcResult completed = open("/api/sessions/events");
+        assertThat(subscriptions()).isEqualTo(before + 2);
+
+        fire(timedOut, listener -> listener.onTimeout(new AsyncEvent(timedOut.getRequest().getAsyncContext())));
+        assertThat(subscriptions()).isEqualTo(before + 1);
+
+        fire(completed, listener -> listener.onComplete(new AsyncEvent(completed.getRequest().getAsyncContext())));
+        assertThat(subscriptions()).isEqualTo(before);
+
+        // Nothing is sent to them any more
+        int sent = body(completed).length();
+        sessionEventService.sendHeartbeats();
+        assertThat(body(completed)).hasSize(sent);
+    }
+
+    @FunctionalInterface
+    private interface AsyncCallback {
+        void on(AsyncListener listener) throws IOException;
+    }
+
+    private MvcResult open(String path) throws Exception {
+        return mockMvc.perform(get(path)
+                .with(authentication(new UsernamePasswordAuthenticationToken(user, null, List.of()))))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    }
+
+    private static void fire(MvcResult result, AsyncCallback callback) throws IOException {
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            callback.on(listener);
+        }
+    }
+
+    // Completing an emitter dispatches the request back to the container
+    private static boolean dispatched(MvcResult result) {
+        return ((MockAsyncContext) result.getRequest().getAsyncContext()).getDispatchedPath() != null;
+    }
+
+    // Ids ("session:status") of the session events written so far
+    private static List<String> events(MvcResult result) {
+        List<String> ids = new ArrayList<>();
+        for (String line : body(result).split("\n")) {
+            if (line.startsWith("id:")) {
+                ids.add(line.substring(3));
+            }
+        }
+        return ids;
+    }
+
+    private static String body(MvcResult result) {
+        try {
+            return result.getResponse().getContentAsString();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private int subscriptions() {
+        @SuppressWarnings("unchecked")
+        Map<Long, Set<?>> subscriptions = (Map<Long, Set<?>>) ReflectionTestUtils.getField(sessionEventService, "subscriptions");
+        Set<?> userSubscriptions = subscriptions.get(user.getId());
+        return userSubscriptions != null ? userSubscriptions.size() : 0;
+    }
+}
@@ -0,0 +1,194 @@
+package com.lanki.service;
+
+import com.lanki.loadtest.LeetCodeStub;
+import com.lanki.model.Problem;
+import com.lanki.model.Submission;
+import com.lanki.model.User;
+import com.lanki.repository.ProblemRepository;
+import com.lanki.repository.SubmissionRepository;
+import com.lanki.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Enrichment of detected submissions against LeetCodeStub: stored details, retries
+ * after retry-delay-ms times the attempt, giving up after max-attempts, and runs
+ * that never wait on LeetCode.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.show-sql=false",
+    "lanki.enrichment.interval-ms=50",
+    "lanki.enrichment.retry-delay-ms=300",
+    "lanki.enrichment.max-attempts=3",
+    "lanki.leetcode.rate-limit.account-per-second=100",
+    "lanki.leetcode.rate-limit.account-burst=100",
+    "lanki.leetcode.circuit-breaker.failure-threshold=1000"
+})
+class SubmissionEnrichmentServiceTest {
+
+    private static final LeetCodeStub STUB = LeetCodeStub.start();
+    private static final AtomicLong SUBMISSION_IDS = new AtomicLong(5_000_000);
+
+    @DynamicPropertySource
+    static void leetCodeStub(DynamicPropertyRegistry registry) {
+        registry.add("lanki.leetcode.graphql-url", STUB::graphqlUrl);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.stop();
+    }
+
+    @Autowired
+    private SubmissionEnrichmentService enrichmentService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User user;
+    private Problem problem;
+
+    @BeforeEach
+    void setUp() {
+        STUB.configure(0, 0, 0, 0, 0);
+        STUB.failSubmissionDetails(0);
+        user = userRepository.findByUsername("enrichment-user").orElseGet(() -> {
+            User created = new User();
+            created.setUsername("enrichment-user");
+            created.setEmail("enrichment-user@lanki.test");
+            created.setPasswordHash("-");
+            created.setLeetcodeUsername("enrichment-account");
+            created.setLeetcodeSession("stub-session");
+            created.setCsrfToken("stub-csrf");
+            return userRepository.save(created);
+        });
+        problem = problemRepository.findByTitleSlug("enrichment-problem").orElseGet(() -> {
+            Problem created = new Problem();
+            created.setTitle("Enrichment Problem");
+            created.setTitleSlug("enrichment-problem");
+            created.setCategory("Enrichment");
+            created.setDifficulty(Problem.Difficulty.EASY);
+            created.setLeetcodeUrl("https://leetcode.com/problems/enrichment-problem/");
+            return problemRepository.save(created);
+        });
+    }
+
+    @Test
+    void detailsAreStored() {
+        long requests = STUB.getDetailsRequestCount();
+        Submission submission = submission();
+
+        enrichmentService.enqueue(submission, user);
+
+        awaitTrue(() -> stored(submission).get("code") != null, 5000);
+        long leetcodeId = Long.parseLong(submission.getLeetcodeSubmissionId());
+        Map<String, Object> row = stored(submission);
+        assertThat(row.get("runtime")).isEqualTo((int) (leetcodeId % 100) + 1);
+        assertThat((Double) row.get("memory"))
+            .isCloseTo((16_000_000 + (leetcodeId % 1000) * 1000) / (1024.0 * 1024.0), within(1e-9));
+        assertThat(STUB.getDetailsRequestCount() - requests).isEqualTo(1);
+    }
+
+    @Test
+    void failedFetchesAreRetriedWithGrowingDelay() {
+        long requests = STUB.getDetailsRequestCount();
+        STUB.failSubmissionDetails(2);
+        Submission submission = submission();
+        long start = System.currentTimeMillis();
+
+        enrichmentService.enqueue(submission, user);
+
+        awaitTrue(() -> stored(submission).get("code") != null, 10_000);
+        // 300 ms after the first failure, then 600 ms after the second
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(900);
+        assertThat(STUB.getDetailsRequestCount() - requests).isEqualTo(3);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws InterruptedException {
+        long requests = STUB.getDetailsRequestCount();
+        double failed = failedCount();
+        STUB.failSubmissionDetails(3);
+        Submission submission = submission();
+
+        enrichmentService.enqueue(submission, user);
+
+        awaitTrue(() -> failedCount() == failed + 1, 10_000);
+        // No fourth attempt follows
+        Thread.sleep(1200);
+        assertThat(STUB.getDetailsRequestCount() - requests).isEqualTo(3);
+        assertThat(stored(submission).get("code")).isNull();
+    }
+
+    @Test
+    void runsDoNotWaitForSlowResponses() {
+        STUB.configure(1500, 0, 0, 0, 0);
+        Submission submission = submission();
+        enrichmentService.enqueue(submission, user);
+
+        long start = System.currentTimeMillis();
+        enrichmentService.processQueue();
+        assertThat(System.currentTimeMillis() - start).isLessThan(500);
+
+        awaitTrue(() -> stored(submission).get("code") != null, 10_000);
+    }
+
+    private Submission submission() {
+        Submission submission = new Submission();
+        submission.setUser(user);
+        submission.setProblem(problem);
+        submission.setLanguage("python3");
+        submission.setStatus("Accepted");
+        submission.setSubmittedAt(LocalDateTime.now());
+        submission.setLeetcodeSubmissionId(String.valueOf(SUBMISSION_IDS.incrementAndGet()));
+        return submissionRepository.save(submission);
+    }
+
+    private Map<String, Object> stored(Submission submission) {
+        return jdbcTemplate.queryForMap("SELECT code, runtime, memory FROM submissions WHERE id = ?", submission.getId());
+    }
+
+    private double failedCount() {
+        return meterRegistry.get("lanki.enrichment.submissions").tag("result", "failed").counter().count();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition, long timeoutMs) {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition met within %d ms", timeoutMs).isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
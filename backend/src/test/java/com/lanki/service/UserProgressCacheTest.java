@@ -0,0 +1,205 @@
+package com.lanki.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lanki.model.Problem;
+import com.lanki.model.UserProgress.ProgressStatus;
+import com.lanki.repository.ProblemRepository;
+import com.lanki.repository.UserProgressRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Packed progress vectors over a catalog of 70 problems (three words of lanes), with
+ * categories A, B and C taking ids in turn so every category spans every word.
+ */
+class UserProgressCacheTest {
+
+    private static final int PROBLEMS = 70;
+
+    private final ProblemRepository problemRepository = mock(ProblemRepository.class);
+    private final UserProgressRepository userProgressRepository = mock(UserProgressRepository.class);
+    private final List<Problem> problems = new ArrayList<>();
+    private final Map<Long, Map<Long, ProgressStatus>> table = new HashMap<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    private Runnable afterRead = () -> { };
+
+    private ProblemCatalog catalog;
+    private UserProgressCache cache;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= PROBLEMS; id++) {
+            Problem problem = new Problem();
+            problem.setId(id);
+            problem.setTitle("Problem " + id);
+            problem.setTitleSlug("problem-" + id);
+            problem.setCategory(String.valueOf((char) ('A' + id % 3)));
+            problem.setDifficulty(Problem.Difficulty.EASY);
+            problem.setLeetcodeUrl("https://leetcode.com/problems/problem-" + id + "/");
+            problems.add(problem);
+        }
+        when(problemRepository.findAll(any(Sort.class))).thenAnswer(invocation -> problems);
+        catalog = new ProblemCatalog(problemRepository, mock(JdbcTemplate.class), new ObjectMapper());
+        catalog.reload();
+
+        when(userProgressRepository.findStatusesByUserId(anyLong())).thenAnswer(invocation -> {
+            loads.incrementAndGet();
+            List<Object[]> rows = new ArrayList<>();
+            table.getOrDefault(invocation.<Long>getArgument(0), Map.of())
+                .forEach((problemId, status) -> rows.add(new Object[] {problemId, status}));
+            afterRead.run();
+            return rows;
+        });
+        cache = cache(100);
+    }
+
+    @Test
+    void lanesOnEitherSideOfWordBoundariesKeepTheirOwnStatus() {
+        // Positions 31 | 32 and 63 | 64 straddle words; the ids are one higher
+        store(1, 32, ProgressStatus.COMPLETED);
+        store(1, 33, ProgressStatus.IN_PROGRESS);
+        store(1, 64, ProgressStatus.IN_PROGRESS);
+        store(1, 65, ProgressStatus.COMPLETED);
+        store(1, 70, ProgressStatus.COMPLETED);
+        store(1, 1, ProgressStatus.NOT_STARTED);
+
+        assertThat(cache.statuses(1L)).containsExactlyInAnyOrderEntriesOf(Map.of(
+            32L, "COMPLETED", 33L, "IN_PROGRESS", 64L, "IN_PROGRESS", 65L, "COMPLETED", 70L, "COMPLETED"));
+
+        cache.onProgressChanged(new UserProgressCache.ProgressChangedEvent(1L, 33L, ProgressStatus.COMPLETED));
+        cache.onProgressChanged(new UserProgressCache.ProgressChangedEvent(1L, 32L, ProgressStatus.NOT_STARTED));
+        assertThat(cache.statuses(1L)).containsExactlyInAnyOrderEntriesOf(Map.of(
+            33L, "COMPLETED", 64L, "IN_PROGRESS", 65L, "COMPLETED", 70L, "COMPLETED"));
+    }
+
+    @Test
+    void rollupsCountEveryWordAndOnlyTheirCategory() {
+        for (long id = 1; id <= PROBLEMS; id++) {
+            if (id % 4 == 0) {
+                store(1, id, ProgressStatus.COMPLETED);
+            } else if (id % 5 == 0) {
+                store(1, id, ProgressStatus.IN_PROGRESS);
+            }
+        }
+
+        assertThat(cache.total(1L)).isEqualTo(rollup(null));
+        Map<String, UserProgressCache.Rollup> byCategory = cache.byCategory(1L);
+        assertThat(byCategory.keySet()).containsExactly("A", "B", "C");
+        for (String category : byCategory.keySet()) {
+            assertThat(byCategory.get(category)).as(category).isEqualTo(rollup(category));
+        }
+        assertThat(byCategory.get("A").total() + byCategory.get("B").total() + byCategory.get("C").total())
+            .isEqualTo(PROBLEMS);
+    }
+
+    @Test
+    void changesAfterCommitPatchTheCachedVectorWithoutALoad() {
+        store(1, 10, ProgressStatus.IN_PROGRESS);
+        assertThat(cache.total(1L)).isEqualTo(new UserProgressCache.Rollup(0, 1, PROBLEMS));
+
+        cache.onProgressChanged(new UserProgressCache.ProgressChangedEvent(1L, 10L, ProgressStatus.COMPLETED));
+        cache.onProgressChanged(new UserProgressCache.ProgressChangedEvent(1L, 40L, ProgressStatus.IN_PROGRESS));
+        // Not cached: nothing to patch, and nothing loaded
+        cache.onProgressChanged(new UserProgressCache.ProgressChangedEvent(2L, 40L, ProgressStatus.COMPLETED));
+
+        assertThat(cache.total(1L)).isEqualTo(new UserProgressCache.Rollup(1, 1, PROBLEMS));
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void changeDuringALoadKeepsTheLoadOutOfTheCache() {
+        store(1, 10, ProgressStatus.IN_PROGRESS);
+        afterRead = () -> {
+            afterRead = () -> { };
+            store(1, 10, ProgressStatus.COMPLETED);
+            cache.onProgressChanged(new UserProgressCache.ProgressChangedEvent(1L, 10L, ProgressStatus.COMPLETED));
+        };
+
+        // The caller gets what it read; the next read loads again and sees the change
+        assertThat(cache.statuses(1L)).containsExactlyEntriesOf(Map.of(10L, "IN_PROGRESS"));
+        assertThat(cache.statuses(1L)).containsExactlyEntriesOf(Map.of(10L, "COMPLETED"));
+        assertThat(loads.get()).isEqualTo(2);
+        cache.statuses(1L);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void leastRecentlyUsedVectorsAreEvictedBeyondMaxUsers() {
+        UserProgressCache small = cache(2);
+
+        small.total(1L);
+        small.total(2L);
+        small.total(1L);
+        small.total(3L);
+        assertThat(loads.get()).isEqualTo(3);
+
+        small.total(1L);
+        small.total(3L);
+        assertThat(loads.get()).isEqualTo(3);
+        small.total(2L);
+        assertThat(loads.get()).isEqualTo(4);
+    }
+
+    @Test
+    void vectorOfAnOlderCatalogIsReloaded() {
+        store(1, 70, ProgressStatus.COMPLETED);
+        assertThat(cache.total(1L)).isEqualTo(new UserProgressCache.Rollup(1, 0, PROBLEMS));
+
+        Problem added = new Problem();
+        added.setId(71L);
+        added.setTitle("Problem 71");
+        added.setTitleSlug("problem-71");
+        added.setCategory("A");
+        added.setDifficulty(Problem.Difficulty.EASY);
+        added.setLeetcodeUrl("https://leetcode.com/problems/problem-71/");
+        problems.add(added);
+        catalog.reload();
+
+        assertThat(cache.total(1L)).isEqualTo(new UserProgressCache.Rollup(1, 0, PROBLEMS + 1));
+        assertThat(cache.byCategory(1L).get("A").total()).isEqualTo(24);
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private UserProgressCache cache(int maxUsers) {
+        return new UserProgressCache(userProgressRepository, catalog, new SimpleMeterRegistry(), maxUsers);
+    }
+
+    private void store(long userId, long problemId, ProgressStatus status) {
+        table.computeIfAbsent(userId, id -> new HashMap<>()).put(problemId, status);
+    }
+
+    // Counted from the table rather than the lanes
+    private UserProgressCache.Rollup rollup(String category) {
+        int completed = 0;
+        int inProgress = 0;
+        int total = 0;
+        for (Problem problem : problems) {
+            if (category != null && !category.equals(problem.getCategory())) {
+                continue;
+            }
+            total++;
+            ProgressStatus status = table.getOrDefault(1L, Map.of()).get(problem.getId());
+            if (status == ProgressStatus.COMPLETED) {
+                completed++;
+            } else if (status == ProgressStatus.IN_PROGRESS) {
+                inProgress++;
+            }
+        }
+        return new UserProgressCache.Rollup(completed, inProgress, total);
+    }
+}
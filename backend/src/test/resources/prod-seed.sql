@@ -0,0 +1,7 @@
+-- Catalog seeded by ProdProfileTest into an empty database
+INSERT INTO problems (title, title_slug, category, difficulty, leetcode_url, is_premium)
+VALUES ('Two Sum', 'two-sum', 'Arrays & Hashing', 'EASY', 'https://leetcode.com/problems/two-sum/', FALSE);
+INSERT INTO problems (title, title_slug, category, difficulty, leetcode_url, is_premium)
+VALUES ('Valid Parentheses', 'valid-parentheses', 'Stack', 'EASY', 'https://leetcode.com/problems/valid-parentheses/', FALSE);
+INSERT INTO problems (title, title_slug, category, difficulty, leetcode_url, is_premium)
+VALUES ('Merge k Sorted Lists', 'merge-k-sorted-lists', 'Linked List', 'HARD', 'https://leetcode.com/problems/merge-k-sorted-lists/', FALSE);
@@ -1,7 +1,7 @@
 import { useState } from 'react';
 import StartProblemModal from './StartProblemModal';
 import CompletionModal from './CompletionModal';
-import { startSession, checkSession } from '../services/api';
+import { startSession, subscribeToSession } from '../services/api';
 
 function ProblemCard({ problem, isDailyProblem = false, daysOverdue = null }) {
   const [showStartModal, setShowStartModal] = useState(false);
@@ -44,28 +44,23 @@ function ProblemCard({ problem, isDailyProblem = false, daysOverdue = null }) {
   };
 
   const startPolling = (sessionId) => {
-    const pollInterval = setInterval(async () => {
-      try {
-        const response = await checkSession(sessionId);
-        const updatedSession = response.data;
-
-        if (updatedSession.status === 'COMPLETED') {
-          // Submission detected!
-          clearInterval(pollInterval);
-          setSession(updatedSession);
-          setIsPolling(false);
-          setShowCompletionModal(true);
-        }
-      } catch (error) {
-        console.error('Error checking session:', error);
-        clearInterval(pollInterval);
+    // The server pushes the session state when a submission is detected
+    const source = subscribeToSession(sessionId, (updatedSession) => {
+      if (updatedSession.status === 'COMPLETED') {
+        // Submission detected!
+        source.close();
+        setSession(updatedSession);
+        setIsPolling(false);
+        setShowCompletionModal(true);
+      } else if (updatedSession.status === 'ABANDONED') {
+        source.close();
         setIsPolling(false);
       }
-    }, 5000); // Poll every 5 seconds
+    });
 
-    // Cleanup: stop polling after 2 hours
+    // Cleanup: stop waiting after 2 hours
     setTimeout(() => {
-      clearInterval(pollInterval);
+      source.close();
       setIsPolling(false);
     }, 2 * 60 * 60 * 1000);
   };
@@ -11,7 +11,7 @@ function StartProblemModal({ problem, onStart, onCancel }) {
         <ul className="text-gray-300 mb-6 space-y-2 list-disc list-inside">
           <li>Start the timer</li>
           <li>Open <span className="font-semibold">{problem.title}</span> on LeetCode in a new tab</li>
-          <li>Monitor for your submission (checking every 5 seconds)</li>
+          <li>Monitor for your submission and notify you as soon as it lands</li>
         </ul>
         <p className="text-sm text-gray-400 mb-6">
           Once you submit on LeetCode, you'll see a completion notification with your time!
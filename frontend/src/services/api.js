@@ -10,7 +10,22 @@ const api = axios.create({
 });
 
 // Problem APIs
-export const getAllProblems = () => api.get('/problems');
+// The catalog is the same for everyone and revalidated by ETag (the browser cache
+// turns a 304 into the cached body); progress is a small per-user overlay.
+export const getAllProblems = async () => {
+  const [catalog, progress] = await Promise.all([
+    api.get('/problems'),
+    api.get('/problems/progress'),
+  ]);
+  const problemsByCategory = {};
+  Object.entries(catalog.data).forEach(([category, problems]) => {
+    problemsByCategory[category] = problems.map(problem => ({
+      ...problem,
+      progressStatus: progress.data[problem.id] || 'NOT_STARTED',
+    }));
+  });
+  return { data: problemsByCategory };
+};
 
 export const getDailyProblems = () => api.get('/problems/daily');
 
@@ -23,6 +38,35 @@ export const startSession = (problemId) =>
 export const checkSession = (sessionId) =>
   api.get(`/sessions/${sessionId}/check`);
 
+// Reconnect attempts in a row before a session stream gives up
+const MAX_STREAM_RETRIES = 3;
+
+// Server-Sent Events stream that pushes the session state when it changes.
+// EventSource reconnects on its own; the server resends the current state on connect.
+// When the browser stops retrying (e.g. the server answered 401 or 404) or
+// MAX_STREAM_RETRIES reconnects fail in a row, the stream is closed and the state
+// is read once from /check instead.
+export const subscribeToSession = (sessionId, onUpdate) => {
+  const source = new EventSource(`${API_BASE_URL}/sessions/${sessionId}/events`);
+  let failures = 0;
+
+  source.onopen = () => {
+    failures = 0;
+  };
+  source.addEventListener('session', (event) => onUpdate(JSON.parse(event.data)));
+  source.onerror = () => {
+    failures += 1;
+    if (source.readyState !== EventSource.CLOSED && failures < MAX_STREAM_RETRIES) {
+      return;
+    }
+    source.close();
+    checkSession(sessionId)
+      .then((response) => onUpdate(response.data))
+      .catch((error) => console.error('Error checking session:', error));
+  };
+  return source;
+};
+
 export const getSession = (sessionId) =>
   api.get(`/sessions/${sessionId}`);
 